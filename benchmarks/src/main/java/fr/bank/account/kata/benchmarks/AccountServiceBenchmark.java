@@ -0,0 +1,140 @@
+package fr.bank.account.kata.benchmarks;
+
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountService hot paths against the in-memory repositories. The thread count is the JMH {@code -t}
+ * option, {@link BenchmarkRunner} sweeps it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    private static final long OPENING_BALANCE = 1_000_000_000_00L;
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+
+        @Param({"inMemory", "columnar"})
+        public String repository;
+
+        @Param({"10000"})
+        public int accountCount;
+
+        @Param({"10", "1000"})
+        public int historyLength;
+
+        @Param({"0", "1.1"})
+        public double skew;
+
+        public AccountService accountService;
+
+        public String[] accountIds;
+
+        public ZipfSampler sampler;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final OperationRepository operationRepository = "columnar".equals(repository)
+                    ? new ColumnarOperationRepository()
+                    : new InMemoryOperationRepository();
+
+            accountService = new AccountServiceImpl(new InMemoryAccountRepository(), operationRepository);
+            accountIds = new String[accountCount];
+            sampler = new ZipfSampler(accountCount, skew);
+
+            for (int i = 0; i < accountCount; i++) {
+                accountIds[i] = "account-" + i;
+                accountService.createAccount(accountIds[i]);
+                accountService.depositMinorUnits(accountIds[i], OPENING_BALANCE);
+                for (int h = 1; h < historyLength; h++) {
+                    accountService.depositMinorUnits(accountIds[i], 1L + h % 100);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        public final SplittableRandom random = new SplittableRandom();
+
+        public final String prefix = UUID.randomUUID().toString() + "-";
+
+        public long created;
+
+        public String nextAccount(Bank bank) {
+            return bank.accountIds[bank.sampler.next(random)];
+        }
+    }
+
+    @Benchmark
+    public Balance deposit(Bank bank, Caller caller) {
+        return bank.accountService.deposit(caller.nextAccount(bank), 10.5d);
+    }
+
+    @Benchmark
+    public long depositMinorUnits(Bank bank, Caller caller) {
+        return bank.accountService.depositMinorUnits(caller.nextAccount(bank), 1_050L);
+    }
+
+    @Benchmark
+    public Balance withdraw(Bank bank, Caller caller) {
+        return bank.accountService.withdraw(caller.nextAccount(bank), 0.01d);
+    }
+
+    @Benchmark
+    public Balance depositThenWithdrawAll(Bank bank, Caller caller) {
+        final String accountId = caller.nextAccount(bank);
+        bank.accountService.deposit(accountId, 1d);
+        return bank.accountService.withdrawAll(accountId);
+    }
+
+    @Benchmark
+    public Balance getBalance(Bank bank, Caller caller) {
+        return bank.accountService.getBalance(caller.nextAccount(bank));
+    }
+
+    @Benchmark
+    public Object createAccount(Bank bank, Caller caller) {
+        return bank.accountService.createAccount(caller.prefix + caller.created++);
+    }
+
+    @Benchmark
+    public List<Operation> listOperations(Bank bank, Caller caller) {
+        return bank.accountService.listOperations(caller.nextAccount(bank));
+    }
+
+    @Benchmark
+    public OperationPage listOperationsPage(Bank bank, Caller caller) {
+        return bank.accountService.listOperations(caller.nextAccount(bank), null, 50);
+    }
+}
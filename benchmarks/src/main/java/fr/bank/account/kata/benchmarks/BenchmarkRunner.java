@@ -0,0 +1,41 @@
+package fr.bank.account.kata.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks once per thread count with the GC profiler, so allocation rate is reported next to
+ * throughput and average latency: {@code java -jar benchmarks.jar [threads,...] [jmh options]}.
+ * Without a leading thread list, plain JMH command line options are used.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+        if (args.length == 0 || !args[0].matches("\\d+(,\\d+)*")) {
+            Main.main(args);
+            return;
+        }
+
+        final String[] jmhArgs = new String[args.length - 1];
+        System.arraycopy(args, 1, jmhArgs, 0, jmhArgs.length);
+        final CommandLineOptions commandLine = new CommandLineOptions(jmhArgs);
+
+        for (String threads : args[0].split(",")) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads + "-threads.json")
+                    .build()).run();
+        }
+    }
+}
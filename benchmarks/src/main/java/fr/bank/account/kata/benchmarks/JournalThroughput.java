@@ -0,0 +1,72 @@
+package fr.bank.account.kata.benchmarks;
+
+import fr.bank.account.kata.repository.journal.JournalAccountRepository;
+import fr.bank.account.kata.repository.journal.JournalOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Durable deposit throughput through the journal repositories with group commit.
+ * {@code java -cp benchmarks.jar fr.bank.account.kata.benchmarks.JournalThroughput
+ * [threads] [seconds] [accounts] [fsync]}.
+ */
+public class JournalThroughput {
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        final boolean fsync = args.length <= 3 || Boolean.parseBoolean(args[3]);
+        final Path directory = Files.createTempDirectory("journal");
+
+        try (JournalAccountRepository accountRepository = new JournalAccountRepository(directory, fsync);
+             JournalOperationRepository operationRepository = new JournalOperationRepository(directory,
+                     accountRepository, fsync, JournalOperationRepository.DEFAULT_RECORDS_PER_SEGMENT)) {
+
+            final AccountService accountService = new AccountServiceImpl(accountRepository, operationRepository);
+            for (int i = 0; i < accounts; i++) {
+                if (!accountRepository.existsAccountById("account-" + i)) {
+                    accountService.createAccount("account-" + i);
+                }
+            }
+
+            final LongAdder operations = new LongAdder();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            final List<Thread> workers = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                final Thread worker = new Thread(() -> {
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        accountService.depositMinorUnits("account-" + random.nextInt(accounts), 1 + random.nextInt(10_000));
+                        operations.increment();
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            System.out.printf("%d threads, %d s, fsync %s: %,d deposits, %,.0f ops/s%n",
+                    threads, seconds, fsync, operations.sum(), operations.sum() / (double) seconds);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package fr.bank.account.kata.benchmarks;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Heap footprint comparison between the columnar store and a naive map of operation lists.
+ * Run it with a fixed heap: {@code java -Xmx2g -cp benchmarks.jar
+ * fr.bank.account.kata.benchmarks.OperationRepositoryFootprint [accounts] [operations]}.
+ */
+public class OperationRepositoryFootprint {
+
+    public static void main(String[] args) {
+        final int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        final int operationsPerAccount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        final long naive = measure(new NaiveOperationRepository(), accounts, operationsPerAccount);
+        final long columnar = measure(new ColumnarOperationRepository(), accounts, operationsPerAccount);
+        final long operations = (long) accounts * operationsPerAccount;
+
+        System.out.printf("%,d operations over %,d accounts%n", operations, accounts);
+        System.out.printf("naive    : %,d bytes (%d bytes/operation)%n", naive, naive / operations);
+        System.out.printf("columnar : %,d bytes (%d bytes/operation)%n", columnar, columnar / operations);
+    }
+
+    private static long measure(OperationRepository operationRepository, int accounts, int operationsPerAccount) {
+        final long before = usedMemory();
+        final OffsetDateTime start = OffsetDateTime.now();
+
+        for (int a = 0; a < accounts; a++) {
+            final Account account = Account.builder().id("account-" + a).build();
+            double balance = 0d;
+            for (int o = 0; o < operationsPerAccount; o++) {
+                final double amount = 1 + (o % 100);
+                balance += amount;
+                operationRepository.save(Operation.builder()
+                        .account(account)
+                        .operationType(OperationType.CREDIT)
+                        .amount(amount)
+                        .balance(balance)
+                        .date(start.plusSeconds(o))
+                        .build());
+            }
+        }
+
+        final long used = usedMemory() - before;
+
+        if (operationRepository.findLastOperationByAccountId("account-0").isPresent()) {
+            return used;
+        }
+        throw new IllegalStateException("Repository lost its content.");
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class NaiveOperationRepository implements OperationRepository {
+
+        private final Map<String, List<Operation>> operations = new HashMap<>();
+
+        @Override
+        public Operation save(Operation operation) {
+            operations.computeIfAbsent(operation.getAccount().getId(), accountId -> new ArrayList<>()).add(operation);
+            return operation;
+        }
+
+        @Override
+        public List<Operation> finOperationsdByAccountId(String accountId) {
+            return operations.get(accountId);
+        }
+
+        @Override
+        public Optional<Operation> findLastOperationByAccountId(String accountId) {
+            final List<Operation> history = operations.get(accountId);
+            return history == null ? Optional.empty() : Optional.of(history.get(history.size() - 1));
+        }
+
+        @Override
+        public Stream<String> findAccountIds() {
+            return operations.keySet().stream();
+        }
+
+        @Override
+        public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+            operations.keySet().removeAll(accountIds);
+        }
+    }
+}
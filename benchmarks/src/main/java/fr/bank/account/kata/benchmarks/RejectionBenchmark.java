@@ -0,0 +1,103 @@
+package fr.bank.account.kata.benchmarks;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.error.InsufficientBalanceException;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throwing versus non-throwing withdrawals when a share of them is rejected, half for insufficient funds and
+ * half for unknown accounts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+
+    private static final long OPENING_BALANCE = 1_000_000_000_00L;
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+
+        @Param({"0", "0.5", "0.9"})
+        public double rejectionRate;
+
+        @Param({"10000"})
+        public int accountCount;
+
+        public AccountService accountService;
+
+        public String[] fundedIds;
+
+        public String[] emptyIds;
+
+        public String[] unknownIds;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            accountService = new AccountServiceImpl(new InMemoryAccountRepository(), new InMemoryOperationRepository());
+            fundedIds = new String[accountCount];
+            emptyIds = new String[accountCount];
+            unknownIds = new String[accountCount];
+
+            for (int i = 0; i < accountCount; i++) {
+                fundedIds[i] = "funded-" + i;
+                emptyIds[i] = "empty-" + i;
+                unknownIds[i] = "unknown-" + i;
+                accountService.createAccount(fundedIds[i]);
+                accountService.depositMinorUnits(fundedIds[i], OPENING_BALANCE);
+                accountService.createAccount(emptyIds[i]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        public final SplittableRandom random = new SplittableRandom();
+
+        public String nextAccount(Bank bank) {
+            final int account = random.nextInt(bank.accountCount);
+
+            if (random.nextDouble() >= bank.rejectionRate) {
+                return bank.fundedIds[account];
+            }
+
+            return random.nextBoolean() ? bank.emptyIds[account] : bank.unknownIds[account];
+        }
+    }
+
+    @Benchmark
+    public long withdrawMinorUnits(Bank bank, Caller caller) {
+        try {
+            return bank.accountService.withdrawMinorUnits(caller.nextAccount(bank), 1L);
+        } catch (InsufficientBalanceException | AccountNotFoundException e) {
+            return -1L;
+        }
+    }
+
+    @Benchmark
+    public OperationOutcome tryWithdraw(Bank bank, Caller caller) {
+        return bank.accountService.tryWithdraw(caller.nextAccount(bank), 1L);
+    }
+}
@@ -0,0 +1,394 @@
+package fr.bank.account.kata.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import fr.bank.account.kata.cluster.LocalNode;
+import fr.bank.account.kata.cluster.Node;
+import fr.bank.account.kata.cluster.RoutingAccountService;
+import fr.bank.account.kata.error.NullOrZeroAmountException;
+import fr.bank.account.kata.metrics.LatencyHistogram;
+import fr.bank.account.kata.metrics.LatencySnapshot;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.repository.impl.TieredOperationRepository;
+import fr.bank.account.kata.repository.journal.JournalAccountRepository;
+import fr.bank.account.kata.repository.journal.JournalOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Soak test of a whole {@link AccountService} under a production-like load: Zipf-skewed accounts, a weighted mix
+ * of calls, an optional target rate with periodic bursts. Prints throughput, latency percentiles and GC pauses
+ * every interval, then replays every history to check it adds up to the balance and to the deposits made:
+ * {@code java -cp benchmarks.jar fr.bank.account.kata.benchmarks.SoakHarness [--name=value ...]}, see
+ * {@link SoakOptions}. When a rate is set, latencies are measured from the intended start of each call, so a
+ * stalled service is not hidden by the workers slowing down with it.
+ */
+public class SoakHarness {
+
+    private static final long OPENING_BALANCE = 1_000_00L;
+
+    private static final int MAX_AMOUNT = 10_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final SoakOperation[] OPERATIONS = SoakOperation.values();
+
+    private final SoakOptions options;
+
+    private final AccountService accountService;
+
+    private final String[] accountIds;
+
+    private final ZipfSampler sampler;
+
+    private final double[] cumulativeMix;
+
+    private final LatencyHistogram[] runLatencies = new LatencyHistogram[OPERATIONS.length];
+
+    private final LongAdder[] rejections = new LongAdder[OPERATIONS.length];
+
+    private final LatencyHistogram[] intervalLatencies = {new LatencyHistogram(), new LatencyHistogram()};
+
+    private final LatencyHistogram[] intervalPauses = {new LatencyHistogram(), new LatencyHistogram()};
+
+    private final LatencyHistogram runPauses = new LatencyHistogram();
+
+    private final LongAdder credited = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private volatile int phase;
+
+    private volatile boolean running = true;
+
+    private long startNanos;
+
+    public SoakHarness(SoakOptions options) throws IOException {
+        this.options = options;
+        this.accountService = createAccountService(options);
+        this.accountIds = new String[options.getAccounts()];
+        this.sampler = new ZipfSampler(options.getAccounts(), options.getSkew());
+        this.cumulativeMix = options.getMix();
+
+        for (int i = 1; i < cumulativeMix.length; i++) {
+            cumulativeMix[i] += cumulativeMix[i - 1];
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            runLatencies[i] = new LatencyHistogram();
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final SoakOptions options = SoakOptions.parse(args);
+
+        System.out.println("Soak test " + options);
+        System.exit(new SoakHarness(options).run() ? 0 : 1);
+    }
+
+    /**
+     * Opens the accounts, runs the load for the configured duration and returns whether the final check passed.
+     */
+    public boolean run() throws InterruptedException {
+        final long setUpStart = System.nanoTime();
+        final Map<String, Long> openingBalances = new LinkedHashMap<>();
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = "account-" + i;
+            openingBalances.put(accountIds[i], OPENING_BALANCE);
+        }
+        accountService.createAccounts(openingBalances);
+        System.out.printf("Opened %d accounts in %d ms%n", accountIds.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - setUpStart));
+
+        listenToGcPauses();
+
+        final List<Thread> workers = new ArrayList<>();
+        startNanos = System.nanoTime();
+        for (int i = 0; i < options.getThreads(); i++) {
+            final Thread worker = new Thread(new Worker(i), "soak-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        report();
+
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        summarize();
+
+        return check();
+    }
+
+    private void report() throws InterruptedException {
+        final long endNanos = startNanos + options.getDuration().toNanos();
+        final long intervalNanos = options.getInterval().toNanos();
+        long lastNanos = startNanos;
+
+        System.out.printf("%8s %12s %10s %10s %10s %10s %10s %10s%n",
+                "time(s)", "ops/s", "p50(us)", "p99(us)", "p99.9(us)", "max(us)", "gc(ms)", "gcMax(ms)");
+
+        while (lastNanos < endNanos) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(intervalNanos, endNanos - lastNanos));
+
+            final int current = phase;
+            phase = current + 1;
+
+            final long now = System.nanoTime();
+            final LatencySnapshot latencies = intervalLatencies[current & 1].snapshot();
+            final LatencySnapshot pauses = intervalPauses[current & 1].snapshot();
+            intervalLatencies[current & 1].reset();
+            intervalPauses[current & 1].reset();
+
+            System.out.printf("%8d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    TimeUnit.NANOSECONDS.toSeconds(now - startNanos),
+                    latencies.getCount() * 1e9 / (now - lastNanos),
+                    latencies.getP50Nanos() / 1e3, latencies.getP99Nanos() / 1e3, latencies.getP999Nanos() / 1e3,
+                    latencies.getMaxNanos() / 1e3,
+                    pauses.getMeanNanos() * pauses.getCount() / 1e6, pauses.getMaxNanos() / 1e6);
+            lastNanos = now;
+        }
+    }
+
+    private void summarize() {
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long total = 0L;
+
+        System.out.printf("%n%-16s %12s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "rejected", "mean(us)", "p50(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (SoakOperation operation : OPERATIONS) {
+            final LatencySnapshot latencies = runLatencies[operation.ordinal()].snapshot();
+            total += latencies.getCount();
+            System.out.printf("%-16s %12d %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation,
+                    latencies.getCount(), rejections[operation.ordinal()].sum(), latencies.getMeanNanos() / 1e3,
+                    latencies.getP50Nanos() / 1e3, latencies.getP99Nanos() / 1e3, latencies.getP999Nanos() / 1e3,
+                    latencies.getMaxNanos() / 1e3);
+        }
+
+        final LatencySnapshot pauses = runPauses.snapshot();
+        System.out.printf("%nSustained %.0f ops/s, %d unexpected errors%n", total / seconds, errors.sum());
+        System.out.printf("GC: %d pauses, %.1f ms total, p99 %.1f ms, max %.1f ms%n", pauses.getCount(),
+                pauses.getMeanNanos() * pauses.getCount() / 1e6, pauses.getP99Nanos() / 1e6, pauses.getMaxNanos() / 1e6);
+    }
+
+    /**
+     * Replays each history: every balance must follow from the previous one, never go negative and end on the
+     * current balance, and the credits must add up to the openings plus the accepted deposits.
+     */
+    private boolean check() {
+        final List<String> failures = new ArrayList<>();
+        long credits = 0L;
+
+        for (String accountId : accountIds) {
+            long balance = 0L;
+
+            final Iterator<Operation> operations = accountService.streamOperations(accountId, null, null).iterator();
+            while (operations.hasNext()) {
+                final Operation operation = operations.next();
+                if (operation.getOperationType() == OperationType.CREDIT) {
+                    balance += operation.getAmountMinorUnits();
+                    credits += operation.getAmountMinorUnits();
+                } else {
+                    balance -= operation.getAmountMinorUnits();
+                }
+                if (balance != operation.getBalanceMinorUnits() || balance < 0) {
+                    failures.add(accountId + ": operation " + operation.getId() + " balance "
+                            + operation.getBalanceMinorUnits() + " but replayed " + balance);
+                }
+            }
+
+            if (balance != accountService.getBalanceMinorUnits(accountId)) {
+                failures.add(accountId + ": balance " + accountService.getBalanceMinorUnits(accountId)
+                        + " but replayed " + balance);
+            }
+        }
+
+        final long expectedCredits = OPENING_BALANCE * accountIds.length + credited.sum();
+        if (credits != expectedCredits) {
+            failures.add("credited " + credits + " but expected " + expectedCredits);
+        }
+
+        if (failures.isEmpty() && errors.sum() == 0) {
+            System.out.println("Consistency check passed");
+            return true;
+        }
+
+        System.out.println("Consistency check failed (" + failures.size() + " issues)");
+        failures.stream().limit(20).forEach(failure -> System.out.println("  " + failure));
+        return false;
+    }
+
+    private void listenToGcPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+
+                final GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (info.getGcName().contains("Concurrent") || info.getGcName().contains("Cycles")) {
+                    return;
+                }
+
+                final long pauseNanos = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+                runPauses.record(pauseNanos);
+                intervalPauses[phase & 1].record(pauseNanos);
+            }, null, null);
+        }
+    }
+
+    private static AccountService createAccountService(SoakOptions options) throws IOException {
+        if (options.getNodes() <= 1) {
+            return createNode("node-0", options).getAccountService();
+        }
+
+        final List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < options.getNodes(); i++) {
+            nodes.add(createNode("node-" + i, options));
+        }
+
+        return new RoutingAccountService(nodes);
+    }
+
+    private static Node createNode(String id, SoakOptions options) throws IOException {
+        switch (options.getRepository()) {
+            case "inMemory":
+                return new LocalNode(id, new InMemoryAccountRepository(), new InMemoryOperationRepository());
+            case "columnar":
+                return new LocalNode(id, new InMemoryAccountRepository(), new ColumnarOperationRepository());
+            case "tiered":
+                return new LocalNode(id, new InMemoryAccountRepository(), new TieredOperationRepository());
+            case "journal":
+                final JournalAccountRepository accountRepository =
+                        new JournalAccountRepository(Files.createTempDirectory("soak-" + id), false);
+                final OperationRepository operationRepository = new JournalOperationRepository(
+                        Files.createTempDirectory("soak-" + id), accountRepository, false,
+                        JournalOperationRepository.DEFAULT_RECORDS_PER_SEGMENT);
+                return new LocalNode(id, accountRepository, operationRepository);
+            default:
+                throw new IllegalArgumentException("Unknown repository " + options.getRepository()
+                        + ", expected inMemory, columnar, tiered or journal");
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final SplittableRandom random;
+
+        Worker(int index) {
+            this.random = new SplittableRandom(index * 0x9E3779B97F4A7C15L);
+        }
+
+        @Override
+        public void run() {
+            final double perThreadRate = (double) options.getRate() / options.getThreads();
+            final long burstEveryNanos = options.getBurstEvery().toNanos();
+            final long burstLengthNanos = options.getBurstLength().toNanos();
+            long intended = System.nanoTime();
+
+            while (running) {
+                final long start;
+
+                if (perThreadRate > 0) {
+                    final boolean burst = (intended - startNanos) % burstEveryNanos < burstLengthNanos;
+                    intended += (long) (1e9 / (burst ? perThreadRate * options.getBurstFactor() : perThreadRate));
+
+                    final long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    start = intended;
+                } else {
+                    start = System.nanoTime();
+                }
+
+                final SoakOperation operation = nextOperation();
+                execute(operation, accountIds[sampler.next(random)]);
+
+                final long latency = System.nanoTime() - start;
+                runLatencies[operation.ordinal()].record(latency);
+                intervalLatencies[phase & 1].record(latency);
+            }
+        }
+
+        private SoakOperation nextOperation() {
+            final double draw = random.nextDouble() * cumulativeMix[cumulativeMix.length - 1];
+            int operation = 0;
+
+            while (operation < cumulativeMix.length - 1 && cumulativeMix[operation] <= draw) {
+                operation++;
+            }
+
+            return OPERATIONS[operation];
+        }
+
+        private void execute(SoakOperation operation, String accountId) {
+            try {
+                switch (operation) {
+                    case DEPOSIT:
+                        final long amount = 1L + random.nextInt(MAX_AMOUNT);
+                        if (accountService.tryDeposit(accountId, amount).isSuccess()) {
+                            credited.add(amount);
+                        } else {
+                            rejections[operation.ordinal()].increment();
+                        }
+                        break;
+                    case WITHDRAW:
+                        if (!accountService.tryWithdraw(accountId, 1L + random.nextInt(MAX_AMOUNT)).isSuccess()) {
+                            rejections[operation.ordinal()].increment();
+                        }
+                        break;
+                    case WITHDRAW_ALL:
+                        try {
+                            accountService.withdrawAllMinorUnits(accountId);
+                        } catch (NullOrZeroAmountException e) {
+                            rejections[operation.ordinal()].increment();
+                        }
+                        break;
+                    case GET_BALANCE:
+                        accountService.getBalanceMinorUnits(accountId);
+                        break;
+                    case LIST_OPERATIONS:
+                        accountService.listOperations(accountId, null, PAGE_SIZE);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected operation " + operation);
+                }
+            } catch (RuntimeException e) {
+                if (errors.sum() == 0) {
+                    e.printStackTrace();
+                }
+                errors.increment();
+            }
+        }
+    }
+}
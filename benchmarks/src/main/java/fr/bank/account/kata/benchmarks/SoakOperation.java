@@ -0,0 +1,12 @@
+package fr.bank.account.kata.benchmarks;
+
+/**
+ * Calls drawn by the {@link SoakHarness} workers, in the order of the {@code --mix} weights.
+ */
+public enum SoakOperation {
+    DEPOSIT,
+    WITHDRAW,
+    WITHDRAW_ALL,
+    GET_BALANCE,
+    LIST_OPERATIONS
+}
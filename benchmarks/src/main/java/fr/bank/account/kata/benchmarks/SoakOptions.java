@@ -0,0 +1,177 @@
+package fr.bank.account.kata.benchmarks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SoakHarness} settings, read from {@code --name=value} arguments. Durations are ISO-8601 or a number
+ * of seconds, the mix is one weight per {@link SoakOperation} separated by colons.
+ */
+public class SoakOptions {
+
+    private int accounts = 1_000_000;
+
+    private double skew = 1.1;
+
+    private double[] mix = {40, 30, 1, 24, 5};
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private Duration duration = Duration.ofMinutes(5);
+
+    private Duration interval = Duration.ofSeconds(5);
+
+    private long rate;
+
+    private double burstFactor = 1d;
+
+    private Duration burstEvery = Duration.ofSeconds(60);
+
+    private Duration burstLength = Duration.ofSeconds(10);
+
+    private String repository = "columnar";
+
+    private int nodes = 1;
+
+    public static SoakOptions parse(String[] args) {
+        final Map<String, String> values = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        final SoakOptions options = new SoakOptions();
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            options.set(value.getKey(), value.getValue());
+        }
+
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "accounts":
+                accounts = Integer.parseInt(value);
+                break;
+            case "skew":
+                skew = Double.parseDouble(value);
+                break;
+            case "mix":
+                mix = parseMix(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "duration":
+                duration = parseDuration(value);
+                break;
+            case "interval":
+                interval = parseDuration(value);
+                break;
+            case "rate":
+                rate = Long.parseLong(value);
+                break;
+            case "burstFactor":
+                burstFactor = Double.parseDouble(value);
+                break;
+            case "burstEvery":
+                burstEvery = parseDuration(value);
+                break;
+            case "burstLength":
+                burstLength = parseDuration(value);
+                break;
+            case "repository":
+                repository = value;
+                break;
+            case "nodes":
+                nodes = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    private static double[] parseMix(String value) {
+        final String[] weights = value.split(":");
+
+        if (weights.length != SoakOperation.values().length) {
+            throw new IllegalArgumentException("Expected one weight per operation " + Arrays.toString(
+                    SoakOperation.values()) + " but got " + value);
+        }
+
+        final double[] mix = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            mix[i] = Double.parseDouble(weights[i]);
+        }
+
+        return mix;
+    }
+
+    private static Duration parseDuration(String value) {
+        return value.toUpperCase().startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public double getSkew() {
+        return skew;
+    }
+
+    public double[] getMix() {
+        return mix.clone();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Target operations per second over all threads, 0 for as fast as possible.
+     */
+    public long getRate() {
+        return rate;
+    }
+
+    public double getBurstFactor() {
+        return burstFactor;
+    }
+
+    public Duration getBurstEvery() {
+        return burstEvery;
+    }
+
+    public Duration getBurstLength() {
+        return burstLength;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "accounts=" + accounts + " skew=" + skew + " mix=" + Arrays.toString(mix)
+                + " threads=" + threads + " duration=" + duration + " rate=" + (rate == 0 ? "max" : rate)
+                + " burst=x" + burstFactor + " every " + burstEvery + " for " + burstLength
+                + " repository=" + repository + " nodes=" + nodes;
+    }
+}
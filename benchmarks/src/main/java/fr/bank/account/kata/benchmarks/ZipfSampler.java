@@ -0,0 +1,42 @@
+package fr.bank.account.kata.benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks in {@code [0, size)} with probability proportional to {@code 1 / (rank + 1)^skew}:
+ * a skew of 0 is uniform, around 1 concentrates the traffic on a few hot accounts.
+ */
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int size, double skew) {
+        cumulative = new double[size];
+
+        double sum = 0d;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1d / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    public int next(SplittableRandom random) {
+        final double target = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (cumulative[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
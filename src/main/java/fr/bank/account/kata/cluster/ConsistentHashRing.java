@@ -0,0 +1,112 @@
+package fr.bank.account.kata.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable consistent hash ring placing each node at {@code virtualNodes} points. An account belongs to the
+ * first point at or after its hash, so adding a node only moves the accounts it takes over.
+ */
+public final class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final int virtualNodes;
+
+    private final List<Node> nodes;
+
+    private final long[] points;
+
+    private final Node[] owners;
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        this(virtualNodes, Collections.emptyList());
+    }
+
+    private ConsistentHashRing(int virtualNodes, List<Node> nodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive.");
+        }
+
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableList(nodes);
+
+        final long[][] placed = new long[nodes.size() * virtualNodes][];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[n * virtualNodes + v] = new long[]{hash(nodes.get(n).getId() + "#" + v), n};
+            }
+        }
+        Arrays.sort(placed, (left, right) -> Long.compare(left[0], right[0]));
+
+        this.points = new long[placed.length];
+        this.owners = new Node[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = nodes.get((int) placed[i][1]);
+        }
+    }
+
+    public ConsistentHashRing with(Node node) {
+        for (Node existing : nodes) {
+            if (existing.getId().equals(node.getId())) {
+                throw new IllegalArgumentException("Node " + node.getId() + " already in the ring.");
+            }
+        }
+
+        final List<Node> grown = new ArrayList<>(nodes);
+        grown.add(node);
+
+        return new ConsistentHashRing(virtualNodes, grown);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Owner of the account. A null id has no hash and always belongs to the first node, which rejects it like
+     * any unknown account.
+     */
+    public Node ownerOf(String accountId) {
+        if (points.length == 0) {
+            throw new IllegalStateException("No node in the ring.");
+        }
+
+        if (accountId == null) {
+            return nodes.get(0);
+        }
+
+        final int index = Arrays.binarySearch(points, hash(accountId));
+        final int point = index >= 0 ? index : -index - 1;
+
+        return owners[point == points.length ? 0 : point];
+    }
+
+    /**
+     * 64 bits FNV-1a of the UTF-8 bytes followed by the MurmurHash3 finalizer, so close ids spread evenly.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
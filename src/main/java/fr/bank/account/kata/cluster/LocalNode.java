@@ -0,0 +1,76 @@
+package fr.bank.account.kata.cluster;
+
+import fr.bank.account.kata.export.OperationExporter;
+import fr.bank.account.kata.export.OperationImporter;
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * In-process {@link Node} owning its own repositories and {@link AccountServiceImpl}.
+ */
+public class LocalNode implements Node {
+
+    private final String id;
+
+    private final AccountRepository accountRepository;
+
+    private final OperationRepository operationRepository;
+
+    private final AccountServiceImpl accountService;
+
+    public LocalNode(String id, AccountRepository accountRepository, OperationRepository operationRepository) {
+        this.id = id;
+        this.accountRepository = accountRepository;
+        this.operationRepository = operationRepository;
+        this.accountService = new AccountServiceImpl(accountRepository, operationRepository);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public AccountService getAccountService() {
+        return accountService;
+    }
+
+    @Override
+    public Stream<String> accountIds() {
+        return accountRepository.findAll().map(Account::getId);
+    }
+
+    @Override
+    public byte[] exportAccounts(Collection<String> accountIds) {
+        final ByteArrayOutputStream export = new ByteArrayOutputStream();
+
+        new OperationExporter(accountRepository, operationRepository).exportTo(Channels.newChannel(export), accountIds);
+
+        return export.toByteArray();
+    }
+
+    @Override
+    public void importAccounts(byte[] export) {
+        new OperationImporter(accountRepository, operationRepository)
+                .importFrom(Channels.newChannel(new ByteArrayInputStream(export)));
+    }
+
+    @Override
+    public void deleteAccounts(Collection<String> accountIds) {
+        accountService.deleteAccounts(accountIds);
+    }
+
+    @Override
+    public String toString() {
+        return "LocalNode(" + id + ")";
+    }
+}
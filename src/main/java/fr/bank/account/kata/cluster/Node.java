@@ -0,0 +1,30 @@
+package fr.bank.account.kata.cluster;
+
+import fr.bank.account.kata.service.AccountService;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Transport to one partition of the accounts. Moving accounts between nodes goes through the binary format of
+ * {@link fr.bank.account.kata.export.OperationExporter}, so a remote implementation only has to ship bytes.
+ */
+public interface Node {
+    String getId();
+
+    AccountService getAccountService();
+
+    Stream<String> accountIds();
+
+    /**
+     * Exports the listed accounts with their history; ids the node does not hold are skipped.
+     */
+    byte[] exportAccounts(Collection<String> accountIds);
+
+    void importAccounts(byte[] export);
+
+    /**
+     * Deletes accounts, with their history, that now live on another node.
+     */
+    void deleteAccounts(Collection<String> accountIds);
+}
@@ -0,0 +1,445 @@
+package fr.bank.account.kata.cluster;
+
+import fr.bank.account.kata.error.CrossNodeTransferException;
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.AccountCreationResult;
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.BalanceSnapshot;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
+import fr.bank.account.kata.service.AccountService;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link AccountService} partitioning the accounts over {@link Node}s with a {@link ConsistentHashRing}.
+ * <p>
+ * Calls take the read lock of the account stripe and run on the owning node. {@link #addNode(Node)} rebalances
+ * online: it moves the accounts taken over by the new node one stripe at a time under the stripe write lock, so
+ * only the accounts of that stripe wait, then takes every stripe for a last pass over the accounts created in
+ * the meantime and switches to the new ring. Moved accounts are then deleted from their former node. Their
+ * operations get new ids on the new one, so pagination cursors do not survive a move.
+ * Transfers between accounts owned by different nodes are rejected with a {@link CrossNodeTransferException}.
+ */
+public class RoutingAccountService implements AccountService {
+
+    public static final int DEFAULT_STRIPES = 256;
+
+    private final ReadWriteLock[] stripes;
+
+    private final int mask;
+
+    private final ConcurrentMap<String, Node> moved = new ConcurrentHashMap<>();
+
+    private final Set<String> createdWhileRebalancing = ConcurrentHashMap.newKeySet();
+
+    private volatile ConsistentHashRing ring;
+
+    private volatile boolean rebalancing;
+
+    public RoutingAccountService(List<? extends Node> nodes) {
+        this(nodes, ConsistentHashRing.DEFAULT_VIRTUAL_NODES, DEFAULT_STRIPES);
+    }
+
+    public RoutingAccountService(List<? extends Node> nodes, int virtualNodes, int stripes) {
+        if (nodes.isEmpty() || stripes <= 0) {
+            throw new IllegalArgumentException("At least one node and one stripe are required.");
+        }
+
+        ConsistentHashRing initial = new ConsistentHashRing(virtualNodes);
+        for (Node node : nodes) {
+            initial = initial.with(node);
+        }
+        this.ring = initial;
+
+        final int size = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        this.stripes = new ReadWriteLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public List<Node> getNodes() {
+        return ring.getNodes();
+    }
+
+    public Node nodeOf(String accountId) {
+        final Node node = moved.isEmpty() || accountId == null ? null : moved.get(accountId);
+
+        return node != null ? node : ring.ownerOf(accountId);
+    }
+
+    /**
+     * Adds a node to the ring and moves to it the accounts, with their history, that it now owns.
+     */
+    public synchronized void addNode(Node node) {
+        final ConsistentHashRing current = ring;
+        final ConsistentHashRing next = current.with(node);
+        final Map<Node, Set<String>> movedOut = new LinkedHashMap<>();
+
+        rebalancing = true;
+        try {
+            final Map<Integer, Map<Node, Set<String>>> movingByStripe = new LinkedHashMap<>();
+            for (Node source : current.getNodes()) {
+                source.accountIds()
+                        .filter(accountId -> current.ownerOf(accountId) == source && next.ownerOf(accountId) == node)
+                        .forEach(accountId -> movingByStripe
+                                .computeIfAbsent(stripeOf(accountId), stripe -> new LinkedHashMap<>())
+                                .computeIfAbsent(source, owner -> new HashSet<>())
+                                .add(accountId));
+            }
+
+            for (Map.Entry<Integer, Map<Node, Set<String>>> stripe : movingByStripe.entrySet()) {
+                stripes[stripe.getKey()].writeLock().lock();
+                try {
+                    stripe.getValue().forEach((source, accountIds) -> move(source, node, accountIds, movedOut));
+                } finally {
+                    stripes[stripe.getKey()].writeLock().unlock();
+                }
+            }
+
+            lockAll();
+            try {
+                final Map<Node, Set<String>> created = new LinkedHashMap<>();
+                for (String accountId : createdWhileRebalancing) {
+                    final Node owner = nodeOf(accountId);
+                    if (owner != node && next.ownerOf(accountId) == node) {
+                        created.computeIfAbsent(owner, source -> new HashSet<>()).add(accountId);
+                    }
+                }
+                created.forEach((source, accountIds) -> move(source, node, accountIds, movedOut));
+
+                ring = next;
+                moved.clear();
+            } finally {
+                unlockAll();
+            }
+
+            movedOut.forEach(Node::deleteAccounts);
+        } finally {
+            createdWhileRebalancing.clear();
+            rebalancing = false;
+        }
+    }
+
+    @Override
+    public Account createAccount(String accountId) {
+        return route(accountId, service -> {
+            final Account account = service.createAccount(accountId);
+            if (rebalancing) {
+                createdWhileRebalancing.add(accountId);
+            }
+            return account;
+        });
+    }
+
+    @Override
+    public AccountCreationResult createAccounts(Map<String, Long> openingBalancesMinorUnits) {
+        final TreeSet<Integer> creationStripes = new TreeSet<>();
+        for (String accountId : openingBalancesMinorUnits.keySet()) {
+            creationStripes.add(stripeOf(accountId));
+        }
+
+        for (Integer stripe : creationStripes) {
+            stripes[stripe].readLock().lock();
+        }
+        try {
+            final Map<Node, Map<String, Long>> accountsByNode = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> account : openingBalancesMinorUnits.entrySet()) {
+                accountsByNode.computeIfAbsent(nodeOf(account.getKey()), node -> new LinkedHashMap<>())
+                        .put(account.getKey(), account.getValue());
+            }
+
+            int createdCount = 0;
+            final Set<String> existing = new HashSet<>();
+            for (Map.Entry<Node, Map<String, Long>> nodeAccounts : accountsByNode.entrySet()) {
+                final AccountCreationResult result = nodeAccounts.getKey().getAccountService()
+                        .createAccounts(nodeAccounts.getValue());
+                createdCount += result.getCreatedCount();
+                existing.addAll(result.getExistingAccountIds());
+            }
+
+            if (rebalancing) {
+                for (String accountId : openingBalancesMinorUnits.keySet()) {
+                    if (!existing.contains(accountId)) {
+                        createdWhileRebalancing.add(accountId);
+                    }
+                }
+            }
+
+            return AccountCreationResult.builder()
+                    .createdCount(createdCount)
+                    .existingAccountIds(openingBalancesMinorUnits.keySet().stream().filter(existing::contains)
+                            .collect(Collectors.toList()))
+                    .build();
+        } finally {
+            for (Integer stripe : creationStripes.descendingSet()) {
+                stripes[stripe].readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Balance deposit(String accountId, Double amount) {
+        return route(accountId, service -> service.deposit(accountId, amount));
+    }
+
+    @Override
+    public long depositMinorUnits(String accountId, long amountMinorUnits) {
+        return route(accountId, service -> service.depositMinorUnits(accountId, amountMinorUnits));
+    }
+
+    @Override
+    public OperationOutcome tryDeposit(String accountId, long amountMinorUnits) {
+        return route(accountId, service -> service.tryDeposit(accountId, amountMinorUnits));
+    }
+
+    @Override
+    public Balance withdraw(String accountId, Double amount) {
+        return route(accountId, service -> service.withdraw(accountId, amount));
+    }
+
+    @Override
+    public long withdrawMinorUnits(String accountId, long amountMinorUnits) {
+        return route(accountId, service -> service.withdrawMinorUnits(accountId, amountMinorUnits));
+    }
+
+    @Override
+    public OperationOutcome tryWithdraw(String accountId, long amountMinorUnits) {
+        return route(accountId, service -> service.tryWithdraw(accountId, amountMinorUnits));
+    }
+
+    @Override
+    public Balance withdrawAll(String accountId) {
+        return route(accountId, service -> service.withdrawAll(accountId));
+    }
+
+    @Override
+    public long withdrawAllMinorUnits(String accountId) {
+        return route(accountId, service -> service.withdrawAllMinorUnits(accountId));
+    }
+
+    @Override
+    public Balance transfer(String fromAccountId, String toAccountId, Double amount) {
+        return routeTransfer(fromAccountId, toAccountId, service -> service.transfer(fromAccountId, toAccountId, amount));
+    }
+
+    @Override
+    public long transferMinorUnits(String fromAccountId, String toAccountId, long amountMinorUnits) {
+        return routeTransfer(fromAccountId, toAccountId,
+                service -> service.transferMinorUnits(fromAccountId, toAccountId, amountMinorUnits));
+    }
+
+    @Override
+    public List<OperationResult> executeBatch(List<OperationRequest> requests) {
+        final TreeSet<Integer> batchStripes = new TreeSet<>();
+        for (OperationRequest request : requests) {
+            batchStripes.add(stripeOf(request.getAccountId()));
+        }
+
+        for (Integer stripe : batchStripes) {
+            stripes[stripe].readLock().lock();
+        }
+        try {
+            final Map<Node, List<Integer>> requestsByNode = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                requestsByNode.computeIfAbsent(nodeOf(requests.get(i).getAccountId()), node -> new ArrayList<>()).add(i);
+            }
+
+            final OperationResult[] results = new OperationResult[requests.size()];
+            for (Map.Entry<Node, List<Integer>> nodeRequests : requestsByNode.entrySet()) {
+                final List<OperationRequest> forNode = new ArrayList<>(nodeRequests.getValue().size());
+                for (Integer index : nodeRequests.getValue()) {
+                    forNode.add(requests.get(index));
+                }
+
+                final List<OperationResult> nodeResults = nodeRequests.getKey().getAccountService().executeBatch(forNode);
+                for (int i = 0; i < nodeResults.size(); i++) {
+                    results[nodeRequests.getValue().get(i)] = nodeResults.get(i);
+                }
+            }
+
+            return Arrays.asList(results);
+        } finally {
+            for (Integer stripe : batchStripes.descendingSet()) {
+                stripes[stripe].readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Operation> listOperations(String accountId) {
+        return route(accountId, service -> service.listOperations(accountId));
+    }
+
+    @Override
+    public OperationPage listOperations(String accountId, Integer cursor, int limit) {
+        return route(accountId, service -> service.listOperations(accountId, cursor, limit));
+    }
+
+    @Override
+    public OperationPage listOperations(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                        Integer cursor, int limit) {
+        return route(accountId, service -> service.listOperations(accountId, from, to, cursor, limit));
+    }
+
+    @Override
+    public Stream<Operation> streamOperations(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        return route(accountId, service -> service.streamOperations(accountId, from, to));
+    }
+
+    @Override
+    public Balance getBalance(String accountId) {
+        return route(accountId, service -> service.getBalance(accountId));
+    }
+
+    @Override
+    public Balance getBalance(String accountId, OffsetDateTime at) {
+        return route(accountId, service -> service.getBalance(accountId, at));
+    }
+
+    @Override
+    public long getBalanceMinorUnits(String accountId) {
+        return route(accountId, service -> service.getBalanceMinorUnits(accountId));
+    }
+
+    /**
+     * Snapshots each node separately, so the balances are consistent within a node but not across nodes.
+     */
+    @Override
+    public BalanceSnapshot getBalances(Collection<String> accountIds) {
+        final TreeSet<Integer> snapshotStripes = new TreeSet<>();
+        for (String accountId : accountIds) {
+            snapshotStripes.add(stripeOf(accountId));
+        }
+
+        for (Integer stripe : snapshotStripes) {
+            stripes[stripe].readLock().lock();
+        }
+        try {
+            final Map<Node, List<String>> accountIdsByNode = new LinkedHashMap<>();
+            for (String accountId : accountIds) {
+                accountIdsByNode.computeIfAbsent(nodeOf(accountId), node -> new ArrayList<>()).add(accountId);
+            }
+
+            if (accountIdsByNode.size() == 1) {
+                return accountIdsByNode.keySet().iterator().next().getAccountService().getBalances(accountIds);
+            }
+
+            final Map<String, Long> nodeBalances = new HashMap<>();
+            for (Map.Entry<Node, List<String>> nodeAccountIds : accountIdsByNode.entrySet()) {
+                nodeBalances.putAll(nodeAccountIds.getKey().getAccountService().getBalances(nodeAccountIds.getValue())
+                        .getBalancesMinorUnits());
+            }
+
+            final Map<String, Long> balances = new LinkedHashMap<>();
+            for (String accountId : accountIds) {
+                if (nodeBalances.containsKey(accountId)) {
+                    balances.put(accountId, nodeBalances.get(accountId));
+                }
+            }
+
+            return BalanceSnapshot.builder().sequence(BalanceSnapshot.MERGED).balancesMinorUnits(balances).build();
+        } finally {
+            for (Integer stripe : snapshotStripes.descendingSet()) {
+                stripes[stripe].readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<StatementSummary> getStatementSummaries(String accountId, StatementPeriod period,
+                                                        LocalDate from, LocalDate to) {
+        return route(accountId, service -> service.getStatementSummaries(accountId, period, from, to));
+    }
+
+    private <T> T route(String accountId, Function<AccountService, T> call) {
+        final ReadWriteLock stripe = stripes[stripeOf(accountId)];
+
+        stripe.readLock().lock();
+        try {
+            return call.apply(nodeOf(accountId).getAccountService());
+        } finally {
+            stripe.readLock().unlock();
+        }
+    }
+
+    private <T> T routeTransfer(String fromAccountId, String toAccountId, Function<AccountService, T> call) {
+        final int first = Math.min(stripeOf(fromAccountId), stripeOf(toAccountId));
+        final int second = Math.max(stripeOf(fromAccountId), stripeOf(toAccountId));
+
+        stripes[first].readLock().lock();
+        if (second != first) {
+            stripes[second].readLock().lock();
+        }
+        try {
+            final Node node = nodeOf(fromAccountId);
+
+            if (node != nodeOf(toAccountId)) {
+                throw new CrossNodeTransferException();
+            }
+
+            return call.apply(node.getAccountService());
+        } finally {
+            if (second != first) {
+                stripes[second].readLock().unlock();
+            }
+            stripes[first].readLock().unlock();
+        }
+    }
+
+    private void move(Node source, Node target, Set<String> accountIds, Map<Node, Set<String>> movedOut) {
+        target.importAccounts(source.exportAccounts(accountIds));
+
+        for (String accountId : accountIds) {
+            moved.put(accountId, target);
+        }
+        movedOut.computeIfAbsent(source, owner -> new HashSet<>()).addAll(accountIds);
+    }
+
+    private void lockAll() {
+        for (ReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+
+    private int stripeOf(String accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+
+        final int hash = accountId.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
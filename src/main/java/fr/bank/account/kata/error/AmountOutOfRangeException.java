@@ -0,0 +1,7 @@
+package fr.bank.account.kata.error;
+
+public class AmountOutOfRangeException extends RuntimeException {
+    public AmountOutOfRangeException() {
+        super("Resulting balance is out of range.");
+    }
+}
@@ -0,0 +1,7 @@
+package fr.bank.account.kata.error;
+
+public class CrossNodeTransferException extends RuntimeException {
+    public CrossNodeTransferException() {
+        super("Cannot transfer between accounts owned by different nodes.");
+    }
+}
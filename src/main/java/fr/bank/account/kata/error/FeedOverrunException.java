@@ -0,0 +1,14 @@
+package fr.bank.account.kata.error;
+
+import lombok.Getter;
+
+@Getter
+public class FeedOverrunException extends RuntimeException {
+
+    private final long sequence;
+
+    public FeedOverrunException(long sequence) {
+        super("Feed Overrun at sequence " + sequence + ".");
+        this.sequence = sequence;
+    }
+}
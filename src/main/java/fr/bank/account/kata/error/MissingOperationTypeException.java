@@ -0,0 +1,7 @@
+package fr.bank.account.kata.error;
+
+public class MissingOperationTypeException extends RuntimeException {
+    public MissingOperationTypeException() {
+        super("Operation type is required.");
+    }
+}
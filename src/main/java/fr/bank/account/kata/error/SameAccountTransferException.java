@@ -0,0 +1,7 @@
+package fr.bank.account.kata.error;
+
+public class SameAccountTransferException extends RuntimeException {
+    public SameAccountTransferException() {
+        super("Cannot transfer to the same account.");
+    }
+}
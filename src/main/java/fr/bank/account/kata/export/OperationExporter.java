@@ -0,0 +1,223 @@
+package fr.bank.account.kata.export;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.EpochNanos;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.VarLongs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams every account history into the {@link OperationFormat} binary format. Histories are read through
+ * {@link OperationRepository#streamOperationsByAccountId}, so only a chunk of operations is in memory at a
+ * time, and encoded into a single direct buffer written straight to the channel.
+ */
+public class OperationExporter {
+
+    private final AccountRepository accountRepository;
+
+    private final OperationRepository operationRepository;
+
+    public OperationExporter(AccountRepository accountRepository, OperationRepository operationRepository) {
+        this.accountRepository = accountRepository;
+        this.operationRepository = operationRepository;
+    }
+
+    public long exportTo(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long operations = exportTo(channel);
+            channel.force(false);
+            return operations;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes all accounts and their operations and returns the number of operations exported.
+     */
+    public long exportTo(WritableByteChannel channel) {
+        return exportTo(channel, accountId -> true);
+    }
+
+    /**
+     * Writes the accounts accepted by {@code accountIds} and their operations and returns the number of
+     * operations exported.
+     */
+    public long exportTo(WritableByteChannel channel, Predicate<String> accountIds) {
+        try (Stream<Account> all = accountRepository.findAll()) {
+            return exportAccounts(channel, all.filter(account -> accountIds.test(account.getId()))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Writes the listed accounts that exist and their operations and returns the number of operations
+     * exported. The accounts are looked up one by one, so the cost does not depend on the store size.
+     */
+    public long exportTo(WritableByteChannel channel, Collection<String> accountIds) {
+        final List<Account> accounts = new ArrayList<>(accountIds.size());
+
+        for (String accountId : accountIds) {
+            accountRepository.getAccountById(accountId).ifPresent(accounts::add);
+        }
+
+        return exportAccounts(channel, accounts);
+    }
+
+    private long exportAccounts(WritableByteChannel channel, List<Account> accounts) {
+        final Writer writer = new Writer(channel);
+        final Map<String, Integer> indexes = new HashMap<>(accounts.size() * 2);
+
+        writer.ensure(5);
+        writer.buffer.putInt(OperationFormat.MAGIC).put(OperationFormat.VERSION);
+
+        for (Account account : accounts) {
+            declare(writer, OperationFormat.ACCOUNT, account.getId(), indexes);
+        }
+
+        long operations = 0;
+
+        for (int index = 0; index < accounts.size(); index++) {
+            operations += exportHistory(writer, index, accounts.get(index).getId(), indexes);
+        }
+
+        writer.ensure(1 + OperationFormat.MAX_VARINT_SIZE);
+        writer.buffer.put(OperationFormat.END);
+        VarLongs.putVarLong(writer.buffer, operations);
+        writer.flush();
+
+        return operations;
+    }
+
+    private long exportHistory(Writer writer, int index, String accountId, Map<String, Integer> indexes) {
+        long count = 0;
+        int previousId = 0;
+        long previousDate = 0L;
+        int previousOffset = 0;
+        long previousBalance = 0L;
+
+        try (Stream<Operation> history = operationRepository.streamOperationsByAccountId(accountId, null, null)) {
+            for (Iterator<Operation> iterator = history.iterator(); iterator.hasNext(); ) {
+                final Operation operation = iterator.next();
+                final OffsetDateTime date = operation.getDate();
+                final boolean credit = OperationType.CREDIT.equals(operation.getOperationType());
+                final int offset = date == null ? previousOffset : date.getOffset().getTotalSeconds();
+                final ByteBuffer buffer = writer.buffer;
+                int flags = OperationFormat.FLAGS | (credit ? OperationFormat.CREDIT : 0);
+
+                if (operation.getCounterparty() != null && !indexes.containsKey(operation.getCounterparty().getId())) {
+                    declare(writer, OperationFormat.REFERENCE, operation.getCounterparty().getId(), indexes);
+                }
+
+                if (count == 0) {
+                    writer.ensure(1 + OperationFormat.MAX_VARINT_SIZE);
+                    buffer.put(OperationFormat.HISTORY);
+                    VarLongs.putVarLong(buffer, index);
+                }
+
+                if (offset != previousOffset) {
+                    flags |= OperationFormat.ZONE_CHANGED;
+                }
+                if (operation.getCounterparty() != null) {
+                    flags |= OperationFormat.COUNTERPARTY;
+                }
+                if (date == null) {
+                    flags |= OperationFormat.NO_DATE;
+                }
+
+                writer.ensure(OperationFormat.MAX_OPERATION_SIZE);
+                buffer.put((byte) flags);
+                if (operation.getCounterparty() != null) {
+                    VarLongs.putVarLong(buffer, indexes.get(operation.getCounterparty().getId()));
+                }
+                VarLongs.putSignedVarLong(buffer, (long) operation.getId() - previousId);
+                if (date != null) {
+                    final long epochNanos = EpochNanos.of(date);
+                    VarLongs.putSignedVarLong(buffer, epochNanos - previousDate);
+                    previousDate = epochNanos;
+                }
+                if (offset != previousOffset) {
+                    VarLongs.putSignedVarLong(buffer, offset);
+                }
+                VarLongs.putVarLong(buffer, operation.getAmountMinorUnits());
+
+                final long expectedBalance = credit
+                        ? previousBalance + operation.getAmountMinorUnits()
+                        : previousBalance - operation.getAmountMinorUnits();
+                VarLongs.putSignedVarLong(buffer, operation.getBalanceMinorUnits() - expectedBalance);
+
+                previousId = operation.getId();
+                previousOffset = offset;
+                previousBalance = operation.getBalanceMinorUnits();
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            writer.ensure(1);
+            writer.buffer.put(OperationFormat.END_OF_HISTORY);
+        }
+
+        return count;
+    }
+
+    private static void declare(Writer writer, byte tag, String accountId, Map<String, Integer> indexes) {
+        final byte[] id = OperationFormat.encode(accountId);
+
+        writer.ensure(1 + OperationFormat.MAX_VARINT_SIZE + id.length);
+        writer.buffer.put(tag);
+        VarLongs.putVarLong(writer.buffer, id.length);
+        writer.buffer.put(id);
+        indexes.put(accountId, indexes.size());
+    }
+
+    private static final class Writer {
+
+        private final WritableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(OperationFormat.BUFFER_SIZE);
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
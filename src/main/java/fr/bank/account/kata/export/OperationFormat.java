@@ -0,0 +1,67 @@
+package fr.bank.account.kata.export;
+
+import fr.bank.account.kata.repository.VarLongs;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout shared by {@link OperationExporter} and {@link OperationImporter}.
+ * <p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, then declares every account once: {@link #ACCOUNT}
+ * and the account id. Histories follow, one block per account with operations: {@link #HISTORY}, the account
+ * index in declaration order, its operations oldest first, then {@link #END_OF_HISTORY}. The file ends with
+ * {@link #END} and the number of operations written. A counterparty outside of the exported accounts is
+ * declared with {@link #REFERENCE} right before its first use; it is only a name, not an imported account.
+ * <p>
+ * Each operation is a flags byte then varints: the counterparty index when there is one, the id delta, the
+ * date delta in nanoseconds, the zone offset when it changed, the amount, and the difference between the
+ * stored balance and the one implied by the previous balance and the amount, which is 0 for a consistent
+ * history. Ids, dates and balances are relative to the previous operation of the same account.
+ */
+final class OperationFormat {
+
+    static final int MAGIC = 0x4B424F50;
+
+    static final byte VERSION = 1;
+
+    static final byte ACCOUNT = 1;
+
+    static final byte HISTORY = 2;
+
+    static final byte END_OF_HISTORY = 3;
+
+    static final byte END = 4;
+
+    static final byte REFERENCE = 5;
+
+    static final int CREDIT = 1;
+
+    static final int ZONE_CHANGED = 1 << 1;
+
+    static final int COUNTERPARTY = 1 << 2;
+
+    static final int NO_DATE = 1 << 3;
+
+    static final int FLAGS = 1 << 4;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    static final int MAX_VARINT_SIZE = VarLongs.MAX_SIZE;
+
+    static final int MAX_OPERATION_SIZE = 1 + 6 * MAX_VARINT_SIZE;
+
+    static final int MAX_STRING_SIZE = BUFFER_SIZE - MAX_OPERATION_SIZE - MAX_VARINT_SIZE;
+
+    private OperationFormat() {
+    }
+
+    static byte[] encode(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > MAX_STRING_SIZE) {
+            throw new IllegalArgumentException("Account id too long to export: " + value);
+        }
+
+        return bytes;
+    }
+}
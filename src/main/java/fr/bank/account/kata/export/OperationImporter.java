@@ -0,0 +1,235 @@
+package fr.bank.account.kata.export;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.VarLongs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk-loads an {@link OperationExporter} file into fresh repositories. The file is decoded from a direct
+ * buffer refilled from the channel, and operations are saved in {@link OperationRepository#saveAll} batches,
+ * so memory stays bounded by the batch size whatever the history lengths.
+ * <p>
+ * Exported ids are not reused: the target repository numbers the imported operations in history order like any
+ * new operation, so later writes keep getting higher ids. Everything else is restored as exported.
+ */
+public class OperationImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final AccountRepository accountRepository;
+
+    private final OperationRepository operationRepository;
+
+    private final int batchSize;
+
+    public OperationImporter(AccountRepository accountRepository, OperationRepository operationRepository) {
+        this(accountRepository, operationRepository, DEFAULT_BATCH_SIZE);
+    }
+
+    public OperationImporter(AccountRepository accountRepository, OperationRepository operationRepository,
+                             int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+
+        this.accountRepository = accountRepository;
+        this.operationRepository = operationRepository;
+        this.batchSize = batchSize;
+    }
+
+    public long importFrom(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importFrom(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves the accounts and operations of an export and returns the number of operations imported.
+     */
+    public long importFrom(ReadableByteChannel channel) {
+        final Reader reader = new Reader(channel);
+
+        reader.require(5);
+        if (reader.buffer.getInt() != OperationFormat.MAGIC) {
+            throw new IllegalStateException("Not an operation export.");
+        }
+        final byte version = reader.buffer.get();
+        if (version != OperationFormat.VERSION) {
+            throw new IllegalStateException("Unsupported operation export version " + version);
+        }
+
+        final List<Account> accounts = new ArrayList<>();
+        long operations = 0;
+
+        while (true) {
+            reader.require(1);
+            final byte tag = reader.buffer.get();
+
+            if (tag == OperationFormat.ACCOUNT) {
+                final Account account = Account.builder().id(reader.getString()).build();
+                if (!accountRepository.existsAccountById(account.getId())) {
+                    accountRepository.save(account);
+                }
+                accounts.add(account);
+            } else if (tag == OperationFormat.REFERENCE) {
+                accounts.add(Account.builder().id(reader.getString()).build());
+            } else if (tag == OperationFormat.HISTORY) {
+                reader.require(OperationFormat.MAX_VARINT_SIZE);
+                operations += importHistory(reader, accounts, accountAt(accounts, VarLongs.getVarLong(reader.buffer)));
+            } else if (tag == OperationFormat.END) {
+                reader.require(OperationFormat.MAX_VARINT_SIZE);
+                final long expected = VarLongs.getVarLong(reader.buffer);
+                if (expected != operations) {
+                    throw new IllegalStateException("Operation export truncated: " + operations + " of " + expected);
+                }
+                return operations;
+            } else {
+                throw new IllegalStateException("Unexpected tag " + tag + " in operation export.");
+            }
+        }
+    }
+
+    private long importHistory(Reader reader, List<Account> accounts, Account account) {
+        final List<Operation> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        long previousDate = 0L;
+        int previousOffset = 0;
+        long previousBalance = 0L;
+
+        while (true) {
+            reader.require(OperationFormat.MAX_OPERATION_SIZE);
+            final int flags = reader.buffer.get();
+
+            if (flags == OperationFormat.END_OF_HISTORY) {
+                break;
+            }
+            if (flags == OperationFormat.REFERENCE) {
+                accounts.add(Account.builder().id(reader.getString()).build());
+                continue;
+            }
+            if ((flags & OperationFormat.FLAGS) == 0) {
+                throw new IllegalStateException("Unexpected tag " + flags + " in account history.");
+            }
+
+            final ByteBuffer buffer = reader.buffer;
+            final boolean credit = (flags & OperationFormat.CREDIT) != 0;
+            final Account counterparty = (flags & OperationFormat.COUNTERPARTY) != 0
+                    ? accountAt(accounts, VarLongs.getVarLong(buffer))
+                    : null;
+            VarLongs.getSignedVarLong(buffer);
+            final boolean dated = (flags & OperationFormat.NO_DATE) == 0;
+            if (dated) {
+                previousDate += VarLongs.getSignedVarLong(buffer);
+            }
+            if ((flags & OperationFormat.ZONE_CHANGED) != 0) {
+                previousOffset = (int) VarLongs.getSignedVarLong(buffer);
+            }
+            final long amount = VarLongs.getVarLong(buffer);
+            final long balance = (credit ? previousBalance + amount : previousBalance - amount)
+                    + VarLongs.getSignedVarLong(buffer);
+
+            batch.add(Operation.builder()
+                    .account(account)
+                    .counterparty(counterparty)
+                    .operationType(credit ? OperationType.CREDIT : OperationType.DEBIT)
+                    .amountMinorUnits(amount)
+                    .balanceMinorUnits(balance)
+                    .date(dated ? OffsetDateTime.ofInstant(Instant.ofEpochSecond(0, previousDate),
+                            ZoneOffset.ofTotalSeconds(previousOffset)) : null)
+                    .build());
+
+            if (batch.size() == batchSize) {
+                operationRepository.saveAll(batch);
+                batch.clear();
+            }
+
+            previousBalance = balance;
+            count++;
+        }
+
+        if (!batch.isEmpty()) {
+            operationRepository.saveAll(batch);
+        }
+
+        return count;
+    }
+
+    private static Account accountAt(List<Account> accounts, long index) {
+        if (index < 0 || index >= accounts.size()) {
+            throw new IllegalStateException("Unknown account " + index + " in operation export.");
+        }
+
+        return accounts.get((int) index);
+    }
+
+    private static final class Reader {
+
+        private final ReadableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(OperationFormat.BUFFER_SIZE);
+
+        private boolean endOfStream;
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer.limit(0);
+        }
+
+        /**
+         * Makes at least {@code bytes} bytes readable, or everything left before the end of the channel.
+         */
+        void require(int bytes) {
+            if (buffer.remaining() >= bytes || endOfStream) {
+                return;
+            }
+
+            buffer.compact();
+            try {
+                while (buffer.position() < bytes && !endOfStream) {
+                    endOfStream = channel.read(buffer) < 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.flip();
+
+            if (!buffer.hasRemaining()) {
+                throw new IllegalStateException("Operation export truncated.");
+            }
+        }
+
+        String getString() {
+            require(OperationFormat.MAX_VARINT_SIZE);
+            final int length = (int) VarLongs.getVarLong(buffer);
+            require(length);
+
+            if (buffer.remaining() < length) {
+                throw new IllegalStateException("Operation export truncated.");
+            }
+
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
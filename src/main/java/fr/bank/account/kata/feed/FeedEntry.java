@@ -0,0 +1,17 @@
+package fr.bank.account.kata.feed;
+
+import fr.bank.account.kata.model.Operation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Operation committed to an {@link OperationFeed}, with its position in the feed.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class FeedEntry {
+    private final long sequence;
+    private final Operation operation;
+}
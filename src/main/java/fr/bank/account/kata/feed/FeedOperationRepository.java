@@ -0,0 +1,85 @@
+package fr.bank.account.kata.feed;
+
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link OperationRepository} decorator publishing every saved operation to an {@link OperationFeed} once the
+ * backing store accepted it. Saves are made under the account locks, so the feed keeps the order of each
+ * account history, and the two legs of a transfer get consecutive sequences.
+ */
+public class FeedOperationRepository implements OperationRepository {
+
+    private final OperationRepository delegate;
+
+    private final OperationFeed feed;
+
+    public FeedOperationRepository(OperationRepository delegate, OperationFeed feed) {
+        this.delegate = delegate;
+        this.feed = feed;
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        final Operation saved = delegate.save(operation);
+
+        feed.publish(saved);
+
+        return saved;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        final List<Operation> saved = delegate.saveAll(operations);
+
+        feed.publish(saved);
+
+        return saved;
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        return delegate.finOperationsdByAccountId(accountId);
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        return delegate.findLastOperationByAccountId(accountId);
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return delegate.findAccountIds();
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        delegate.deleteOperationsByAccountIds(accountIds);
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        return delegate.findLastOperationByAccountIdAt(accountId, at);
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        return delegate.findOperationsByAccountId(accountId, from, to, beforeId, limit);
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        return delegate.streamOperationsByAccountId(accountId, from, to);
+    }
+
+    public OperationFeed getFeed() {
+        return feed;
+    }
+}
@@ -0,0 +1,21 @@
+package fr.bank.account.kata.feed;
+
+import java.util.List;
+
+/**
+ * Receiver of an {@link OperationFeed}, following the {@code java.util.concurrent.Flow.Subscriber} protocol
+ * except that entries are delivered in batches. Calls are never concurrent for a given subscription.
+ */
+public interface FeedSubscriber {
+
+    void onSubscribe(FeedSubscription subscription);
+
+    /**
+     * Next entries in sequence order, never more than requested and never empty.
+     */
+    void onNext(List<FeedEntry> entries);
+
+    void onError(Throwable error);
+
+    void onComplete();
+}
@@ -0,0 +1,16 @@
+package fr.bank.account.kata.feed;
+
+public interface FeedSubscription {
+
+    /**
+     * Adds {@code n} entries to the demand of the subscriber.
+     */
+    void request(long n);
+
+    void cancel();
+
+    /**
+     * Sequence of the next entry to deliver, to resume from after cancelling.
+     */
+    long getSequence();
+}
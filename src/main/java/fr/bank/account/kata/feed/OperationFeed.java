@@ -0,0 +1,270 @@
+package fr.bank.account.kata.feed;
+
+import fr.bank.account.kata.error.FeedOverrunException;
+import fr.bank.account.kata.model.Operation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Change feed of committed operations: a bounded ring written by any number of producers and read by each
+ * subscriber at its own pace, on the given {@link Executor}.
+ * <p>
+ * Publishing claims consecutive sequences, stores the entries in their slots and signals the subscriptions,
+ * so it never waits for a subscriber. A subscription reads the ring only while it has demand, up to
+ * {@code maxBatchSize} entries per {@link FeedSubscriber#onNext(List)}. A subscriber falling more than the
+ * capacity behind is not waited for either: it gets a {@link FeedOverrunException} with the first sequence it
+ * missed, and may subscribe again from a later one.
+ */
+public class OperationFeed implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 65_536;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final AtomicReferenceArray<FeedEntry> slots;
+
+    private final int mask;
+
+    private final int maxBatchSize;
+
+    private final Executor executor;
+
+    private final AtomicLong claimed = new AtomicLong();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    public OperationFeed() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public OperationFeed(int capacity, int maxBatchSize, Executor executor) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two and batch size positive.");
+        }
+
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+    }
+
+    public void publish(Operation operation) {
+        publish(Collections.singletonList(operation));
+    }
+
+    /**
+     * Appends the operations with consecutive sequences. Operations published once the feed is closed are
+     * dropped.
+     */
+    public void publish(List<Operation> operations) {
+        if (closed || operations.isEmpty()) {
+            return;
+        }
+
+        final long first = claimed.getAndAdd(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            store(new FeedEntry(first + i, operations.get(i)));
+        }
+
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Sequence the next published operation will get.
+     */
+    public long getSequence() {
+        return claimed.get();
+    }
+
+    /**
+     * Subscribes to the operations published from now on.
+     */
+    public FeedSubscription subscribe(FeedSubscriber subscriber) {
+        return subscribe(subscriber, claimed.get());
+    }
+
+    /**
+     * Subscribes from {@code fromSequence}, which fails with a {@link FeedOverrunException} once the first
+     * entries are requested if it is no longer in the ring.
+     */
+    public FeedSubscription subscribe(FeedSubscriber subscriber, long fromSequence) {
+        if (fromSequence < 0L) {
+            throw new IllegalArgumentException("Sequence must not be negative.");
+        }
+
+        final Subscription subscription = new Subscription(subscriber, fromSequence);
+
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+
+        if (closed) {
+            subscription.signal();
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Completes every subscription once it has received the operations already published.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    private void store(FeedEntry entry) {
+        final int slot = (int) (entry.getSequence() & mask);
+
+        FeedEntry current = slots.get(slot);
+        while ((current == null || current.getSequence() < entry.getSequence())
+                && !slots.compareAndSet(slot, current, entry)) {
+            current = slots.get(slot);
+        }
+    }
+
+    private final class Subscription implements FeedSubscription {
+
+        private final FeedSubscriber subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger work = new AtomicInteger();
+
+        private volatile long cursor;
+
+        private volatile boolean cancelled;
+
+        private volatile RuntimeException failure;
+
+        private Subscription(FeedSubscriber subscriber, long cursor) {
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                failure = new IllegalArgumentException("Requested entries must be positive.");
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0L ? Long.MAX_VALUE : current + added);
+            }
+
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        @Override
+        public long getSequence() {
+            return cursor;
+        }
+
+        private void signal() {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                terminate(e);
+            }
+        }
+
+        /**
+         * Runs on one thread at a time: signals received while draining are counted and drained again before
+         * returning, so an entry published concurrently is never left behind.
+         */
+        private void drain() {
+            int missed = 1;
+
+            do {
+                while (!cancelled) {
+                    if (failure != null) {
+                        terminate(failure);
+                        break;
+                    }
+
+                    final long demand = requested.get();
+                    final int limit = (int) Math.min(demand, maxBatchSize);
+                    long next = cursor;
+                    List<FeedEntry> entries = null;
+
+                    while (next - cursor < limit) {
+                        final FeedEntry entry = slots.get((int) (next & mask));
+
+                        if (entry == null || entry.getSequence() < next) {
+                            break;
+                        }
+
+                        if (entry.getSequence() > next) {
+                            failure = new FeedOverrunException(next);
+                            break;
+                        }
+
+                        if (entries == null) {
+                            entries = new ArrayList<>(limit);
+                        }
+                        entries.add(entry);
+                        next++;
+                    }
+
+                    if (entries != null) {
+                        cursor = next;
+                        if (demand != Long.MAX_VALUE) {
+                            requested.addAndGet(-entries.size());
+                        }
+                        deliver(entries);
+                    } else if (failure == null) {
+                        if (closed && cursor >= claimed.get()) {
+                            terminate(null);
+                        }
+                        break;
+                    }
+                }
+
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver(List<FeedEntry> entries) {
+            try {
+                subscriber.onNext(entries);
+            } catch (RuntimeException e) {
+                terminate(e);
+            }
+        }
+
+        private void terminate(Throwable error) {
+            cancel();
+
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package fr.bank.account.kata.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per exception type counters named {@code prefix + simple class name}. The counter of a given type is
+ * resolved once through a {@link ClassValue}, so counting a failure does not touch the registry.
+ */
+class ExceptionCounters {
+
+    private final ClassValue<LongAdder> counters;
+
+    ExceptionCounters(MetricsRegistry registry, String prefix) {
+        this.counters = new ClassValue<LongAdder>() {
+            @Override
+            protected LongAdder computeValue(Class<?> type) {
+                return registry.counter(prefix + type.getSimpleName());
+            }
+        };
+    }
+
+    void count(Throwable error) {
+        counters.get(error.getClass()).increment();
+    }
+}
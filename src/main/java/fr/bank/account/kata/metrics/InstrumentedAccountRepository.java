@@ -0,0 +1,99 @@
+package fr.bank.account.kata.metrics;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link AccountRepository} decorator timing every call into {@code AccountRepository.<method>} histograms.
+ */
+public class InstrumentedAccountRepository implements AccountRepository {
+
+    private final AccountRepository delegate;
+
+    private final LatencyHistogram saveLatency;
+
+    private final LatencyHistogram saveAllIfAbsentLatency;
+
+    private final LatencyHistogram existsLatency;
+
+    private final LatencyHistogram getLatency;
+
+    private final LatencyHistogram findAllLatency;
+
+    private final LatencyHistogram deleteLatency;
+
+    public InstrumentedAccountRepository(AccountRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.saveLatency = registry.histogram("AccountRepository.save");
+        this.saveAllIfAbsentLatency = registry.histogram("AccountRepository.saveAllIfAbsent");
+        this.existsLatency = registry.histogram("AccountRepository.existsAccountById");
+        this.getLatency = registry.histogram("AccountRepository.getAccountById");
+        this.findAllLatency = registry.histogram("AccountRepository.findAll");
+        this.deleteLatency = registry.histogram("AccountRepository.deleteAllById");
+    }
+
+    @Override
+    public Account save(Account account) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.save(account);
+        } finally {
+            saveLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<String> saveAllIfAbsent(List<Account> accounts) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.saveAllIfAbsent(accounts);
+        } finally {
+            saveAllIfAbsentLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean existsAccountById(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.existsAccountById(accountId);
+        } finally {
+            existsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Account> getAccountById(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getAccountById(accountId);
+        } finally {
+            getLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<Account> findAll() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            findAllLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> accountIds) {
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteAllById(accountIds);
+        } finally {
+            deleteLatency.record(System.nanoTime() - start);
+        }
+    }
+}
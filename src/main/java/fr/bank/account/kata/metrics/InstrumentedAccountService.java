@@ -0,0 +1,474 @@
+package fr.bank.account.kata.metrics;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.AccountCreationResult;
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.BalanceSnapshot;
+import fr.bank.account.kata.model.Money;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.OperationStatus;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
+import fr.bank.account.kata.service.AccountService;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * {@link AccountService} decorator recording the latency of every method into {@code AccountService.<method>}
+ * histograms and counting failures per exception type into {@code AccountService.exceptions.<type>}. Metrics are
+ * resolved at construction, so the recording path is a couple of atomic increments and does not allocate.
+ *
+ * <p>When built with {@code jfrEvents}, balance movements are also emitted as {@code fr.bank.account.kata.Operation}
+ * Flight Recorder events; the flag is ignored on JVMs without JFR.
+ */
+public class InstrumentedAccountService implements AccountService {
+
+    private static final String PREFIX = "AccountService.";
+
+    private final AccountService delegate;
+
+    private final boolean jfrEvents;
+
+    private final ExceptionCounters exceptions;
+
+    private final LongAdder[] rejections;
+
+    private final LatencyHistogram createAccountLatency;
+
+    private final LatencyHistogram createAccountsLatency;
+
+    private final LatencyHistogram depositLatency;
+
+    private final LatencyHistogram tryDepositLatency;
+
+    private final LatencyHistogram withdrawLatency;
+
+    private final LatencyHistogram tryWithdrawLatency;
+
+    private final LatencyHistogram withdrawAllLatency;
+
+    private final LatencyHistogram transferLatency;
+
+    private final LatencyHistogram executeBatchLatency;
+
+    private final LatencyHistogram listOperationsLatency;
+
+    private final LatencyHistogram streamOperationsLatency;
+
+    private final LatencyHistogram getBalanceLatency;
+
+    private final LatencyHistogram getBalancesLatency;
+
+    private final LatencyHistogram getStatementSummariesLatency;
+
+    public InstrumentedAccountService(AccountService delegate, MetricsRegistry registry) {
+        this(delegate, registry, false);
+    }
+
+    public InstrumentedAccountService(AccountService delegate, MetricsRegistry registry, boolean jfrEvents) {
+        this.delegate = delegate;
+        this.jfrEvents = jfrEvents && OperationEvent.isAvailable();
+        this.exceptions = new ExceptionCounters(registry, PREFIX + "exceptions.");
+        this.createAccountLatency = registry.histogram(PREFIX + "createAccount");
+        this.createAccountsLatency = registry.histogram(PREFIX + "createAccounts");
+        this.depositLatency = registry.histogram(PREFIX + "deposit");
+        this.tryDepositLatency = registry.histogram(PREFIX + "tryDeposit");
+        this.withdrawLatency = registry.histogram(PREFIX + "withdraw");
+        this.tryWithdrawLatency = registry.histogram(PREFIX + "tryWithdraw");
+        this.rejections = new LongAdder[OperationStatus.values().length];
+        for (OperationStatus status : OperationStatus.values()) {
+            rejections[status.ordinal()] = registry.counter(PREFIX + "rejections." + status);
+        }
+        this.withdrawAllLatency = registry.histogram(PREFIX + "withdrawAll");
+        this.transferLatency = registry.histogram(PREFIX + "transfer");
+        this.executeBatchLatency = registry.histogram(PREFIX + "executeBatch");
+        this.listOperationsLatency = registry.histogram(PREFIX + "listOperations");
+        this.streamOperationsLatency = registry.histogram(PREFIX + "streamOperations");
+        this.getBalanceLatency = registry.histogram(PREFIX + "getBalance");
+        this.getBalancesLatency = registry.histogram(PREFIX + "getBalances");
+        this.getStatementSummariesLatency = registry.histogram(PREFIX + "getStatementSummaries");
+    }
+
+    @Override
+    public Account createAccount(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.createAccount(accountId);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            createAccountLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public AccountCreationResult createAccounts(Map<String, Long> openingBalancesMinorUnits) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.createAccounts(openingBalancesMinorUnits);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            createAccountsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Balance deposit(String accountId, Double amount) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.deposit(accountId, amount);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            depositLatency.record(System.nanoTime() - start);
+            completeMovement(event, "deposit", accountId, amount, failure);
+        }
+    }
+
+    @Override
+    public long depositMinorUnits(String accountId, long amountMinorUnits) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.depositMinorUnits(accountId, amountMinorUnits);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            depositLatency.record(System.nanoTime() - start);
+            completeMovement(event, "deposit", accountId, amountMinorUnits, failure);
+        }
+    }
+
+    @Override
+    public OperationOutcome tryDeposit(String accountId, long amountMinorUnits) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        OperationOutcome outcome = null;
+        try {
+            outcome = delegate.tryDeposit(accountId, amountMinorUnits);
+            return outcome;
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            tryDepositLatency.record(System.nanoTime() - start);
+            completeAttempt(event, "tryDeposit", accountId, amountMinorUnits, outcome);
+        }
+    }
+
+    @Override
+    public Balance withdraw(String accountId, Double amount) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.withdraw(accountId, amount);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            withdrawLatency.record(System.nanoTime() - start);
+            completeMovement(event, "withdraw", accountId, amount, failure);
+        }
+    }
+
+    @Override
+    public long withdrawMinorUnits(String accountId, long amountMinorUnits) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.withdrawMinorUnits(accountId, amountMinorUnits);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            withdrawLatency.record(System.nanoTime() - start);
+            completeMovement(event, "withdraw", accountId, amountMinorUnits, failure);
+        }
+    }
+
+    @Override
+    public OperationOutcome tryWithdraw(String accountId, long amountMinorUnits) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        OperationOutcome outcome = null;
+        try {
+            outcome = delegate.tryWithdraw(accountId, amountMinorUnits);
+            return outcome;
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            tryWithdrawLatency.record(System.nanoTime() - start);
+            completeAttempt(event, "tryWithdraw", accountId, amountMinorUnits, outcome);
+        }
+    }
+
+    @Override
+    public Balance withdrawAll(String accountId) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.withdrawAll(accountId);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            withdrawAllLatency.record(System.nanoTime() - start);
+            completeMovement(event, "withdrawAll", accountId, 0L, failure);
+        }
+    }
+
+    @Override
+    public long withdrawAllMinorUnits(String accountId) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.withdrawAllMinorUnits(accountId);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            withdrawAllLatency.record(System.nanoTime() - start);
+            completeMovement(event, "withdrawAll", accountId, 0L, failure);
+        }
+    }
+
+    @Override
+    public Balance transfer(String fromAccountId, String toAccountId, Double amount) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.transfer(fromAccountId, toAccountId, amount);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            transferLatency.record(System.nanoTime() - start);
+            completeMovement(event, "transfer", fromAccountId, amount, failure);
+        }
+    }
+
+    @Override
+    public long transferMinorUnits(String fromAccountId, String toAccountId, long amountMinorUnits) {
+        final Object event = startEvent();
+        final long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return delegate.transferMinorUnits(fromAccountId, toAccountId, amountMinorUnits);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            transferLatency.record(System.nanoTime() - start);
+            completeMovement(event, "transfer", fromAccountId, amountMinorUnits, failure);
+        }
+    }
+
+    /**
+     * Item failures are reported in the results rather than thrown, they are counted like thrown exceptions.
+     */
+    @Override
+    public List<OperationResult> executeBatch(List<OperationRequest> requests) {
+        final long start = System.nanoTime();
+        try {
+            final List<OperationResult> results = delegate.executeBatch(requests);
+
+            for (OperationResult result : results) {
+                if (!result.isSuccess()) {
+                    exceptions.count(result.getError());
+                }
+            }
+
+            return results;
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            executeBatchLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Operation> listOperations(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.listOperations(accountId);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            listOperationsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public OperationPage listOperations(String accountId, Integer cursor, int limit) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.listOperations(accountId, cursor, limit);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            listOperationsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public OperationPage listOperations(String accountId, OffsetDateTime from, OffsetDateTime to, Integer cursor,
+                                        int limit) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.listOperations(accountId, from, to, cursor, limit);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            listOperationsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<Operation> streamOperations(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.streamOperations(accountId, from, to);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            streamOperationsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Balance getBalance(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getBalance(accountId);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            getBalanceLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Balance getBalance(String accountId, OffsetDateTime at) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getBalance(accountId, at);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            getBalanceLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long getBalanceMinorUnits(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getBalanceMinorUnits(accountId);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            getBalanceLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public BalanceSnapshot getBalances(Collection<String> accountIds) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getBalances(accountIds);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            getBalancesLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<StatementSummary> getStatementSummaries(String accountId, StatementPeriod period,
+                                                        LocalDate from, LocalDate to) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getStatementSummaries(accountId, period, from, to);
+        } catch (RuntimeException e) {
+            exceptions.count(e);
+            throw e;
+        } finally {
+            getStatementSummariesLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private Object startEvent() {
+        return jfrEvents ? OperationEvent.start() : null;
+    }
+
+    private void completeMovement(Object event, String method, String accountId, Double amount,
+                                  RuntimeException failure) {
+        completeMovement(event, method, accountId, event == null ? 0L : minorUnitsOf(amount), failure);
+    }
+
+    private void completeMovement(Object event, String method, String accountId, long amountMinorUnits,
+                                  RuntimeException failure) {
+        if (failure != null) {
+            exceptions.count(failure);
+        }
+        if (event != null) {
+            OperationEvent.commit(event, method, accountId, amountMinorUnits,
+                    failure == null ? null : failure.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Rejections of the non-throwing methods are counted per status; a null outcome means the delegate threw.
+     */
+    private void completeAttempt(Object event, String method, String accountId, long amountMinorUnits,
+                                 OperationOutcome outcome) {
+        if (outcome != null && !outcome.isSuccess()) {
+            rejections[outcome.getStatus().ordinal()].increment();
+        }
+        if (event != null) {
+            OperationEvent.commit(event, method, accountId, amountMinorUnits,
+                    outcome == null ? null : outcome.isSuccess() ? null : outcome.getStatus().name());
+        }
+    }
+
+    private static long minorUnitsOf(Double amount) {
+        try {
+            return amount == null ? 0L : Money.toMinorUnits(amount);
+        } catch (ArithmeticException e) {
+            return 0L;
+        }
+    }
+}
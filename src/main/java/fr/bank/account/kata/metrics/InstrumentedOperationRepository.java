@@ -0,0 +1,141 @@
+package fr.bank.account.kata.metrics;
+
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * {@link OperationRepository} decorator timing every call into {@code OperationRepository.<method>} histograms.
+ * Streams are timed until they are returned, not while they are consumed.
+ */
+public class InstrumentedOperationRepository implements OperationRepository {
+
+    private final OperationRepository delegate;
+
+    private final LatencyHistogram saveLatency;
+
+    private final LatencyHistogram saveAllLatency;
+
+    private final LatencyHistogram findAllLatency;
+
+    private final LatencyHistogram findLastLatency;
+
+    private final LatencyHistogram findAccountIdsLatency;
+
+    private final LatencyHistogram deleteLatency;
+
+    private final LatencyHistogram findLastAtLatency;
+
+    private final LatencyHistogram findPageLatency;
+
+    private final LatencyHistogram streamLatency;
+
+    public InstrumentedOperationRepository(OperationRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.saveLatency = registry.histogram("OperationRepository.save");
+        this.saveAllLatency = registry.histogram("OperationRepository.saveAll");
+        this.findAllLatency = registry.histogram("OperationRepository.finOperationsdByAccountId");
+        this.findLastLatency = registry.histogram("OperationRepository.findLastOperationByAccountId");
+        this.findAccountIdsLatency = registry.histogram("OperationRepository.findAccountIds");
+        this.deleteLatency = registry.histogram("OperationRepository.deleteOperationsByAccountIds");
+        this.findLastAtLatency = registry.histogram("OperationRepository.findLastOperationByAccountIdAt");
+        this.findPageLatency = registry.histogram("OperationRepository.findOperationsByAccountId");
+        this.streamLatency = registry.histogram("OperationRepository.streamOperationsByAccountId");
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.save(operation);
+        } finally {
+            saveLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.saveAll(operations);
+        } finally {
+            saveAllLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.finOperationsdByAccountId(accountId);
+        } finally {
+            findAllLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.findLastOperationByAccountId(accountId);
+        } finally {
+            findLastLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        final long start = System.nanoTime();
+        try {
+            return delegate.findAccountIds();
+        } finally {
+            findAccountIdsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        final long start = System.nanoTime();
+        try {
+            delegate.deleteOperationsByAccountIds(accountIds);
+        } finally {
+            deleteLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.findLastOperationByAccountIdAt(accountId, at);
+        } finally {
+            findLastAtLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.findOperationsByAccountId(accountId, from, to, beforeId, limit);
+        } finally {
+            findPageLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.streamOperationsByAccountId(accountId, from, to);
+        } finally {
+            streamLatency.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.bank.account.kata.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, allocation-free latency histogram in nanoseconds. Buckets are log-linear: 16 linear sub-buckets
+ * per power of two, i.e. about 6% relative precision, from 1 ns to about 9 minutes.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_MAGNITUDE = 39;
+
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0L, nanos)));
+        total.increment();
+        sum.add(nanos);
+    }
+
+    public LatencySnapshot snapshot() {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        int highest = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+            count += snapshot[bucket];
+            if (snapshot[bucket] != 0) {
+                highest = bucket;
+            }
+        }
+
+        return LatencySnapshot.builder()
+                .count(count)
+                .meanNanos(count == 0 ? 0d : (double) sum.sum() / total.sum())
+                .p50Nanos(percentile(snapshot, count, 0.50d))
+                .p99Nanos(percentile(snapshot, count, 0.99d))
+                .p999Nanos(percentile(snapshot, count, 0.999d))
+                .maxNanos(count == 0 ? 0L : upperBoundOf(highest))
+                .build();
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0L);
+        }
+        total.reset();
+        sum.reset();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        final int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0L;
+        }
+
+        final long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return upperBoundOf(bucket);
+            }
+        }
+
+        return upperBoundOf(counts.length - 1);
+    }
+}
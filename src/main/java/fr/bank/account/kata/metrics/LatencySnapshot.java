@@ -0,0 +1,16 @@
+package fr.bank.account.kata.metrics;
+
+import lombok.*;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class LatencySnapshot {
+    private final long count;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+}
@@ -0,0 +1,42 @@
+package fr.bank.account.kata.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named histograms and counters. Instrumented components resolve their metrics once at construction, so
+ * recording never touches the registry maps; {@link #snapshot()} is the pull-style read side.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public MetricsSnapshot snapshot() {
+        final Map<String, LatencySnapshot> latencies = new TreeMap<>();
+        final Map<String, Long> counts = new TreeMap<>();
+
+        histograms.forEach((name, histogram) -> latencies.put(name, histogram.snapshot()));
+        counters.forEach((name, counter) -> counts.put(name, counter.sum()));
+
+        return new MetricsSnapshot(Collections.unmodifiableMap(latencies), Collections.unmodifiableMap(counts));
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+}
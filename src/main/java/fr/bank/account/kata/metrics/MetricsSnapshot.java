@@ -0,0 +1,22 @@
+package fr.bank.account.kata.metrics;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class MetricsSnapshot {
+    private final Map<String, LatencySnapshot> latencies;
+    private final Map<String, Long> counters;
+
+    public LatencySnapshot latency(String name) {
+        return latencies.get(name);
+    }
+
+    public long counter(String name) {
+        final Long value = counters.get(name);
+        return value == null ? 0L : value;
+    }
+}
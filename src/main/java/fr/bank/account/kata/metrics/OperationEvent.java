@@ -0,0 +1,56 @@
+package fr.bank.account.kata.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted around each balance movement. Only loaded when {@link InstrumentedAccountService} is built
+ * with JFR events enabled, so the decorator still runs on JVMs without Flight Recorder.
+ */
+@Name("fr.bank.account.kata.Operation")
+@Label("Account Operation")
+@Category("Account Service")
+@StackTrace(false)
+class OperationEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Account")
+    String accountId;
+
+    @Label("Amount (minor units)")
+    long amountMinorUnits;
+
+    @Label("Failure")
+    String failure;
+
+    static Object start() {
+        final OperationEvent event = new OperationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object started, String method, String accountId, long amountMinorUnits, String failure) {
+        final OperationEvent event = (OperationEvent) started;
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.accountId = accountId;
+            event.amountMinorUnits = amountMinorUnits;
+            event.failure = failure;
+            event.commit();
+        }
+    }
+
+    static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
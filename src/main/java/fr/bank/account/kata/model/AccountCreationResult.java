@@ -0,0 +1,14 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class AccountCreationResult {
+    private final int createdCount;
+    private final List<String> existingAccountIds;
+}
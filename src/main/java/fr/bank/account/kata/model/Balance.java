@@ -11,5 +11,20 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 public class Balance {
     private OffsetDateTime date;
-    private Double amount;
+    private long amountMinorUnits;
+
+    public Double getAmount() {
+        return Money.toDouble(amountMinorUnits);
+    }
+
+    public void setAmount(Double amount) {
+        this.amountMinorUnits = amount == null ? 0L : Money.toMinorUnits(amount);
+    }
+
+    public static class BalanceBuilder {
+
+        public BalanceBuilder amount(Double amount) {
+            return amountMinorUnits(amount == null ? 0L : Money.toMinorUnits(amount));
+        }
+    }
 }
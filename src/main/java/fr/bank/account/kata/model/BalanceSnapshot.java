@@ -0,0 +1,34 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+import java.util.Map;
+
+/**
+ * Balances of several accounts as of a single commit {@link #sequence}: every movement committed up to it is
+ * included, none committed after. Accounts that do not exist are left out.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class BalanceSnapshot {
+
+    /**
+     * Sequence of a snapshot merged from several independent sources, consistent within each source only.
+     */
+    public static final long MERGED = -1L;
+
+    private final long sequence;
+    private final Map<String, Long> balancesMinorUnits;
+
+    public boolean contains(String accountId) {
+        return balancesMinorUnits.containsKey(accountId);
+    }
+
+    public Double getBalance(String accountId) {
+        final Long balance = balancesMinorUnits.get(accountId);
+
+        return balance == null ? null : Money.toDouble(balance);
+    }
+}
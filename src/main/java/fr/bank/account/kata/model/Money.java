@@ -0,0 +1,88 @@
+package fr.bank.account.kata.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact amount expressed as a count of minor units (cents) with a fixed currency scale.
+ * The static helpers let the hot path work on primitive {@code long} values directly.
+ */
+@Getter
+@EqualsAndHashCode
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    public static final long MINOR_UNITS_PER_UNIT = 100L;
+
+    public static final Money ZERO = new Money(0L);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0L ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(double amount) {
+        return ofMinorUnits(toMinorUnits(amount));
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(amount.movePointRight(SCALE).setScale(0, RoundingMode.HALF_EVEN).longValueExact());
+    }
+
+    public static long toMinorUnits(double amount) {
+        final double scaled = amount * MINOR_UNITS_PER_UNIT;
+
+        if (Double.isNaN(scaled) || scaled >= Long.MAX_VALUE || scaled <= Long.MIN_VALUE) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+
+        return Math.round(scaled);
+    }
+
+    public static double toDouble(long minorUnits) {
+        return minorUnits / (double) MINOR_UNITS_PER_UNIT;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0L;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0L;
+    }
+
+    public double toDouble() {
+        return toDouble(minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
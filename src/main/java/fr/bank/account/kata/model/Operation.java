@@ -3,7 +3,6 @@ package fr.bank.account.kata.model;
 import lombok.*;
 
 import java.time.OffsetDateTime;
-import java.util.Objects;
 
 @Getter
 @Setter
@@ -14,9 +13,37 @@ import java.util.Objects;
 public class Operation {
     private Integer id;
     private OperationType operationType;
-    private Double amount;
+    private long amountMinorUnits;
     @EqualsAndHashCode.Exclude
     private OffsetDateTime date;
-    private Double balance;
+    private long balanceMinorUnits;
     private Account account;
+    private Account counterparty;
+
+    public Double getAmount() {
+        return Money.toDouble(amountMinorUnits);
+    }
+
+    public void setAmount(Double amount) {
+        this.amountMinorUnits = amount == null ? 0L : Money.toMinorUnits(amount);
+    }
+
+    public Double getBalance() {
+        return Money.toDouble(balanceMinorUnits);
+    }
+
+    public void setBalance(Double balance) {
+        this.balanceMinorUnits = balance == null ? 0L : Money.toMinorUnits(balance);
+    }
+
+    public static class OperationBuilder {
+
+        public OperationBuilder amount(Double amount) {
+            return amountMinorUnits(amount == null ? 0L : Money.toMinorUnits(amount));
+        }
+
+        public OperationBuilder balance(Double balance) {
+            return balanceMinorUnits(balance == null ? 0L : Money.toMinorUnits(balance));
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Result of a non-throwing balance movement. Rejections are shared constants, so a rejected movement does not
+ * allocate; only a successful one carries the new balance and its date.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class OperationOutcome {
+
+    private static final OperationOutcome[] REJECTIONS = new OperationOutcome[OperationStatus.values().length];
+
+    static {
+        for (OperationStatus status : OperationStatus.values()) {
+            REJECTIONS[status.ordinal()] = new OperationOutcome(status, 0L, null);
+        }
+    }
+
+    private final OperationStatus status;
+    private final long balanceMinorUnits;
+    private final OffsetDateTime date;
+
+    private OperationOutcome(OperationStatus status, long balanceMinorUnits, OffsetDateTime date) {
+        this.status = status;
+        this.balanceMinorUnits = balanceMinorUnits;
+        this.date = date;
+    }
+
+    public static OperationOutcome success(long balanceMinorUnits, OffsetDateTime date) {
+        return new OperationOutcome(OperationStatus.SUCCESS, balanceMinorUnits, date);
+    }
+
+    public static OperationOutcome rejected(OperationStatus status) {
+        if (status == OperationStatus.SUCCESS) {
+            throw new IllegalArgumentException("A success carries a balance.");
+        }
+
+        return REJECTIONS[status.ordinal()];
+    }
+
+    public boolean isSuccess() {
+        return status == OperationStatus.SUCCESS;
+    }
+
+    public Double getBalance() {
+        return Money.toDouble(balanceMinorUnits);
+    }
+}
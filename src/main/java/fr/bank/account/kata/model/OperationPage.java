@@ -0,0 +1,20 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class OperationPage {
+    private List<Operation> operations;
+    private Integer nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,22 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class OperationRequest {
+    private String accountId;
+    private OperationType operationType;
+    private long amountMinorUnits;
+
+    public static class OperationRequestBuilder {
+
+        public OperationRequestBuilder amount(Double amount) {
+            return amountMinorUnits(amount == null ? 0L : Money.toMinorUnits(amount));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationResult {
+    private OperationRequest request;
+    private Balance balance;
+    private RuntimeException error;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
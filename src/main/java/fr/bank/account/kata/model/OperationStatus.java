@@ -0,0 +1,10 @@
+package fr.bank.account.kata.model;
+
+public enum OperationStatus {
+    SUCCESS,
+    ACCOUNT_NOT_FOUND,
+    NULL_OR_ZERO_AMOUNT,
+    NEGATIVE_AMOUNT,
+    INSUFFICIENT_BALANCE,
+    AMOUNT_OUT_OF_RANGE
+}
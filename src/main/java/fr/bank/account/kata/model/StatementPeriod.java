@@ -0,0 +1,32 @@
+package fr.bank.account.kata.model;
+
+import java.time.LocalDate;
+
+public enum StatementPeriod {
+    DAY {
+        @Override
+        public LocalDate startOf(LocalDate date) {
+            return date;
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusDays(1);
+        }
+    },
+    MONTH {
+        @Override
+        public LocalDate startOf(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+
+        @Override
+        public LocalDate next(LocalDate start) {
+            return start.plusMonths(1);
+        }
+    };
+
+    public abstract LocalDate startOf(LocalDate date);
+
+    public abstract LocalDate next(LocalDate start);
+}
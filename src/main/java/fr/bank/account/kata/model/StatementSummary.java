@@ -0,0 +1,38 @@
+package fr.bank.account.kata.model;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class StatementSummary {
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private long totalCreditsMinorUnits;
+    private long totalDebitsMinorUnits;
+    private int operationCount;
+    private long openingBalanceMinorUnits;
+    private long closingBalanceMinorUnits;
+
+    public Double getTotalCredits() {
+        return Money.toDouble(totalCreditsMinorUnits);
+    }
+
+    public Double getTotalDebits() {
+        return Money.toDouble(totalDebitsMinorUnits);
+    }
+
+    public Double getOpeningBalance() {
+        return Money.toDouble(openingBalanceMinorUnits);
+    }
+
+    public Double getClosingBalance() {
+        return Money.toDouble(closingBalanceMinorUnits);
+    }
+}
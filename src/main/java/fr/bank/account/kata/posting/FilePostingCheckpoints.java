@@ -0,0 +1,174 @@
+package fr.bank.account.kata.posting;
+
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checkpoints stored as small files per run and partition, replaced atomically on every save. The checkpoint
+ * file holds the last posted account id, or is renamed with a {@code .done} suffix once the partition is
+ * complete; the intent file holds the chunk being posted, and the partitions file the partition count of the run.
+ */
+public class FilePostingCheckpoints implements PostingCheckpoints {
+
+    private static final String SUFFIX = ".ckp";
+
+    private static final String COMPLETE_SUFFIX = ".done";
+
+    private static final String INTENT_SUFFIX = ".intent";
+
+    private static final String PARTITIONS_SUFFIX = ".partitions";
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private final Path directory;
+
+    public FilePostingCheckpoints(Path directory) {
+        this.directory = directory;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Integer partitions(String runId) {
+        final byte[] partitions = read(directory.resolve(runId + PARTITIONS_SUFFIX));
+
+        return partitions == null ? null : Integer.valueOf(new String(partitions, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void savePartitions(String runId, int partitions) {
+        write(directory.resolve(runId + PARTITIONS_SUFFIX),
+                Integer.toString(partitions).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String lastAccountId(String runId, int partition) {
+        final byte[] lastAccountId = read(file(runId, partition, SUFFIX));
+
+        return lastAccountId == null ? null : new String(lastAccountId, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public PostingIntent pendingIntent(String runId, int partition) {
+        final byte[] intent = read(file(runId, partition, INTENT_SUFFIX));
+
+        if (intent == null) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(intent))) {
+            final String lastAccountId = input.readUTF();
+            final int size = input.readInt();
+            final List<OperationRequest> requests = new ArrayList<>(size);
+            final Map<String, Integer> lastOperationIds = new HashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                final String accountId = input.readUTF();
+                requests.add(PostingRule.request(accountId, OPERATION_TYPES[input.readByte()], input.readLong()));
+                if (input.readBoolean()) {
+                    lastOperationIds.put(accountId, input.readInt());
+                }
+            }
+
+            return PostingIntent.builder().lastAccountId(lastAccountId).requests(requests)
+                    .lastOperationIds(lastOperationIds).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void saveIntent(String runId, int partition, PostingIntent intent) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(intent.getLastAccountId());
+            output.writeInt(intent.getRequests().size());
+            for (OperationRequest request : intent.getRequests()) {
+                final Integer lastOperationId = intent.getLastOperationIds().get(request.getAccountId());
+                output.writeUTF(request.getAccountId());
+                output.writeByte(request.getOperationType().ordinal());
+                output.writeLong(request.getAmountMinorUnits());
+                output.writeBoolean(lastOperationId != null);
+                if (lastOperationId != null) {
+                    output.writeInt(lastOperationId);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        write(file(runId, partition, INTENT_SUFFIX), bytes.toByteArray());
+    }
+
+    @Override
+    public boolean isComplete(String runId, int partition) {
+        return Files.exists(file(runId, partition, COMPLETE_SUFFIX));
+    }
+
+    @Override
+    public void save(String runId, int partition, String lastAccountId) {
+        write(file(runId, partition, SUFFIX), lastAccountId.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            Files.deleteIfExists(file(runId, partition, INTENT_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void complete(String runId, int partition) {
+        try {
+            Files.write(file(runId, partition, COMPLETE_SUFFIX), new byte[0]);
+            Files.deleteIfExists(file(runId, partition, SUFFIX));
+            Files.deleteIfExists(file(runId, partition, INTENT_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] read(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(Path target, byte[] content) {
+        try {
+            final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            Files.write(temporary, content);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String runId, int partition, String suffix) {
+        return directory.resolve(runId + '-' + partition + suffix);
+    }
+}
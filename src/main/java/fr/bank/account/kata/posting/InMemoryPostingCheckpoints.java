@@ -0,0 +1,62 @@
+package fr.bank.account.kata.posting;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryPostingCheckpoints implements PostingCheckpoints {
+
+    private final Map<String, Integer> partitions = new ConcurrentHashMap<>();
+
+    private final Map<String, String> lastAccountIds = new ConcurrentHashMap<>();
+
+    private final Map<String, PostingIntent> intents = new ConcurrentHashMap<>();
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Integer partitions(String runId) {
+        return partitions.get(runId);
+    }
+
+    @Override
+    public void savePartitions(String runId, int partitions) {
+        this.partitions.put(runId, partitions);
+    }
+
+    @Override
+    public String lastAccountId(String runId, int partition) {
+        return lastAccountIds.get(key(runId, partition));
+    }
+
+    @Override
+    public PostingIntent pendingIntent(String runId, int partition) {
+        return intents.get(key(runId, partition));
+    }
+
+    @Override
+    public void saveIntent(String runId, int partition, PostingIntent intent) {
+        intents.put(key(runId, partition), intent);
+    }
+
+    @Override
+    public boolean isComplete(String runId, int partition) {
+        return completed.contains(key(runId, partition));
+    }
+
+    @Override
+    public void save(String runId, int partition, String lastAccountId) {
+        lastAccountIds.put(key(runId, partition), lastAccountId);
+        intents.remove(key(runId, partition));
+    }
+
+    @Override
+    public void complete(String runId, int partition) {
+        completed.add(key(runId, partition));
+        intents.remove(key(runId, partition));
+    }
+
+    private static String key(String runId, int partition) {
+        return runId + '/' + partition;
+    }
+}
@@ -0,0 +1,19 @@
+package fr.bank.account.kata.posting;
+
+/**
+ * What a fee does to an account whose balance does not cover it.
+ */
+public enum InsufficientFundsPolicy {
+    /**
+     * Leaves the account untouched.
+     */
+    SKIP,
+    /**
+     * Debits whatever the balance still holds.
+     */
+    PARTIAL,
+    /**
+     * Posts the full fee anyway, which the account service rejects and the report counts.
+     */
+    REJECT
+}
@@ -0,0 +1,37 @@
+package fr.bank.account.kata.posting;
+
+/**
+ * Progress of each partition of a {@link PostingEngine} run, so an interrupted run restarts where it stopped.
+ * Partitions are processed in account id order, so the last posted account id is enough to resume; the chunk
+ * being posted is saved as a {@link PostingIntent} until its checkpoint replaces it.
+ */
+public interface PostingCheckpoints {
+
+    /**
+     * Number of partitions the run was started with, or null when it has not started.
+     */
+    Integer partitions(String runId);
+
+    void savePartitions(String runId, int partitions);
+
+    /**
+     * Last account id posted in the partition, or null when the partition has not started.
+     */
+    String lastAccountId(String runId, int partition);
+
+    /**
+     * Chunk being posted after the last checkpoint of the partition, or null.
+     */
+    PostingIntent pendingIntent(String runId, int partition);
+
+    void saveIntent(String runId, int partition, PostingIntent intent);
+
+    boolean isComplete(String runId, int partition);
+
+    /**
+     * Checkpoints the partition and drops its pending intent.
+     */
+    void save(String runId, int partition, String lastAccountId);
+
+    void complete(String runId, int partition);
+}
@@ -0,0 +1,333 @@
+package fr.bank.account.kata.posting;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.BalanceSnapshot;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.service.AccountService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Posts a {@link PostingRule} on every account, typically interest and fees at end of day.
+ * <p>
+ * Accounts are hashed into a fixed number of partitions, each processed in account id order by one task of a
+ * fork-join pool. A partition is posted in chunks: one {@link AccountService#getBalances} snapshot gives the
+ * balances the rule is applied to, the resulting movements are saved as a {@link PostingIntent} along with the
+ * newest operation id of each account, one {@link AccountService#executeBatch} posts them, then the last
+ * account id of the chunk is checkpointed. Running again with the same run id skips what was checkpointed
+ * and, for the chunk in flight when a run stopped, only posts the movements not found among the operations
+ * written on each account since its intent was saved. An operation of the same type and amount written by
+ * someone else in that window is taken for the posting.
+ * <p>
+ * The partition count is saved with the checkpoints of a run, which cannot be resumed with another count.
+ */
+public class PostingEngine {
+
+    public static final int DEFAULT_PARTITIONS = 64;
+
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final AccountService accountService;
+
+    private final AccountRepository accountRepository;
+
+    private final PostingCheckpoints checkpoints;
+
+    private final int partitions;
+
+    private final int chunkSize;
+
+    private final int parallelism;
+
+    private volatile Progress progress;
+
+    public PostingEngine(AccountService accountService, AccountRepository accountRepository,
+                         PostingCheckpoints checkpoints) {
+        this(accountService, accountRepository, checkpoints, DEFAULT_PARTITIONS, DEFAULT_CHUNK_SIZE,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public PostingEngine(AccountService accountService, AccountRepository accountRepository,
+                         PostingCheckpoints checkpoints, int partitions, int chunkSize, int parallelism) {
+        if (partitions <= 0 || chunkSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Partitions, chunk size and parallelism must be positive.");
+        }
+
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.checkpoints = checkpoints;
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Posts the rule on every account not yet checkpointed for {@code runId} and returns the final report. A
+     * failing partition does not stop the others; the first failure is rethrown once they are all done.
+     */
+    public PostingReport run(String runId, PostingRule rule) {
+        final Integer checkpointed = checkpoints.partitions(runId);
+        if (checkpointed == null) {
+            checkpoints.savePartitions(runId, partitions);
+        } else if (checkpointed != partitions) {
+            throw new IllegalStateException("Run " + runId + " was started with " + checkpointed
+                    + " partitions, not " + partitions + ".");
+        }
+
+        final List<List<String>> accountIds = partition();
+        final Progress run = new Progress(accountIds.stream().mapToLong(List::size).sum());
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        progress = run;
+        try {
+            final List<ForkJoinTask<?>> tasks = new ArrayList<>(partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                final int index = partition;
+                tasks.add(pool.submit(() -> post(runId, index, accountIds.get(index), rule, run)));
+            }
+
+            RuntimeException failure = null;
+            for (ForkJoinTask<?> task : tasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return run.report();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Report of the current run, or of the last one when none is running, or null before the first run.
+     */
+    public PostingReport getProgress() {
+        final Progress current = progress;
+
+        return current == null ? null : current.report();
+    }
+
+    private List<List<String>> partition() {
+        final List<List<String>> accountIds = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            accountIds.add(new ArrayList<>());
+        }
+
+        accountRepository.findAll().map(Account::getId)
+                .forEach(accountId -> accountIds.get(partitionOf(accountId)).add(accountId));
+
+        for (List<String> partitionAccountIds : accountIds) {
+            Collections.sort(partitionAccountIds);
+        }
+
+        return accountIds;
+    }
+
+    private int partitionOf(String accountId) {
+        return (accountId.hashCode() & Integer.MAX_VALUE) % partitions;
+    }
+
+    private void post(String runId, int partition, List<String> accountIds, PostingRule rule, Progress run) {
+        if (checkpoints.isComplete(runId, partition)) {
+            run.resumed(accountIds.size());
+            run.completedPartitions.incrementAndGet();
+            return;
+        }
+
+        final String lastAccountId = checkpoints.lastAccountId(runId, partition);
+        int from = 0;
+        if (lastAccountId != null) {
+            from = after(accountIds, lastAccountId);
+            run.resumed(from);
+        }
+
+        final PostingIntent pending = checkpoints.pendingIntent(runId, partition);
+        if (pending != null) {
+            final int next = after(accountIds, pending.getLastAccountId());
+
+            if (next > from || lastAccountId == null) {
+                execute(unposted(pending), run);
+                checkpoints.save(runId, partition, pending.getLastAccountId());
+                run.skipped.add(Math.max(0, next - from - pending.getRequests().size()));
+                run.processed.add(next - from);
+                from = next;
+            } else {
+                checkpoints.save(runId, partition, lastAccountId);
+            }
+        }
+
+        final List<OperationRequest> requests = new ArrayList<>(chunkSize);
+        for (; from < accountIds.size(); from += chunkSize) {
+            final List<String> chunk = accountIds.subList(from, Math.min(from + chunkSize, accountIds.size()));
+            final BalanceSnapshot balances = accountService.getBalances(chunk);
+
+            for (String accountId : chunk) {
+                if (balances.contains(accountId)) {
+                    final OperationRequest request = rule.apply(accountId,
+                            balances.getBalancesMinorUnits().get(accountId));
+                    if (request != null) {
+                        requests.add(request);
+                    }
+                }
+            }
+
+            if (!requests.isEmpty()) {
+                checkpoints.saveIntent(runId, partition, intent(chunk.get(chunk.size() - 1), requests));
+                execute(requests, run);
+            }
+
+            checkpoints.save(runId, partition, chunk.get(chunk.size() - 1));
+            run.skipped.add(chunk.size() - requests.size());
+            run.processed.add(chunk.size());
+            requests.clear();
+        }
+
+        checkpoints.complete(runId, partition);
+        run.completedPartitions.incrementAndGet();
+    }
+
+    private static int after(List<String> accountIds, String accountId) {
+        final int found = Collections.binarySearch(accountIds, accountId);
+
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    private void execute(List<OperationRequest> requests, Progress run) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        for (OperationResult result : accountService.executeBatch(requests)) {
+            (result.isSuccess() ? run.posted : run.rejected).increment();
+        }
+    }
+
+    private PostingIntent intent(String lastAccountId, List<OperationRequest> requests) {
+        final Map<String, Integer> lastOperationIds = new HashMap<>(requests.size() * 2);
+
+        for (OperationRequest request : requests) {
+            try {
+                final List<Operation> newest = accountService.listOperations(request.getAccountId(), null, 1)
+                        .getOperations();
+                if (!newest.isEmpty()) {
+                    lastOperationIds.put(request.getAccountId(), newest.get(0).getId());
+                }
+            } catch (AccountNotFoundException e) {
+                // Rejected by the batch anyway.
+            }
+        }
+
+        return PostingIntent.builder().lastAccountId(lastAccountId).requests(new ArrayList<>(requests))
+                .lastOperationIds(lastOperationIds).build();
+    }
+
+    /**
+     * Movements of the intent with no operation of the same type and amount written since the intent was saved.
+     */
+    private List<OperationRequest> unposted(PostingIntent intent) {
+        final List<OperationRequest> unposted = new ArrayList<>();
+
+        for (OperationRequest request : intent.getRequests()) {
+            try {
+                if (!isPosted(request, intent.getLastOperationIds().get(request.getAccountId()))) {
+                    unposted.add(request);
+                }
+            } catch (AccountNotFoundException e) {
+                unposted.add(request);
+            }
+        }
+
+        return unposted;
+    }
+
+    private boolean isPosted(OperationRequest request, Integer lastOperationId) {
+        Integer cursor = null;
+
+        do {
+            final OperationPage page = accountService.listOperations(request.getAccountId(), cursor, chunkSize);
+            for (Operation operation : page.getOperations()) {
+                if (operation.getId().equals(lastOperationId)) {
+                    return false;
+                }
+                if (operation.getOperationType() == request.getOperationType()
+                        && operation.getAmountMinorUnits() == request.getAmountMinorUnits()) {
+                    return true;
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        return false;
+    }
+
+    private final class Progress {
+
+        private final long totalAccounts;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicInteger completedPartitions = new AtomicInteger();
+
+        private final LongAdder processed = new LongAdder();
+
+        private final LongAdder resumed = new LongAdder();
+
+        private final LongAdder posted = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder skipped = new LongAdder();
+
+        private volatile long end;
+
+        private Progress(long totalAccounts) {
+            this.totalAccounts = totalAccounts;
+        }
+
+        private void resumed(long accounts) {
+            resumed.add(accounts);
+            processed.add(accounts);
+        }
+
+        private PostingReport report() {
+            final int completed = completedPartitions.get();
+            if (completed == partitions && end == 0L) {
+                end = System.nanoTime();
+            }
+
+            return PostingReport.builder()
+                    .totalPartitions(partitions)
+                    .completedPartitions(completed)
+                    .totalAccounts(totalAccounts)
+                    .processedAccounts(processed.sum())
+                    .resumedAccounts(resumed.sum())
+                    .postedOperations(posted.sum())
+                    .rejectedOperations(rejected.sum())
+                    .skippedAccounts(skipped.sum())
+                    .elapsedNanos((end == 0L ? System.nanoTime() : end) - start)
+                    .build();
+        }
+    }
+}
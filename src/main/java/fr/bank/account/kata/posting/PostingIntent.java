@@ -0,0 +1,22 @@
+package fr.bank.account.kata.posting;
+
+import fr.bank.account.kata.model.OperationRequest;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Movements of a chunk saved before they are posted, with the newest operation id of each account at that
+ * time, so a restarted run can tell which of them reached the ledger.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class PostingIntent {
+    private final String lastAccountId;
+    private final List<OperationRequest> requests;
+    private final Map<String, Integer> lastOperationIds;
+}
@@ -0,0 +1,37 @@
+package fr.bank.account.kata.posting;
+
+import lombok.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of a {@link PostingEngine} run. Accounts of partitions completed by an earlier run are counted as
+ * processed but not in the throughput.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class PostingReport {
+    private final int totalPartitions;
+    private final int completedPartitions;
+    private final long totalAccounts;
+    private final long processedAccounts;
+    private final long resumedAccounts;
+    private final long postedOperations;
+    private final long rejectedOperations;
+    private final long skippedAccounts;
+    private final long elapsedNanos;
+
+    public boolean isComplete() {
+        return completedPartitions == totalPartitions;
+    }
+
+    /**
+     * Accounts processed per second by this run.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0L ? 0d
+                : (processedAccounts - resumedAccounts) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
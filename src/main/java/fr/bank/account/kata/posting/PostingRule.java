@@ -0,0 +1,61 @@
+package fr.bank.account.kata.posting;
+
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Movement posted on each account by a {@link PostingEngine} run, computed from the account balance.
+ */
+@FunctionalInterface
+public interface PostingRule {
+
+    /**
+     * Movement to post on the account, or null to leave it untouched.
+     */
+    OperationRequest apply(String accountId, long balanceMinorUnits);
+
+    /**
+     * Credits {@code rate} times the balance, rounded half even to the minor unit, on positive balances.
+     */
+    static PostingRule interest(BigDecimal rate) {
+        if (rate.signum() < 0) {
+            throw new IllegalArgumentException("Interest rate must not be negative.");
+        }
+
+        return (accountId, balanceMinorUnits) -> {
+            final long interest = BigDecimal.valueOf(balanceMinorUnits).multiply(rate)
+                    .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+
+            return interest > 0L ? request(accountId, OperationType.CREDIT, interest) : null;
+        };
+    }
+
+    static PostingRule flatFee(long feeMinorUnits, InsufficientFundsPolicy policy) {
+        if (feeMinorUnits <= 0L) {
+            throw new IllegalArgumentException("Fee must be positive.");
+        }
+
+        return (accountId, balanceMinorUnits) -> {
+            if (balanceMinorUnits >= feeMinorUnits || policy == InsufficientFundsPolicy.REJECT) {
+                return request(accountId, OperationType.DEBIT, feeMinorUnits);
+            }
+
+            if (policy == InsufficientFundsPolicy.PARTIAL && balanceMinorUnits > 0L) {
+                return request(accountId, OperationType.DEBIT, balanceMinorUnits);
+            }
+
+            return null;
+        };
+    }
+
+    static OperationRequest request(String accountId, OperationType operationType, long amountMinorUnits) {
+        return OperationRequest.builder()
+                .accountId(accountId)
+                .operationType(operationType)
+                .amountMinorUnits(amountMinorUnits)
+                .build();
+    }
+}
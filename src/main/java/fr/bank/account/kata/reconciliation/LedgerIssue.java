@@ -0,0 +1,16 @@
+package fr.bank.account.kata.reconciliation;
+
+import lombok.*;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class LedgerIssue {
+    private final LedgerIssueType type;
+    private final String accountId;
+    private final Integer operationId;
+    private final long expectedBalanceMinorUnits;
+    private final long actualBalanceMinorUnits;
+}
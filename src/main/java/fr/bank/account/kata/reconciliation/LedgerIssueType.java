@@ -0,0 +1,13 @@
+package fr.bank.account.kata.reconciliation;
+
+public enum LedgerIssueType {
+    /**
+     * Stored balance differs from the previous balance plus or minus the amount.
+     */
+    BROKEN_CHAIN,
+    NEGATIVE_BALANCE,
+    /**
+     * Operation of an account that does not exist, or whose counterparty does not exist.
+     */
+    ORPHAN_OPERATION
+}
@@ -0,0 +1,195 @@
+package fr.bank.account.kata.reconciliation;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Verifies every account history: each balance must be the previous one plus the amount of a credit or minus
+ * the amount of a debit, starting from zero, must not be negative, and must belong to existing accounts.
+ * <p>
+ * The account ids, plus the ids of histories whose account does not exist, are split in halves by fork-join
+ * tasks until {@code leafSize} accounts remain, so idle workers steal the remaining halves of busy ones. A leaf
+ * streams each history oldest first and only keeps the previous balance, so memory grows with the number of
+ * accounts, not of operations.
+ */
+public class LedgerReconciler {
+
+    public static final int DEFAULT_MAX_ISSUES = 1_000;
+
+    public static final int DEFAULT_LEAF_SIZE = 64;
+
+    private final AccountRepository accountRepository;
+
+    private final OperationRepository operationRepository;
+
+    private final int parallelism;
+
+    private final int maxIssues;
+
+    private final int leafSize;
+
+    public LedgerReconciler(AccountRepository accountRepository, OperationRepository operationRepository) {
+        this(accountRepository, operationRepository, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_ISSUES,
+                DEFAULT_LEAF_SIZE);
+    }
+
+    public LedgerReconciler(AccountRepository accountRepository, OperationRepository operationRepository,
+                            int parallelism, int maxIssues, int leafSize) {
+        if (parallelism <= 0 || maxIssues < 0 || leafSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and leaf size must be positive, max issues not negative.");
+        }
+
+        this.accountRepository = accountRepository;
+        this.operationRepository = operationRepository;
+        this.parallelism = parallelism;
+        this.maxIssues = maxIssues;
+        this.leafSize = leafSize;
+    }
+
+    public ReconciliationReport reconcile() {
+        final long start = System.nanoTime();
+        final String[] accountIds = Stream.concat(
+                accountRepository.findAll().map(Account::getId),
+                historyAccountIds().filter(accountId -> !accountRepository.existsAccountById(accountId)))
+                .toArray(String[]::new);
+        final Findings findings = new Findings();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            pool.invoke(new VerifyTask(accountIds, 0, accountIds.length, findings));
+        } finally {
+            pool.shutdown();
+        }
+
+        return ReconciliationReport.builder()
+                .accounts(accountIds.length)
+                .operations(findings.operations.sum())
+                .brokenChains(findings.brokenChains.sum())
+                .negativeBalances(findings.negativeBalances.sum())
+                .orphanOperations(findings.orphanOperations.sum())
+                .issues(new ArrayList<>(findings.issues))
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    private Stream<String> historyAccountIds() {
+        try {
+            return operationRepository.findAccountIds();
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("Cannot reconcile: the operation repository must list the accounts of its "
+                    + "operations to find orphan histories. " + e.getMessage(), e);
+        }
+    }
+
+    private void verify(String accountId, Findings findings) {
+        final boolean accountExists = accountRepository.existsAccountById(accountId);
+        long balance = 0L;
+        long operations = 0L;
+
+        try (Stream<Operation> history = operationRepository.streamOperationsByAccountId(accountId, null, null)) {
+            final Iterator<Operation> iterator = history.iterator();
+
+            while (iterator.hasNext()) {
+                final Operation operation = iterator.next();
+                final long expected = OperationType.CREDIT.equals(operation.getOperationType())
+                        ? balance + operation.getAmountMinorUnits()
+                        : balance - operation.getAmountMinorUnits();
+                final long actual = operation.getBalanceMinorUnits();
+
+                if (actual != expected) {
+                    findings.brokenChains.increment();
+                    findings.report(LedgerIssueType.BROKEN_CHAIN, accountId, operation, expected);
+                }
+
+                if (actual < 0L) {
+                    findings.negativeBalances.increment();
+                    findings.report(LedgerIssueType.NEGATIVE_BALANCE, accountId, operation, expected);
+                }
+
+                if (!accountExists || !accountId.equals(operation.getAccount().getId())
+                        || operation.getCounterparty() != null
+                        && !accountRepository.existsAccountById(operation.getCounterparty().getId())) {
+                    findings.orphanOperations.increment();
+                    findings.report(LedgerIssueType.ORPHAN_OPERATION, accountId, operation, expected);
+                }
+
+                balance = actual;
+                operations++;
+            }
+        }
+
+        findings.operations.add(operations);
+    }
+
+    private final class Findings {
+
+        private final LongAdder operations = new LongAdder();
+
+        private final LongAdder brokenChains = new LongAdder();
+
+        private final LongAdder negativeBalances = new LongAdder();
+
+        private final LongAdder orphanOperations = new LongAdder();
+
+        private final Queue<LedgerIssue> issues = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger kept = new AtomicInteger();
+
+        private void report(LedgerIssueType type, String accountId, Operation operation, long expected) {
+            if (kept.get() < maxIssues && kept.getAndIncrement() < maxIssues) {
+                issues.add(LedgerIssue.builder()
+                        .type(type)
+                        .accountId(accountId)
+                        .operationId(operation.getId())
+                        .expectedBalanceMinorUnits(expected)
+                        .actualBalanceMinorUnits(operation.getBalanceMinorUnits())
+                        .build());
+            }
+        }
+    }
+
+    private final class VerifyTask extends RecursiveAction {
+
+        private final String[] accountIds;
+
+        private final int from;
+
+        private final int to;
+
+        private final Findings findings;
+
+        private VerifyTask(String[] accountIds, int from, int to, Findings findings) {
+            this.accountIds = accountIds;
+            this.from = from;
+            this.to = to;
+            this.findings = findings;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    verify(accountIds[i], findings);
+                }
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(accountIds, from, middle, findings),
+                    new VerifyTask(accountIds, middle, to, findings));
+        }
+    }
+}
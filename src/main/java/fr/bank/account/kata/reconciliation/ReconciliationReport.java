@@ -0,0 +1,27 @@
+package fr.bank.account.kata.reconciliation;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link LedgerReconciler} run. Issues are counted exhaustively but only the first ones found are
+ * kept in {@link #issues}, so a badly damaged ledger does not exhaust the heap.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class ReconciliationReport {
+    private final long accounts;
+    private final long operations;
+    private final long brokenChains;
+    private final long negativeBalances;
+    private final long orphanOperations;
+    private final List<LedgerIssue> issues;
+    private final long elapsedNanos;
+
+    public boolean isConsistent() {
+        return brokenChains == 0L && negativeBalances == 0L && orphanOperations == 0L;
+    }
+}
@@ -3,12 +3,46 @@ package fr.bank.account.kata.repository;
 
 import fr.bank.account.kata.model.Account;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountRepository {
     Account save(Account account);
 
+    /**
+     * Saves the accounts whose id is not taken yet and returns the ids that were taken, including ids repeated
+     * within {@code accounts}, in the order they come. The default checks then saves each account, which is only
+     * atomic when writers of the same id are serialized, as {@code AccountServiceImpl} does with its account
+     * locks; stores override it to save each account atomically, and in bulk.
+     */
+    default List<String> saveAllIfAbsent(List<Account> accounts) {
+        final List<String> existing = new ArrayList<>();
+
+        for (Account account : accounts) {
+            if (existsAccountById(account.getId())) {
+                existing.add(account.getId());
+            } else {
+                save(account);
+            }
+        }
+
+        return existing;
+    }
+
     boolean existsAccountById(String accountId);
 
     Optional<Account> getAccountById(String accountId);
+
+    /**
+     * Every stored account, used to warm caches, export and reconcile a whole store.
+     */
+    Stream<Account> findAll();
+
+    /**
+     * Deletes the accounts, e.g. once they moved to another node. Unknown ids are ignored.
+     */
+    void deleteAllById(Collection<String> accountIds);
 }
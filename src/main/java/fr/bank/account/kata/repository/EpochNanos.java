@@ -0,0 +1,49 @@
+package fr.bank.account.kata.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Dates packed as nanoseconds since the epoch in a single long, which spans 1677-09-21 to 2262-04-11.
+ * Stored dates outside that span are rejected; range bounds outside it are clamped since nothing stored lies there.
+ */
+public final class EpochNanos {
+
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private EpochNanos() {
+    }
+
+    public static long of(OffsetDateTime date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+
+        try {
+            final long epochNanos = Math.addExact(Math.multiplyExact(date.toEpochSecond(), NANOS_PER_SECOND),
+                    date.getNano());
+            if (epochNanos != NO_DATE) {
+                return epochNanos;
+            }
+        } catch (ArithmeticException e) {
+            // Reported below.
+        }
+
+        throw new IllegalArgumentException("Date out of the storable range: " + date + ".");
+    }
+
+    public static long bound(OffsetDateTime date) {
+        try {
+            return of(date);
+        } catch (IllegalArgumentException e) {
+            return date.toEpochSecond() < 0 ? NO_DATE : Long.MAX_VALUE;
+        }
+    }
+
+    public static OffsetDateTime toDate(long epochNanos, ZoneOffset offset) {
+        return epochNanos == NO_DATE ? null : OffsetDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), offset);
+    }
+}
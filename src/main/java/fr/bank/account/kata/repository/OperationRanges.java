@@ -0,0 +1,23 @@
+package fr.bank.account.kata.repository;
+
+import fr.bank.account.kata.model.Operation;
+
+import java.time.OffsetDateTime;
+
+public final class OperationRanges {
+
+    private OperationRanges() {
+    }
+
+    public static boolean isWithin(OffsetDateTime date, OffsetDateTime from, OffsetDateTime to) {
+        return (from == null || !date.isBefore(from)) && (to == null || date.isBefore(to));
+    }
+
+    public static boolean isBefore(Operation operation, Integer beforeId) {
+        return beforeId == null || (operation.getId() != null && operation.getId() < beforeId);
+    }
+
+    public static boolean matches(Operation operation, OffsetDateTime from, OffsetDateTime to, Integer beforeId) {
+        return isBefore(operation, beforeId) && isWithin(operation.getDate(), from, to);
+    }
+}
@@ -3,13 +3,74 @@ package fr.bank.account.kata.repository;
 
 import fr.bank.account.kata.model.Operation;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OperationRepository {
     Operation save(Operation operation);
 
+    default List<Operation> saveAll(List<Operation> operations) {
+        for (Operation operation : operations) {
+            save(operation);
+        }
+
+        return operations;
+    }
+
     List<Operation> finOperationsdByAccountId(String accountId);
 
     Optional<Operation> findLastOperationByAccountId(String accountId);
+
+    /**
+     * Ids of the accounts with at least one stored operation, whether or not the account itself exists. Only
+     * needed to look for histories without account; stores that cannot list them keep this default.
+     */
+    default Stream<String> findAccountIds() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not list the accounts of its operations.");
+    }
+
+    /**
+     * Deletes the whole history of the accounts, e.g. once they moved to another node. Accounts without
+     * history are ignored.
+     */
+    void deleteOperationsByAccountIds(Collection<String> accountIds);
+
+    /**
+     * Last operation dated at or before {@code at}, whose balance is the account balance as of that date.
+     */
+    default Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        final List<Operation> page = findOperationsByAccountId(accountId, null, at.plusNanos(1), null, 1);
+
+        return page.isEmpty() ? Optional.empty() : Optional.of(page.get(0));
+    }
+
+    /**
+     * Newest first page of at most {@code limit} operations dated in {@code [from, to)} whose id is lower
+     * than {@code beforeId}. Any bound may be null.
+     */
+    default List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                      Integer beforeId, int limit) {
+        final List<Operation> operations = finOperationsdByAccountId(accountId);
+        final List<Operation> page = new ArrayList<>(Math.min(limit, operations.size()));
+
+        for (int i = operations.size() - 1; i >= 0 && page.size() < limit; i--) {
+            if (OperationRanges.matches(operations.get(i), from, to, beforeId)) {
+                page.add(operations.get(i));
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Oldest first, lazily evaluated stream of the operations dated in {@code [from, to)}. Any bound may be null.
+     */
+    default Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        return finOperationsdByAccountId(accountId).stream()
+                .filter(operation -> OperationRanges.isWithin(operation.getDate(), from, to));
+    }
 }
@@ -0,0 +1,46 @@
+package fr.bank.account.kata.repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of longs, 7 bits per byte, and its zigzag variant for small negative values.
+ */
+public final class VarLongs {
+
+    public static final int MAX_SIZE = 10;
+
+    private VarLongs() {
+    }
+
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalStateException("Malformed varint.");
+    }
+
+    public static void putSignedVarLong(ByteBuffer buffer, long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    public static long getSignedVarLong(ByteBuffer buffer) {
+        final long value = getVarLong(buffer);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,82 @@
+package fr.bank.account.kata.repository.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings: {@link #mightContain(String)} never returns false for a key that was
+ * {@link #put(String) put}, and returns true for an absent key with roughly the configured probability.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashFunctions;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing.");
+        }
+
+        final long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability)
+                / (Math.log(2) * Math.log(2)));
+        final int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String key) {
+        final long hash = hash(key);
+        final int first = (int) hash;
+        final int second = (int) (hash >>> 32);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = index(first + i * second);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String key) {
+        final long hash = hash(key);
+        final int first = (int) hash;
+        final int second = (int) (hash >>> 32);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = index(first + i * second);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private long index(int combined) {
+        return (combined & 0x7FFFFFFFL) % bitCount;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
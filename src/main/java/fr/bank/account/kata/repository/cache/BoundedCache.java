@@ -0,0 +1,120 @@
+package fr.bank.account.kata.repository.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache split into independently locked segments.
+ * Loads run under the segment lock, so a concurrent {@link #put(Object, Object)} issued after a write to
+ * the backing store can never be overwritten by an older loaded value.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 64;
+
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, DEFAULT_SEGMENTS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maximumSize, int segmentCount) {
+        if (maximumSize <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("Cache size and segments must be positive.");
+        }
+
+        final int count = Math.min(segmentCount, maximumSize);
+        final int segmentSize = (maximumSize + count - 1) / count;
+
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentSize, evictions);
+        }
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            final V cached = segment.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+
+            misses.increment();
+            final V loaded = loader.apply(key);
+            if (loaded != null) {
+                segment.put(key, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    public void put(K key, V value) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void invalidate(K key) {
+        final Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public CacheStatistics statistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), 0L, size());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        final int hash = key.hashCode();
+
+        return segments[((hash ^ (hash >>> 16)) & 0x7FFFFFFF) % segments.length];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maximumSize;
+
+        private final LongAdder evictions;
+
+        Segment(int maximumSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package fr.bank.account.kata.repository.cache;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long filteredLookups;
+    private final long size;
+
+    public double hitRate() {
+        final long requests = hits + misses;
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+}
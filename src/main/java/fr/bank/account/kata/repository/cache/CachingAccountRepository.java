@@ -0,0 +1,112 @@
+package fr.bank.account.kata.repository.cache;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Read-through {@link AccountRepository} decorator keeping a bounded cache of account handles. Ids never
+ * saved are rejected by a Bloom filter warmed from the backing store, without touching it.
+ */
+public class CachingAccountRepository implements AccountRepository {
+
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01d;
+
+    private final AccountRepository delegate;
+
+    private final BoundedCache<String, Optional<Account>> accounts;
+
+    private final BloomFilter knownIds;
+
+    private final LongAdder filteredLookups = new LongAdder();
+
+    public CachingAccountRepository(AccountRepository delegate, int maximumSize, long expectedAccounts) {
+        this(delegate, maximumSize, expectedAccounts, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    public CachingAccountRepository(AccountRepository delegate, int maximumSize, long expectedAccounts,
+                                    double falsePositiveProbability) {
+        this.delegate = delegate;
+        this.accounts = new BoundedCache<>(maximumSize);
+        this.knownIds = new BloomFilter(expectedAccounts, falsePositiveProbability);
+
+        try (Stream<Account> existing = delegate.findAll()) {
+            existing.forEach(account -> knownIds.put(account.getId()));
+        }
+    }
+
+    @Override
+    public Account save(Account account) {
+        final Account saved = delegate.save(account);
+
+        knownIds.put(saved.getId());
+        accounts.put(saved.getId(), Optional.of(saved));
+
+        return saved;
+    }
+
+    @Override
+    public List<String> saveAllIfAbsent(List<Account> accounts) {
+        final List<String> existing = delegate.saveAllIfAbsent(accounts);
+
+        for (Account account : accounts) {
+            knownIds.put(account.getId());
+        }
+
+        return existing;
+    }
+
+    @Override
+    public boolean existsAccountById(String accountId) {
+        return getAccountById(accountId).isPresent();
+    }
+
+    @Override
+    public Optional<Account> getAccountById(String accountId) {
+        if (accountId == null) {
+            return Optional.empty();
+        }
+
+        if (!knownIds.mightContain(accountId)) {
+            filteredLookups.increment();
+            return Optional.empty();
+        }
+
+        final Optional<Account> account = accounts.get(accountId, id -> {
+            final Optional<Account> loaded = delegate.getAccountById(id);
+            return loaded.isPresent() ? loaded : null;
+        });
+
+        return account == null ? Optional.empty() : account;
+    }
+
+    @Override
+    public Stream<Account> findAll() {
+        return delegate.findAll();
+    }
+
+    /**
+     * Deleted ids stay in the Bloom filter, which cannot forget them; lookups of these ids reach the backing
+     * store again, like any false positive.
+     */
+    @Override
+    public void deleteAllById(Collection<String> accountIds) {
+        delegate.deleteAllById(accountIds);
+
+        for (String accountId : accountIds) {
+            accounts.invalidate(accountId);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        final CacheStatistics statistics = accounts.statistics();
+
+        return new CacheStatistics(statistics.getHits(), statistics.getMisses(), statistics.getEvictions(),
+                filteredLookups.sum(), statistics.getSize());
+    }
+}
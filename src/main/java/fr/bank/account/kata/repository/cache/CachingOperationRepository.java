@@ -0,0 +1,90 @@
+package fr.bank.account.kata.repository.cache;
+
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read-through {@link OperationRepository} decorator keeping a bounded cache of the last operation, hence the
+ * latest balance, of each account. Saves go to the backing store first and then refresh the cache.
+ */
+public class CachingOperationRepository implements OperationRepository {
+
+    private final OperationRepository delegate;
+
+    private final BoundedCache<String, Optional<Operation>> lastOperations;
+
+    public CachingOperationRepository(OperationRepository delegate, int maximumSize) {
+        this.delegate = delegate;
+        this.lastOperations = new BoundedCache<>(maximumSize);
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        final Operation saved = delegate.save(operation);
+
+        lastOperations.put(saved.getAccount().getId(), Optional.of(saved));
+
+        return saved;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        final List<Operation> saved = delegate.saveAll(operations);
+
+        for (Operation operation : saved) {
+            lastOperations.put(operation.getAccount().getId(), Optional.of(operation));
+        }
+
+        return saved;
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        return delegate.finOperationsdByAccountId(accountId);
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        return lastOperations.get(accountId, delegate::findLastOperationByAccountId);
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return delegate.findAccountIds();
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        delegate.deleteOperationsByAccountIds(accountIds);
+
+        for (String accountId : accountIds) {
+            lastOperations.invalidate(accountId);
+        }
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        return delegate.findLastOperationByAccountIdAt(accountId, at);
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        return delegate.findOperationsByAccountId(accountId, from, to, beforeId, limit);
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        return delegate.streamOperationsByAccountId(accountId, from, to);
+    }
+
+    public CacheStatistics getStatistics() {
+        return lastOperations.statistics();
+    }
+}
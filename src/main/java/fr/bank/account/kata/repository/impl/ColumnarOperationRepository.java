@@ -0,0 +1,282 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.EpochNanos;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Stores each account history as append-only primitive columns instead of {@link Operation} objects.
+ * Operations are rebuilt only when a history is listed; the last operation is kept as is so
+ * {@link #findLastOperationByAccountId(String)} is answered without allocation.
+ */
+public class ColumnarOperationRepository implements OperationRepository {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private final ConcurrentMap<String, Columns> columns = new ConcurrentHashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Operation save(Operation operation) {
+        if (operation.getId() == null) {
+            operation.setId(sequence.incrementAndGet());
+        }
+
+        columns.computeIfAbsent(operation.getAccount().getId(), accountId -> new Columns(operation.getAccount()))
+                .append(operation);
+
+        return operation;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        int from = 0;
+
+        while (from < operations.size()) {
+            final Account account = operations.get(from).getAccount();
+
+            int to = from;
+            while (to < operations.size() && account.getId().equals(operations.get(to).getAccount().getId())) {
+                if (operations.get(to).getId() == null) {
+                    operations.get(to).setId(sequence.incrementAndGet());
+                }
+                to++;
+            }
+
+            columns.computeIfAbsent(account.getId(), accountId -> new Columns(account))
+                    .appendAll(operations.subList(from, to));
+            from = to;
+        }
+
+        return operations;
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        final Columns history = columns.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.toOperations();
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        final Columns history = columns.get(accountId);
+
+        return history == null ? Optional.empty() : history.last;
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return columns.keySet().stream();
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        columns.keySet().removeAll(accountIds);
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        final Columns history = columns.get(accountId);
+
+        return history == null ? Optional.empty() : history.lastAt(EpochNanos.bound(at));
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        final Columns history = columns.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.page(from, to, beforeId, limit);
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final Columns history = columns.get(accountId);
+
+        return history == null ? Stream.empty() : history.stream(from, to);
+    }
+
+    private static final class Columns {
+
+        private final Account account;
+
+        private int[] ids = new int[INITIAL_CAPACITY];
+
+        private long[] amounts = new long[INITIAL_CAPACITY];
+
+        private long[] balances = new long[INITIAL_CAPACITY];
+
+        private long[] dates = new long[INITIAL_CAPACITY];
+
+        private int[] offsets = new int[INITIAL_CAPACITY];
+
+        private byte[] types = new byte[INITIAL_CAPACITY];
+
+        private Account[] counterparties;
+
+        private int size;
+
+        private volatile Optional<Operation> last = Optional.empty();
+
+        Columns(Account account) {
+            this.account = account;
+        }
+
+        synchronized void appendAll(List<Operation> operations) {
+            for (Operation operation : operations) {
+                append(operation);
+            }
+        }
+
+        synchronized void append(Operation operation) {
+            final OffsetDateTime date = operation.getDate();
+            final long epochNanos = EpochNanos.of(date);
+
+            if (size == ids.length) {
+                grow();
+            }
+
+            ids[size] = operation.getId();
+            amounts[size] = operation.getAmountMinorUnits();
+            balances[size] = operation.getBalanceMinorUnits();
+            dates[size] = epochNanos;
+            offsets[size] = date == null ? 0 : date.getOffset().getTotalSeconds();
+            types[size] = (byte) operation.getOperationType().ordinal();
+            if (operation.getCounterparty() != null) {
+                if (counterparties == null) {
+                    counterparties = new Account[ids.length];
+                }
+                counterparties[size] = operation.getCounterparty();
+            }
+            size++;
+
+            last = Optional.of(operation);
+        }
+
+        synchronized List<Operation> toOperations() {
+            return range(0, size);
+        }
+
+        synchronized Optional<Operation> lastAt(long epochNanos) {
+            final int end = epochNanos == Long.MAX_VALUE ? size : firstNotBefore(epochNanos + 1);
+
+            return end == 0 ? Optional.empty() : Optional.of(operationAt(end - 1));
+        }
+
+        synchronized List<Operation> page(OffsetDateTime from, OffsetDateTime to, Integer beforeId, int limit) {
+            final int start = from == null ? 0 : firstNotBefore(EpochNanos.bound(from));
+            int end = to == null ? size : firstNotBefore(EpochNanos.bound(to));
+
+            if (beforeId != null) {
+                end = Math.min(end, firstIdNotBelow(beforeId));
+            }
+
+            final List<Operation> page = new ArrayList<>(Math.max(0, Math.min(limit, end - start)));
+
+            for (int i = end - 1; i >= start && page.size() < limit; i--) {
+                page.add(operationAt(i));
+            }
+
+            return page;
+        }
+
+        Stream<Operation> stream(OffsetDateTime from, OffsetDateTime to) {
+            final int start;
+            final int end;
+
+            synchronized (this) {
+                start = from == null ? 0 : firstNotBefore(EpochNanos.bound(from));
+                end = to == null ? size : firstNotBefore(EpochNanos.bound(to));
+            }
+
+            return OperationChunks.stream(start, end, (chunkStart, chunkEnd) -> range(chunkStart, chunkEnd));
+        }
+
+        private synchronized List<Operation> range(int from, int to) {
+            final List<Operation> operations = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; i++) {
+                operations.add(operationAt(i));
+            }
+
+            return operations;
+        }
+
+        private Operation operationAt(int index) {
+            return Operation.builder()
+                    .id(ids[index])
+                    .account(account)
+                    .counterparty(counterparties == null ? null : counterparties[index])
+                    .operationType(OPERATION_TYPES[types[index]])
+                    .amountMinorUnits(amounts[index])
+                    .balanceMinorUnits(balances[index])
+                    .date(EpochNanos.toDate(dates[index], ZoneOffset.ofTotalSeconds(offsets[index])))
+                    .build();
+        }
+
+        private int firstNotBefore(long epochNanos) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (dates[middle] < epochNanos) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private int firstIdNotBelow(int id) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (ids[middle] < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private void grow() {
+            final int capacity = size + (size >> 1);
+
+            ids = Arrays.copyOf(ids, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            types = Arrays.copyOf(types, capacity);
+            if (counterparties != null) {
+                counterparties = Arrays.copyOf(counterparties, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+public class InMemoryAccountRepository implements AccountRepository {
+
+    private final ConcurrentMap<String, Account> accounts;
+
+    public InMemoryAccountRepository() {
+        this.accounts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sizes the map for {@code expectedAccounts} upfront, so a bulk load does not resize it repeatedly.
+     */
+    public InMemoryAccountRepository(int expectedAccounts) {
+        this.accounts = new ConcurrentHashMap<>(expectedAccounts);
+    }
+
+    @Override
+    public Account save(Account account) {
+        accounts.put(account.getId(), account);
+        return account;
+    }
+
+    @Override
+    public List<String> saveAllIfAbsent(List<Account> accounts) {
+        final List<String> existing = new ArrayList<>();
+
+        for (Account account : accounts) {
+            if (this.accounts.putIfAbsent(account.getId(), account) != null) {
+                existing.add(account.getId());
+            }
+        }
+
+        return existing;
+    }
+
+    @Override
+    public boolean existsAccountById(String accountId) {
+        return accountId != null && accounts.containsKey(accountId);
+    }
+
+    @Override
+    public Optional<Account> getAccountById(String accountId) {
+        return accountId == null ? Optional.empty() : Optional.ofNullable(accounts.get(accountId));
+    }
+
+    @Override
+    public Stream<Account> findAll() {
+        return accounts.values().stream();
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> accountIds) {
+        accounts.keySet().removeAll(accountIds);
+    }
+}
@@ -0,0 +1,214 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.repository.OperationRepository;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class InMemoryOperationRepository implements OperationRepository {
+
+    private final ConcurrentMap<String, History> histories = new ConcurrentHashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Operation save(Operation operation) {
+        if (operation.getId() == null) {
+            operation.setId(sequence.incrementAndGet());
+        }
+
+        histories.computeIfAbsent(operation.getAccount().getId(), accountId -> new History())
+                .append(operation);
+
+        return operation;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        int from = 0;
+
+        while (from < operations.size()) {
+            final String accountId = operations.get(from).getAccount().getId();
+
+            int to = from;
+            while (to < operations.size() && accountId.equals(operations.get(to).getAccount().getId())) {
+                if (operations.get(to).getId() == null) {
+                    operations.get(to).setId(sequence.incrementAndGet());
+                }
+                to++;
+            }
+
+            histories.computeIfAbsent(accountId, id -> new History()).appendAll(operations.subList(from, to));
+            from = to;
+        }
+
+        return operations;
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.copy();
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Optional.empty() : history.last();
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return histories.keySet().stream();
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        histories.keySet().removeAll(accountIds);
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Optional.empty() : history.lastAt(at);
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.page(from, to, beforeId, limit);
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Stream.empty() : history.stream(from, to);
+    }
+
+    private static final class History {
+
+        private final List<Operation> operations = new ArrayList<>();
+
+        private volatile Optional<Operation> last = Optional.empty();
+
+        synchronized void append(Operation operation) {
+            operations.add(operation);
+            last = Optional.of(operation);
+        }
+
+        synchronized void appendAll(List<Operation> batch) {
+            operations.addAll(batch);
+            last = Optional.of(batch.get(batch.size() - 1));
+        }
+
+        synchronized List<Operation> copy() {
+            return new ArrayList<>(operations);
+        }
+
+        Optional<Operation> last() {
+            return last;
+        }
+
+        synchronized Optional<Operation> lastAt(OffsetDateTime at) {
+            final int end = firstAfter(at);
+
+            return end == 0 ? Optional.empty() : Optional.of(operations.get(end - 1));
+        }
+
+        synchronized List<Operation> page(OffsetDateTime from, OffsetDateTime to, Integer beforeId, int limit) {
+            final int start = from == null ? 0 : firstNotBefore(from);
+            int end = to == null ? operations.size() : firstNotBefore(to);
+
+            if (beforeId != null) {
+                end = Math.min(end, firstIdNotBelow(beforeId));
+            }
+
+            final List<Operation> page = new ArrayList<>(Math.max(0, Math.min(limit, end - start)));
+
+            for (int i = end - 1; i >= start && page.size() < limit; i--) {
+                page.add(operations.get(i));
+            }
+
+            return page;
+        }
+
+        Stream<Operation> stream(OffsetDateTime from, OffsetDateTime to) {
+            final int start;
+            final int end;
+
+            synchronized (this) {
+                start = from == null ? 0 : firstNotBefore(from);
+                end = to == null ? operations.size() : firstNotBefore(to);
+            }
+
+            return OperationChunks.stream(start, end, this::range);
+        }
+
+        private synchronized List<Operation> range(int from, int to) {
+            return new ArrayList<>(operations.subList(from, to));
+        }
+
+        private int firstNotBefore(OffsetDateTime date) {
+            int low = 0;
+            int high = operations.size();
+
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (operations.get(middle).getDate().isBefore(date)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private int firstAfter(OffsetDateTime date) {
+            int low = 0;
+            int high = operations.size();
+
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (operations.get(middle).getDate().isAfter(date)) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+
+            return low;
+        }
+
+        private int firstIdNotBelow(int id) {
+            int low = 0;
+            int high = operations.size();
+
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (operations.get(middle).getId() < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+    }
+}
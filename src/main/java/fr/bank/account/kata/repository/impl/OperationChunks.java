@@ -0,0 +1,77 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Operation;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams a range of an append-only history by fetching fixed size chunks, so only one chunk of
+ * {@link Operation} objects is alive at a time whatever the history length.
+ */
+public final class OperationChunks {
+
+    public static final int CHUNK_SIZE = 256;
+
+    private OperationChunks() {
+    }
+
+    public static Stream<Operation> stream(int from, int to, ChunkSource source) {
+        if (from >= to) {
+            return Stream.empty();
+        }
+
+        return StreamSupport.stream(Spliterators.spliterator(new ChunkIterator(from, to, source), to - from,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public interface ChunkSource {
+        List<Operation> fetch(int from, int to);
+    }
+
+    private static final class ChunkIterator implements Iterator<Operation> {
+
+        private final int to;
+
+        private final ChunkSource source;
+
+        private int next;
+
+        private List<Operation> chunk = Collections.emptyList();
+
+        private int position;
+
+        ChunkIterator(int from, int to, ChunkSource source) {
+            this.next = from;
+            this.to = to;
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < chunk.size() || next < to;
+        }
+
+        @Override
+        public Operation next() {
+            if (position == chunk.size()) {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+
+                final int end = Math.min(to, next + CHUNK_SIZE);
+                chunk = source.fetch(next, end);
+                position = 0;
+                next = end;
+            }
+
+            return chunk.get(position++);
+        }
+    }
+}
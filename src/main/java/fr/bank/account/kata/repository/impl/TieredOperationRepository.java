@@ -0,0 +1,580 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.EpochNanos;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.VarLongs;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the recent operations of each account as objects and seals older ones into immutable off-heap blocks.
+ * <p>
+ * Operations leaving the hot tail of an account are delta and varint encoded into an open block, which moves
+ * off-heap once full, so a long history costs a few bytes per operation instead of a few objects. Blocks remember
+ * their first and last ids and dates: queries skip the blocks out of range and decode only the ones they reach.
+ * The last operation is kept as is, so {@link #findLastOperationByAccountId(String)} never decodes anything.
+ */
+public class TieredOperationRepository implements OperationRepository {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128;
+
+    public static final int DEFAULT_HOT_SIZE = 16;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    private static final int INITIAL_BLOCK_BYTES = 64;
+
+    private static final int CREDIT = 1;
+
+    private static final int ZONE_CHANGED = 1 << 1;
+
+    private static final int COUNTERPARTY = 1 << 2;
+
+    private static final int UNDATED = 1 << 3;
+
+    private static final int MAX_OPERATION_SIZE = 1 + 6 * VarLongs.MAX_SIZE;
+
+    private static final int SLAB_SIZE = 1 << 20;
+
+    private final ConcurrentMap<String, History> histories = new ConcurrentHashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final AtomicLong sealedBytes = new AtomicLong();
+
+    private final int blockSize;
+
+    private final int hotSize;
+
+    private ByteBuffer slab = ByteBuffer.allocateDirect(0);
+
+    public TieredOperationRepository() {
+        this(DEFAULT_BLOCK_SIZE, DEFAULT_HOT_SIZE);
+    }
+
+    public TieredOperationRepository(int blockSize, int hotSize) {
+        if (blockSize <= 0 || hotSize <= 0) {
+            throw new IllegalArgumentException("Block and hot tail sizes must be positive.");
+        }
+
+        this.blockSize = blockSize;
+        this.hotSize = hotSize;
+    }
+
+    /**
+     * Off-heap bytes held by the sealed blocks of every account.
+     */
+    public long getSealedBytes() {
+        return sealedBytes.get();
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        if (operation.getId() == null) {
+            operation.setId(sequence.incrementAndGet());
+        }
+
+        historyOf(operation.getAccount()).append(operation);
+
+        return operation;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        int from = 0;
+
+        while (from < operations.size()) {
+            final Account account = operations.get(from).getAccount();
+
+            int to = from;
+            while (to < operations.size() && account.getId().equals(operations.get(to).getAccount().getId())) {
+                if (operations.get(to).getId() == null) {
+                    operations.get(to).setId(sequence.incrementAndGet());
+                }
+                to++;
+            }
+
+            historyOf(account).appendAll(operations.subList(from, to));
+            from = to;
+        }
+
+        return operations;
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.toOperations();
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Optional.empty() : history.last;
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return histories.keySet().stream();
+    }
+
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        for (String accountId : accountIds) {
+            final History history = histories.remove(accountId);
+            if (history != null) {
+                sealedBytes.addAndGet(-history.sealedBytes());
+            }
+        }
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountIdAt(String accountId, OffsetDateTime at) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Optional.empty() : history.lastAt(EpochNanos.bound(at));
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Collections.emptyList() : history.page(EpochNanos.bound(from),
+                to == null ? Long.MAX_VALUE : EpochNanos.bound(to),
+                beforeId == null ? Integer.MAX_VALUE : beforeId, limit);
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final History history = histories.get(accountId);
+
+        return history == null ? Stream.empty() : history.stream(EpochNanos.bound(from),
+                to == null ? Long.MAX_VALUE : EpochNanos.bound(to));
+    }
+
+    private History historyOf(Account account) {
+        return histories.computeIfAbsent(account.getId(), accountId -> new History(account));
+    }
+
+    /**
+     * Copies an encoded block off-heap. Blocks are carved out of shared slabs, allocating a direct buffer per
+     * block would cost far more than the encoding itself.
+     */
+    private synchronized ByteBuffer store(ByteBuffer encoded) {
+        if (encoded.remaining() > slab.remaining()) {
+            slab = ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, encoded.remaining()));
+        }
+
+        final ByteBuffer block = slab.slice();
+        block.limit(encoded.remaining());
+        block.put(encoded).flip();
+        slab.position(slab.position() + block.limit());
+        sealedBytes.addAndGet(block.limit());
+
+        return block.asReadOnlyBuffer();
+    }
+
+    private final class History {
+
+        private final Account account;
+
+        private final List<Block> blocks = new ArrayList<>();
+
+        private final Operation[] hot = new Operation[hotSize];
+
+        private int hotStart;
+
+        private int hotCount;
+
+        private BlockWriter open;
+
+        private volatile Optional<Operation> last = Optional.empty();
+
+        History(Account account) {
+            this.account = account;
+        }
+
+        synchronized void appendAll(List<Operation> operations) {
+            for (Operation operation : operations) {
+                append(operation);
+            }
+        }
+
+        synchronized void append(Operation operation) {
+            // Hot operations are encoded only when they age; a date the blocks cannot hold is refused up front.
+            EpochNanos.of(operation.getDate());
+
+            if (hotCount == hot.length) {
+                final Operation oldest = hot[hotStart];
+                hot[hotStart] = operation;
+                hotStart = (hotStart + 1) % hot.length;
+                age(oldest);
+            } else {
+                hot[(hotStart + hotCount++) % hot.length] = operation;
+            }
+
+            last = Optional.of(operation);
+        }
+
+        synchronized List<Operation> toOperations() {
+            final List<Operation> operations = new ArrayList<>(blocks.size() * blockSize + blockSize + hotCount);
+
+            for (Block block : segments()) {
+                operations.addAll(block.decode(account));
+            }
+            operations.addAll(hotOperations());
+
+            return operations;
+        }
+
+        synchronized long sealedBytes() {
+            long bytes = 0L;
+            for (Block block : blocks) {
+                bytes += block.data.limit();
+            }
+            return bytes;
+        }
+
+        synchronized Optional<Operation> lastAt(long epochNanos) {
+            for (int i = hotCount - 1; i >= 0; i--) {
+                if (EpochNanos.of(hotAt(i).getDate()) <= epochNanos) {
+                    return Optional.of(hotAt(i));
+                }
+            }
+
+            final List<Block> segments = segments();
+            for (int b = segments.size() - 1; b >= 0; b--) {
+                if (segments.get(b).firstDate <= epochNanos) {
+                    final List<Operation> operations = segments.get(b).decode(account);
+                    for (int i = operations.size() - 1; i >= 0; i--) {
+                        if (EpochNanos.of(operations.get(i).getDate()) <= epochNanos) {
+                            return Optional.of(operations.get(i));
+                        }
+                    }
+                }
+            }
+
+            return Optional.empty();
+        }
+
+        synchronized List<Operation> page(long fromNanos, long toNanos, int beforeId, int limit) {
+            final List<Operation> page = new ArrayList<>(Math.min(limit, blockSize));
+
+            if (collectNewestFirst(hotOperations(), fromNanos, toNanos, beforeId, limit, page)) {
+                return page;
+            }
+
+            final List<Block> segments = segments();
+            for (int b = segments.size() - 1; b >= 0; b--) {
+                final Block block = segments.get(b);
+
+                if (block.lastDate < fromNanos) {
+                    break;
+                }
+                if (block.firstDate < toNanos && block.firstId < beforeId
+                        && collectNewestFirst(block.decode(account), fromNanos, toNanos, beforeId, limit, page)) {
+                    break;
+                }
+            }
+
+            return page;
+        }
+
+        Stream<Operation> stream(long fromNanos, long toNanos) {
+            final List<Block> reached = new ArrayList<>();
+            final List<Operation> recent = new ArrayList<>();
+
+            synchronized (this) {
+                for (Block block : segments()) {
+                    if (block.lastDate >= fromNanos && block.firstDate < toNanos) {
+                        reached.add(block);
+                    }
+                }
+                for (Operation operation : hotOperations()) {
+                    final long date = EpochNanos.of(operation.getDate());
+                    if (date >= fromNanos && date < toNanos) {
+                        recent.add(operation);
+                    }
+                }
+            }
+
+            return Stream.concat(reached.stream().flatMap(block -> block.decode(account).stream().filter(operation -> {
+                final long date = EpochNanos.of(operation.getDate());
+                return date >= fromNanos && date < toNanos;
+            })), recent.stream());
+        }
+
+        /**
+         * Adds the operations of an oldest-first run to the page, newest first, and tells whether nothing older
+         * can match anymore.
+         */
+        private boolean collectNewestFirst(List<Operation> operations, long fromNanos, long toNanos, int beforeId,
+                                           int limit, List<Operation> page) {
+            for (int i = operations.size() - 1; i >= 0; i--) {
+                final Operation operation = operations.get(i);
+                final long date = EpochNanos.of(operation.getDate());
+
+                if (date < fromNanos) {
+                    return true;
+                }
+                if (date < toNanos && operation.getId() < beforeId) {
+                    page.add(operation);
+                    if (page.size() == limit) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Encodes an operation leaving the hot tail into the open block, and moves that block off-heap once full.
+         */
+        private void age(Operation operation) {
+            if (open == null) {
+                open = new BlockWriter();
+            }
+
+            open.add(operation);
+
+            if (open.count == blockSize) {
+                blocks.add(open.seal(TieredOperationRepository.this::store));
+                open = null;
+            }
+        }
+
+        private List<Block> segments() {
+            if (open == null) {
+                return blocks;
+            }
+
+            final List<Block> segments = new ArrayList<>(blocks.size() + 1);
+            segments.addAll(blocks);
+            segments.add(open.view());
+
+            return segments;
+        }
+
+        private Operation hotAt(int index) {
+            return hot[(hotStart + index) % hot.length];
+        }
+
+        private List<Operation> hotOperations() {
+            final List<Operation> operations = new ArrayList<>(hotCount);
+
+            for (int i = 0; i < hotCount; i++) {
+                operations.add(hotAt(i));
+            }
+
+            return operations;
+        }
+    }
+
+    /**
+     * Encodes operations one at a time into a growing heap buffer, until the block is full and copied off-heap.
+     */
+    private static final class BlockWriter {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BLOCK_BYTES);
+
+        private Map<String, Integer> indexes;
+
+        private List<Account> counterparties;
+
+        private int count;
+
+        private int firstId;
+
+        private long firstDate;
+
+        private long lastDate = NO_DATE;
+
+        private long previousId;
+
+        private long previousDate;
+
+        private int previousOffset = NO_OFFSET;
+
+        private long previousBalance;
+
+        void add(Operation operation) {
+            final OffsetDateTime date = operation.getDate();
+            final boolean credit = OperationType.CREDIT.equals(operation.getOperationType());
+            final int offset = date == null ? previousOffset : date.getOffset().getTotalSeconds();
+            int flags = credit ? CREDIT : 0;
+
+            if (buffer.remaining() < MAX_OPERATION_SIZE) {
+                final ByteBuffer grown = ByteBuffer.allocate(2 * buffer.capacity());
+                buffer.flip();
+                buffer = grown.put(buffer);
+            }
+
+            if (offset != previousOffset) {
+                flags |= ZONE_CHANGED;
+            }
+            if (operation.getCounterparty() != null) {
+                flags |= COUNTERPARTY;
+            }
+            if (date == null) {
+                flags |= UNDATED;
+            }
+
+            buffer.put((byte) flags);
+            if (operation.getCounterparty() != null) {
+                VarLongs.putVarLong(buffer, indexOf(operation.getCounterparty()));
+            }
+            VarLongs.putSignedVarLong(buffer, operation.getId() - previousId);
+            if (date != null) {
+                final long epochNanos = EpochNanos.of(date);
+                VarLongs.putSignedVarLong(buffer, epochNanos - previousDate);
+                previousDate = epochNanos;
+            }
+            if (offset != previousOffset) {
+                VarLongs.putSignedVarLong(buffer, offset);
+            }
+            VarLongs.putVarLong(buffer, operation.getAmountMinorUnits());
+            VarLongs.putSignedVarLong(buffer, operation.getBalanceMinorUnits()
+                    - (credit ? previousBalance + operation.getAmountMinorUnits()
+                    : previousBalance - operation.getAmountMinorUnits()));
+
+            if (count == 0) {
+                firstId = operation.getId();
+                firstDate = EpochNanos.of(date);
+            }
+            lastDate = Math.max(lastDate, EpochNanos.of(date));
+            previousId = operation.getId();
+            previousOffset = offset;
+            previousBalance = operation.getBalanceMinorUnits();
+            count++;
+        }
+
+        /**
+         * Block over the operations encoded so far. Later additions only write past its end.
+         */
+        Block view() {
+            final ByteBuffer data = buffer.duplicate();
+            data.flip();
+
+            return block(data.asReadOnlyBuffer());
+        }
+
+        Block seal(UnaryOperator<ByteBuffer> store) {
+            final ByteBuffer data = buffer.duplicate();
+            data.flip();
+
+            return block(store.apply(data));
+        }
+
+        private Block block(ByteBuffer data) {
+            return new Block(data, counterparties == null ? null : counterparties.toArray(new Account[0]), count,
+                    firstId, firstDate, lastDate);
+        }
+
+        private int indexOf(Account counterparty) {
+            if (indexes == null) {
+                indexes = new HashMap<>();
+                counterparties = new ArrayList<>();
+            }
+
+            return indexes.computeIfAbsent(counterparty.getId(), id -> {
+                counterparties.add(counterparty);
+                return counterparties.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Operations oldest first, each a flags byte then varints: the counterparty index when there is one, the id
+     * delta, the date delta in nanoseconds, the zone offset when it changed, the amount, and the difference
+     * between the stored balance and the one implied by the previous balance and the amount.
+     */
+    private static final class Block {
+
+        private final ByteBuffer data;
+
+        private final Account[] counterparties;
+
+        private final int count;
+
+        private final int firstId;
+
+        private final long firstDate;
+
+        private final long lastDate;
+
+        private Block(ByteBuffer data, Account[] counterparties, int count, int firstId, long firstDate,
+                      long lastDate) {
+            this.data = data;
+            this.counterparties = counterparties;
+            this.count = count;
+            this.firstId = firstId;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+        }
+
+        List<Operation> decode(Account account) {
+            final ByteBuffer buffer = data.duplicate();
+            final List<Operation> operations = new ArrayList<>(count);
+            long id = 0L;
+            long epochNanos = 0L;
+            ZoneOffset offset = ZoneOffset.UTC;
+            long balance = 0L;
+
+            for (int i = 0; i < count; i++) {
+                final int flags = buffer.get();
+                final Account counterparty = (flags & COUNTERPARTY) != 0
+                        ? counterparties[(int) VarLongs.getVarLong(buffer)] : null;
+
+                id += VarLongs.getSignedVarLong(buffer);
+                if ((flags & UNDATED) == 0) {
+                    epochNanos += VarLongs.getSignedVarLong(buffer);
+                }
+                if ((flags & ZONE_CHANGED) != 0) {
+                    offset = ZoneOffset.ofTotalSeconds((int) VarLongs.getSignedVarLong(buffer));
+                }
+
+                final long amount = VarLongs.getVarLong(buffer);
+                final boolean credit = (flags & CREDIT) != 0;
+                balance = (credit ? balance + amount : balance - amount) + VarLongs.getSignedVarLong(buffer);
+
+                operations.add(Operation.builder()
+                        .id((int) id)
+                        .account(account)
+                        .counterparty(counterparty)
+                        .operationType(credit ? OperationType.CREDIT : OperationType.DEBIT)
+                        .amountMinorUnits(amount)
+                        .balanceMinorUnits(balance)
+                        .date((flags & UNDATED) != 0 ? null
+                                : OffsetDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), offset))
+                        .build());
+            }
+
+            return operations;
+        }
+    }
+}
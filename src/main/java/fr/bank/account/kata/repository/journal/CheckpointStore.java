@@ -0,0 +1,209 @@
+package fr.bank.account.kata.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary checkpoint files of per-account journal heads.
+ * <p>
+ * A file holds a header (magic, version, kind, checkpoint number, journal size to replay from, entry count),
+ * 16 bytes per account (ordinal, operation count, index of the last record) and a trailing CRC32. A full
+ * checkpoint lists every account, a delta only the accounts written since the previous checkpoint; loading
+ * applies the newest valid full checkpoint followed by the valid deltas written after it.
+ */
+class CheckpointStore {
+
+    static final byte FULL = 1;
+
+    static final byte DELTA = 2;
+
+    private static final int MAGIC = 0x4B42434B;
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 8 + 8 + 4;
+
+    static final int ENTRY_SIZE = 4 + 4 + 8;
+
+    private static final String PREFIX = "checkpoint-";
+
+    private static final String SUFFIX = ".ckp";
+
+    private final Path directory;
+
+    CheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Applies the newest consistent chain of checkpoints and returns the journal size it covers, or zero.
+     */
+    long load(EntryVisitor visitor) {
+        final List<Path> files = list();
+        final List<Checkpoint> chain = new ArrayList<>();
+
+        for (int i = files.size() - 1; i >= 0; i--) {
+            final Checkpoint checkpoint = read(files.get(i));
+            if (checkpoint == null) {
+                continue;
+            }
+            if (!chain.isEmpty() && checkpoint.number != chain.get(chain.size() - 1).number - 1) {
+                chain.clear();
+            }
+            chain.add(checkpoint);
+            if (checkpoint.kind == FULL) {
+                break;
+            }
+        }
+
+        if (chain.isEmpty() || chain.get(chain.size() - 1).kind != FULL) {
+            return 0L;
+        }
+
+        Collections.reverse(chain);
+
+        for (Checkpoint checkpoint : chain) {
+            final ByteBuffer entries = checkpoint.entries;
+            while (entries.hasRemaining()) {
+                visitor.visit(entries.getInt(), entries.getInt(), entries.getLong());
+            }
+        }
+
+        return chain.get(chain.size() - 1).replayFrom;
+    }
+
+    long lastNumber() {
+        final List<Path> files = list();
+
+        return files.isEmpty() ? 0L : number(files.get(files.size() - 1));
+    }
+
+    void write(long number, byte kind, long replayFrom, ByteBuffer entries) {
+        final int count = entries.remaining() / ENTRY_SIZE;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        final ByteBuffer trailer = ByteBuffer.allocate(4);
+        final CRC32 checksum = new CRC32();
+
+        header.putInt(MAGIC).put(VERSION).put(kind).putLong(number).putLong(replayFrom).putInt(count).flip();
+        checksum.update(header.duplicate());
+        checksum.update(entries.duplicate());
+        trailer.putInt((int) checksum.getValue()).flip();
+
+        final Path target = path(number);
+        final Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final ByteBuffer[] buffers = {header, entries, trailer};
+                while (trailer.hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+            if (kind == FULL) {
+                for (Path file : list()) {
+                    if (number(file) < number) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Checkpoint read(Path file) {
+        try {
+            final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+
+            if (content.remaining() < HEADER_SIZE + 4 || content.getInt() != MAGIC || content.get() != VERSION) {
+                return null;
+            }
+
+            final byte kind = content.get();
+            final long number = content.getLong();
+            final long replayFrom = content.getLong();
+            final int count = content.getInt();
+
+            if (content.remaining() != (long) count * ENTRY_SIZE + 4) {
+                return null;
+            }
+
+            final CRC32 checksum = new CRC32();
+            checksum.update(content.array(), 0, content.limit() - 4);
+            if ((int) checksum.getValue() != content.getInt(content.limit() - 4)) {
+                return null;
+            }
+
+            final ByteBuffer entries = content.slice();
+            entries.limit(count * ENTRY_SIZE);
+
+            return new Checkpoint(number, kind, replayFrom, entries);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private List<Path> list() {
+        final List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        files.sort((left, right) -> Long.compare(number(left), number(right)));
+
+        return files;
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%s%016d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static long number(Path file) {
+        final String name = file.getFileName().toString();
+
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    interface EntryVisitor {
+        void visit(int ordinal, int count, long lastIndex);
+    }
+
+    private static final class Checkpoint {
+
+        private final long number;
+
+        private final byte kind;
+
+        private final long replayFrom;
+
+        private final ByteBuffer entries;
+
+        Checkpoint(long number, byte kind, long replayFrom, ByteBuffer entries) {
+            this.number = number;
+            this.kind = kind;
+            this.replayFrom = replayFrom;
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package fr.bank.account.kata.repository.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of fixed-size records spread over memory-mapped segment files.
+ * <p>
+ * Each record is a CRC32 of its payload followed by the payload. Records are appended under a single
+ * short lock and made durable by {@link #sync(long)}, which group commits: one writer forces the
+ * segments for everything appended so far while the others waiting for the same range return with it.
+ * {@link #recover(long, RecordVisitor)} replays the valid records and cuts the log at the first torn one.
+ */
+public class Journal implements Closeable {
+
+    public static final int CHECKSUM_SIZE = 4;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+
+    private final String name;
+
+    private final int recordSize;
+
+    private final int recordsPerSegment;
+
+    private final boolean fsync;
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final Object syncLock = new Object();
+
+    private final CRC32 appendChecksum = new CRC32();
+
+    private volatile long size;
+
+    private volatile long durableSize;
+
+    private boolean recovered;
+
+    public Journal(Path directory, String name, int recordSize, int recordsPerSegment, boolean fsync) {
+        if (recordSize <= CHECKSUM_SIZE || recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("Invalid journal geometry.");
+        }
+
+        this.directory = directory;
+        this.name = name;
+        this.recordSize = recordSize;
+        this.recordsPerSegment = recordsPerSegment;
+        this.fsync = fsync;
+
+        try {
+            Files.createDirectories(directory);
+            final List<MappedByteBuffer> existing = new ArrayList<>();
+            for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+                existing.add(map(segment));
+            }
+            segments = existing.toArray(new MappedByteBuffer[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int payloadSize() {
+        return recordSize - CHECKSUM_SIZE;
+    }
+
+    /**
+     * Number of appended records, which is also the index of the next one.
+     */
+    public long size() {
+        return size;
+    }
+
+    public long durableSize() {
+        return durableSize;
+    }
+
+    /**
+     * Replays the records from {@code fromIndex}, stops at the first one whose checksum does not match and
+     * discards everything after it. Must be called once before appending.
+     */
+    public long recover(long fromIndex, RecordVisitor visitor) {
+        appendLock.lock();
+        try {
+            if (recovered) {
+                throw new IllegalStateException("Journal " + name + " already recovered.");
+            }
+
+            final CRC32 checksum = new CRC32();
+            final ByteBuffer payload = ByteBuffer.allocate(payloadSize());
+            final long capacity = (long) segments.length * recordsPerSegment;
+            long index = fromIndex;
+
+            while (index < capacity && readValid(index, payload, checksum)) {
+                payload.flip();
+                visitor.visit(index, payload);
+                index++;
+            }
+
+            truncate(index);
+            size = index;
+            durableSize = index;
+            recovered = true;
+
+            return index;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Discards the recovered records from {@code index} on, e.g. an incomplete group of records the caller
+     * only accepts as a whole. Must be called after {@link #recover(long, RecordVisitor)} and before appending.
+     */
+    public void discardFrom(long index) {
+        appendLock.lock();
+        try {
+            if (!recovered || index > size || size != durableSize) {
+                throw new IllegalStateException("Journal " + name + " can only discard recovered records.");
+            }
+
+            truncate(index);
+            size = index;
+            durableSize = index;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends {@code count} records in a row and returns the index of the last one. The encoder fills each
+     * payload while the append lock is held, so it can safely derive in-memory state from the record index.
+     */
+    public long append(int count, RecordEncoder encoder) {
+        appendLock.lock();
+        try {
+            if (!recovered) {
+                throw new IllegalStateException("Journal " + name + " must be recovered before appending.");
+            }
+
+            long index = size;
+
+            for (int item = 0; item < count; item++, index++) {
+                final ByteBuffer slot = slot(index);
+                final ByteBuffer payload = slot.duplicate();
+
+                payload.position(slot.position() + CHECKSUM_SIZE);
+                encoder.encode(item, index, payload.slice());
+
+                payload.position(slot.position() + CHECKSUM_SIZE);
+                payload.limit(slot.position() + recordSize);
+                appendChecksum.reset();
+                appendChecksum.update(payload);
+                slot.putInt(slot.position(), (int) appendChecksum.getValue());
+            }
+
+            size = index;
+
+            return index - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record at {@code index} is durable. Concurrent callers share a single force. A record
+     * still being appended is waited for, so the force never stops in the middle of an append.
+     */
+    public void sync(long index) {
+        if (index < durableSize) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (index < durableSize) {
+                return;
+            }
+
+            long target = size;
+            if (index >= target) {
+                appendLock.lock();
+                try {
+                    target = size;
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+
+            if (index >= target) {
+                throw new IndexOutOfBoundsException("No record " + index + " in journal " + name);
+            }
+
+            if (fsync) {
+                final int firstSegment = (int) (durableSize / recordsPerSegment);
+                final int lastSegment = (int) ((target - 1) / recordsPerSegment);
+
+                for (int segment = firstSegment; segment <= lastSegment; segment++) {
+                    segment(segment).force();
+                }
+            }
+
+            durableSize = target;
+        }
+    }
+
+    /**
+     * Copies the payload of a record already appended into {@code payload}, which is then ready to be read.
+     */
+    public ByteBuffer read(long index, ByteBuffer payload) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No record " + index + " in journal " + name);
+        }
+
+        final ByteBuffer slot = slot(index);
+
+        slot.position(slot.position() + CHECKSUM_SIZE);
+        slot.limit(slot.position() + payloadSize());
+
+        payload.clear();
+        payload.put(slot);
+        payload.flip();
+
+        return payload;
+    }
+
+    @Override
+    public void close() {
+        if (recovered && size > 0) {
+            sync(size - 1);
+        }
+    }
+
+    private boolean readValid(long index, ByteBuffer payload, CRC32 checksum) {
+        final ByteBuffer slot = slot(index);
+        final int expected = slot.getInt(slot.position());
+
+        slot.position(slot.position() + CHECKSUM_SIZE);
+        slot.limit(slot.position() + payloadSize());
+
+        payload.clear();
+        payload.put(slot);
+        payload.flip();
+
+        checksum.reset();
+        checksum.update(payload);
+
+        return (int) checksum.getValue() == expected;
+    }
+
+    private void truncate(long index) {
+        final MappedByteBuffer[] current = segments;
+        final int segment = (int) (index / recordsPerSegment);
+
+        if (segment < current.length) {
+            final ByteBuffer tail = current[segment].duplicate();
+            final byte[] zeros = new byte[Math.min(tail.capacity(), 64 * 1024)];
+
+            tail.position((int) (index % recordsPerSegment) * recordSize);
+            while (tail.hasRemaining()) {
+                tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+            }
+            current[segment].force();
+        }
+
+        try {
+            for (int extra = current.length - 1; extra > segment; extra--) {
+                Files.deleteIfExists(segmentPath(extra));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (segment + 1 < current.length) {
+            segments = Arrays.copyOf(current, segment + 1);
+        }
+    }
+
+    private ByteBuffer slot(long index) {
+        final ByteBuffer slot = segment((int) (index / recordsPerSegment)).duplicate();
+        final int offset = (int) (index % recordsPerSegment) * recordSize;
+
+        slot.limit(offset + recordSize);
+        slot.position(offset);
+
+        return slot;
+    }
+
+    private MappedByteBuffer segment(int segment) {
+        final MappedByteBuffer[] current = segments;
+
+        if (segment < current.length) {
+            return current[segment];
+        }
+
+        synchronized (this) {
+            while (segments.length <= segment) {
+                try {
+                    final MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+                    grown[segments.length] = map(segments.length);
+                    segments = grown;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return segments[segment];
+        }
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordSize * recordsPerSegment);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s-%06d%s", name, segment, SEGMENT_SUFFIX));
+    }
+
+    public interface RecordEncoder {
+        void encode(int item, long index, ByteBuffer payload);
+    }
+
+    public interface RecordVisitor {
+        void visit(long index, ByteBuffer payload);
+    }
+}
@@ -0,0 +1,227 @@
+package fr.bank.account.kata.repository.journal;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Durable {@link AccountRepository}: each account is one 64 bytes journal record whose index is the
+ * account ordinal referenced by {@link JournalOperationRepository} records. A deleted account gets a tombstone
+ * record; its ordinal still resolves, since the history of other accounts may refer to it.
+ */
+public class JournalAccountRepository implements AccountRepository, Closeable {
+
+    public static final int RECORD_SIZE = 64;
+
+    public static final int MAX_ID_LENGTH = RECORD_SIZE - Journal.CHECKSUM_SIZE - 2;
+
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+
+    private static final int DELETED = 0x8000;
+
+    private static final int LENGTH_MASK = DELETED - 1;
+
+    private final Journal journal;
+
+    private final ConcurrentMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+    private volatile Account[] accounts = new Account[1024];
+
+    public JournalAccountRepository(Path directory) {
+        this(directory, true);
+    }
+
+    public JournalAccountRepository(Path directory, boolean fsync) {
+        this.journal = new Journal(directory, "accounts", RECORD_SIZE, RECORDS_PER_SEGMENT, fsync);
+        this.journal.recover(0, (index, payload) -> {
+            final boolean deleted = (payload.getShort(0) & DELETED) != 0;
+            final Account account = decode(payload);
+
+            if (deleted) {
+                ordinals.remove(account.getId());
+            } else {
+                register((int) index, account);
+            }
+        });
+    }
+
+    @Override
+    public Account save(Account account) {
+        final byte[] id = account.getId().getBytes(StandardCharsets.UTF_8);
+
+        if (id.length > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Account id longer than " + MAX_ID_LENGTH + " bytes.");
+        }
+
+        final long index;
+
+        synchronized (this) {
+            if (ordinals.containsKey(account.getId())) {
+                return account;
+            }
+
+            index = journal.append(1, (item, recordIndex, payload) -> {
+                payload.putShort((short) id.length);
+                payload.put(id);
+                register((int) recordIndex, account);
+            });
+        }
+
+        journal.sync(index);
+
+        return account;
+    }
+
+    /**
+     * Appends all new accounts in one run of records and waits for a single sync.
+     */
+    @Override
+    public List<String> saveAllIfAbsent(List<Account> accounts) {
+        final List<String> existing = new ArrayList<>();
+        final List<Account> created = new ArrayList<>(accounts.size());
+        final List<byte[]> ids = new ArrayList<>(accounts.size());
+        final byte[][] encoded = new byte[accounts.size()][];
+
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = accounts.get(i).getId().getBytes(StandardCharsets.UTF_8);
+            if (encoded[i].length > MAX_ID_LENGTH) {
+                throw new IllegalArgumentException("Account id longer than " + MAX_ID_LENGTH + " bytes.");
+            }
+        }
+
+        final long index;
+
+        synchronized (this) {
+            final Set<String> batch = new HashSet<>();
+            for (int i = 0; i < encoded.length; i++) {
+                final Account account = accounts.get(i);
+                if (ordinals.containsKey(account.getId()) || !batch.add(account.getId())) {
+                    existing.add(account.getId());
+                } else {
+                    created.add(account);
+                    ids.add(encoded[i]);
+                }
+            }
+
+            if (created.isEmpty()) {
+                return existing;
+            }
+
+            final int size = (int) journal.size() + created.size();
+            if (size > this.accounts.length) {
+                this.accounts = Arrays.copyOf(this.accounts, Math.max(size, this.accounts.length * 2));
+            }
+
+            index = journal.append(created.size(), (item, recordIndex, payload) -> {
+                payload.putShort((short) ids.get(item).length);
+                payload.put(ids.get(item));
+                register((int) recordIndex, created.get(item));
+            });
+        }
+
+        journal.sync(index);
+
+        return existing;
+    }
+
+    @Override
+    public boolean existsAccountById(String accountId) {
+        return accountId != null && ordinals.containsKey(accountId);
+    }
+
+    @Override
+    public Optional<Account> getAccountById(String accountId) {
+        final Integer ordinal = accountId == null ? null : ordinals.get(accountId);
+
+        return ordinal == null ? Optional.empty() : Optional.of(accounts[ordinal]);
+    }
+
+    @Override
+    public Stream<Account> findAll() {
+        final int size = (int) journal.size();
+        final Account[] current = accounts;
+
+        return IntStream.range(0, Math.min(size, current.length))
+                .filter(ordinal -> current[ordinal] != null
+                        && Integer.valueOf(ordinal).equals(ordinals.get(current[ordinal].getId())))
+                .mapToObj(ordinal -> current[ordinal]);
+    }
+
+    /**
+     * Appends one tombstone per existing account and waits for a single sync.
+     */
+    @Override
+    public void deleteAllById(Collection<String> accountIds) {
+        final List<String> deleted = new ArrayList<>(accountIds.size());
+        final long index;
+
+        synchronized (this) {
+            for (String accountId : new LinkedHashSet<>(accountIds)) {
+                if (accountId != null && ordinals.containsKey(accountId)) {
+                    deleted.add(accountId);
+                }
+            }
+
+            if (deleted.isEmpty()) {
+                return;
+            }
+
+            index = journal.append(deleted.size(), (item, recordIndex, payload) -> {
+                final byte[] id = deleted.get(item).getBytes(StandardCharsets.UTF_8);
+                payload.putShort((short) (id.length | DELETED));
+                payload.put(id);
+                ordinals.remove(deleted.get(item));
+            });
+        }
+
+        journal.sync(index);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+    Integer ordinalOf(String accountId) {
+        return ordinals.get(accountId);
+    }
+
+    Account accountAt(int ordinal) {
+        return accounts[ordinal];
+    }
+
+    private void register(int ordinal, Account account) {
+        Account[] current = accounts;
+
+        if (ordinal >= current.length) {
+            current = Arrays.copyOf(current, Math.max(ordinal + 1, current.length * 2));
+        }
+
+        current[ordinal] = account;
+        accounts = current;
+        ordinals.put(account.getId(), ordinal);
+    }
+
+    private static Account decode(ByteBuffer payload) {
+        final byte[] id = new byte[payload.getShort() & LENGTH_MASK];
+        payload.get(id);
+
+        return Account.builder().id(new String(id, StandardCharsets.UTF_8)).build();
+    }
+}
@@ -0,0 +1,521 @@
+package fr.bank.account.kata.repository.journal;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.EpochNanos;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.OperationChunks;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable {@link OperationRepository} writing every operation as a 64 bytes record of a memory-mapped
+ * {@link Journal}. Each record points to the previous record of the same account, so a history is read by
+ * walking that chain back from the account head; only the heads are kept in memory, and a streamed history
+ * only keeps the index of the first record of each chunk, reading the chunk back from there. Writers chain
+ * records to the tail of each account, which moves as soon as a record is appended, while readers only see the
+ * head once the record is durable.
+ * <p>
+ * {@link #checkpoint()} persists the heads so a restart only replays the journal written after the newest
+ * checkpoint. Checkpoints never take the append lock: writers keep going while the heads are copied.
+ * <p>
+ * Deleting a history appends a tombstone record and resets the account tail, so the next record starts a new
+ * chain; checkpoints carry the reset as an entry without operations.
+ * <p>
+ * The records of one {@link #saveAll(List)} call, such as both legs of a transfer, carry the number of records
+ * still to come in their group; a group cut short by a crash is discarded as a whole at recovery.
+ */
+public class JournalOperationRepository implements OperationRepository, Closeable {
+
+    public static final int RECORD_SIZE = 64;
+
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    public static final int FULL_CHECKPOINT_INTERVAL = 8;
+
+    static final long NO_PREVIOUS = -1L;
+
+    private static final int NO_COUNTERPARTY = -1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final byte DELETED = -1;
+
+    private static final int ACCOUNT_OFFSET = 0;
+
+    private static final int ID_OFFSET = 4;
+
+    private static final int TYPE_OFFSET = 8;
+
+    private static final int AMOUNT_OFFSET = 12;
+
+    private static final int BALANCE_OFFSET = 20;
+
+    private static final int DATE_OFFSET = 28;
+
+    private static final int ZONE_OFFSET = 36;
+
+    private static final int PREVIOUS_OFFSET = 40;
+
+    private static final int COUNTERPARTY_OFFSET = 48;
+
+    private static final int REMAINING_OFFSET = 52;
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private final Journal journal;
+
+    private final JournalAccountRepository accountRepository;
+
+    private final ConcurrentMap<String, Head> heads = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Head> tails = new ConcurrentHashMap<>();
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final CheckpointStore checkpointStore;
+
+    private final long replayedFrom;
+
+    private final List<long[]> pendingGroup = new ArrayList<>();
+
+    private long checkpointNumber;
+
+    private ScheduledExecutorService checkpointScheduler;
+
+    public JournalOperationRepository(Path directory, JournalAccountRepository accountRepository) {
+        this(directory, accountRepository, true, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public JournalOperationRepository(Path directory, JournalAccountRepository accountRepository,
+                                      boolean fsync, int recordsPerSegment) {
+        this.accountRepository = accountRepository;
+        this.journal = new Journal(directory, "operations", RECORD_SIZE, recordsPerSegment, fsync);
+        this.checkpointStore = new CheckpointStore(directory);
+        this.checkpointNumber = checkpointStore.lastNumber();
+        this.replayedFrom = checkpointStore.load((ordinal, count, lastIndex) -> {
+            final String accountId = accountRepository.accountAt(ordinal).getId();
+
+            if (count == 0) {
+                heads.remove(accountId);
+            } else {
+                heads.put(accountId, new Head(ordinal, lastIndex, count, null));
+            }
+        });
+        this.journal.recover(replayedFrom, this::replay);
+
+        if (!pendingGroup.isEmpty()) {
+            journal.discardFrom(pendingGroup.get(0)[0]);
+            pendingGroup.clear();
+        }
+
+        tails.putAll(heads);
+    }
+
+    /**
+     * Writes a checkpoint of the account tails: a full one every {@link #FULL_CHECKPOINT_INTERVAL}
+     * checkpoints, otherwise a delta of the accounts written since the previous one. The journal is synced up
+     * to the newest tail first, so the checkpoint never points to a record that is not durable.
+     */
+    public synchronized void checkpoint() {
+        final long replayFrom = journal.size();
+        final boolean full = checkpointNumber % FULL_CHECKPOINT_INTERVAL == 0;
+        final List<Head> changed = new ArrayList<>(full ? tails.size() : dirty.size());
+
+        for (Iterator<String> accountIds = dirty.iterator(); accountIds.hasNext(); ) {
+            final String accountId = accountIds.next();
+            accountIds.remove();
+            if (!full) {
+                changed.add(tails.get(accountId));
+            }
+        }
+
+        if (full) {
+            for (Head tail : tails.values()) {
+                if (tail.count > 0) {
+                    changed.add(tail);
+                }
+            }
+        }
+
+        final ByteBuffer entries = ByteBuffer.allocateDirect(changed.size() * CheckpointStore.ENTRY_SIZE);
+        long lastIndex = replayFrom - 1;
+
+        for (Head head : changed) {
+            entries.putInt(head.ordinal).putInt(head.count).putLong(head.lastIndex);
+            lastIndex = Math.max(lastIndex, head.lastIndex);
+        }
+        entries.flip();
+
+        if (lastIndex >= 0) {
+            journal.sync(lastIndex);
+        }
+
+        checkpointNumber++;
+        checkpointStore.write(checkpointNumber, full ? CheckpointStore.FULL : CheckpointStore.DELTA, replayFrom, entries);
+    }
+
+    public synchronized void scheduleCheckpoints(long period, TimeUnit unit) {
+        if (checkpointScheduler != null) {
+            throw new IllegalStateException("Checkpoints already scheduled.");
+        }
+
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointScheduler.scheduleWithFixedDelay(this::checkpoint, period, period, unit);
+    }
+
+    /**
+     * Index of the first journal record replayed at startup; everything before was restored from checkpoints.
+     */
+    public long getReplayedFrom() {
+        return replayedFrom;
+    }
+
+    @Override
+    public Operation save(Operation operation) {
+        saveAll(Collections.singletonList(operation));
+
+        return operation;
+    }
+
+    @Override
+    public List<Operation> saveAll(List<Operation> operations) {
+        if (operations.isEmpty()) {
+            return operations;
+        }
+
+        final int[] ordinals = new int[operations.size()];
+        final int[] counterparties = new int[operations.size()];
+        final long[] dates = new long[operations.size()];
+
+        for (int i = 0; i < ordinals.length; i++) {
+            final Operation operation = operations.get(i);
+            ordinals[i] = ordinalOf(operation.getAccount());
+            counterparties[i] = operation.getCounterparty() == null ? NO_COUNTERPARTY
+                    : ordinalOf(operation.getCounterparty());
+            dates[i] = EpochNanos.of(operation.getDate());
+        }
+
+        final Head[] appended = new Head[ordinals.length];
+        final long last = journal.append(operations.size(), (item, index, payload) -> {
+            final Operation operation = operations.get(item);
+            final String accountId = operation.getAccount().getId();
+            final Head tail = tails.get(accountId);
+
+            if (operation.getId() == null) {
+                operation.setId((int) (index + 1));
+            }
+
+            encode(operation, ordinals[item], dates[item], tail == null ? NO_PREVIOUS : tail.lastIndex, payload);
+            payload.putInt(COUNTERPARTY_OFFSET, counterparties[item] + 1);
+            payload.putInt(REMAINING_OFFSET, ordinals.length - 1 - item);
+            appended[item] = new Head(ordinals[item], index, tail == null ? 1 : tail.count + 1, Optional.of(operation));
+            tails.put(accountId, appended[item]);
+            dirty.add(accountId);
+        });
+
+        journal.sync(last);
+
+        for (int i = 0; i < appended.length; i++) {
+            heads.merge(operations.get(i).getAccount().getId(), appended[i], Head::newest);
+        }
+
+        return operations;
+    }
+
+    /**
+     * Appends one tombstone per account with a history and waits for a single sync.
+     */
+    @Override
+    public void deleteOperationsByAccountIds(Collection<String> accountIds) {
+        final List<Head> deleted = new ArrayList<>(accountIds.size());
+
+        for (String accountId : new LinkedHashSet<>(accountIds)) {
+            final Head tail = accountId == null ? null : tails.get(accountId);
+            if (tail != null && tail.count > 0) {
+                deleted.add(tail);
+            }
+        }
+
+        if (deleted.isEmpty()) {
+            return;
+        }
+
+        final long last = journal.append(deleted.size(), (item, index, payload) -> {
+            final Head tail = deleted.get(item);
+
+            payload.putInt(ACCOUNT_OFFSET, tail.ordinal);
+            payload.putInt(ID_OFFSET, 0);
+            payload.put(TYPE_OFFSET, DELETED);
+            payload.putLong(DATE_OFFSET, NO_DATE);
+            payload.putLong(PREVIOUS_OFFSET, NO_PREVIOUS);
+            payload.putInt(COUNTERPARTY_OFFSET, 0);
+            payload.putInt(REMAINING_OFFSET, deleted.size() - 1 - item);
+            reset(tail.ordinal);
+        });
+
+        journal.sync(last);
+
+        for (Head tail : deleted) {
+            heads.remove(accountRepository.accountAt(tail.ordinal).getId());
+        }
+    }
+
+    @Override
+    public List<Operation> finOperationsdByAccountId(String accountId) {
+        final Head head = heads.get(accountId);
+
+        if (head == null) {
+            return Collections.emptyList();
+        }
+
+        final Operation[] operations = new Operation[head.count];
+        final ByteBuffer payload = ByteBuffer.allocate(journal.payloadSize());
+        long index = head.lastIndex;
+
+        for (int i = head.count - 1; i >= 0; i--) {
+            journal.read(index, payload);
+            operations[i] = decode(payload);
+            index = payload.getLong(PREVIOUS_OFFSET);
+        }
+
+        return new ArrayList<>(Arrays.asList(operations));
+    }
+
+    @Override
+    public Optional<Operation> findLastOperationByAccountId(String accountId) {
+        final Head head = heads.get(accountId);
+
+        if (head == null) {
+            return Optional.empty();
+        }
+
+        Optional<Operation> last = head.last;
+        if (last == null) {
+            last = Optional.of(decode(journal.read(head.lastIndex, ByteBuffer.allocate(journal.payloadSize()))));
+            head.last = last;
+        }
+
+        return last;
+    }
+
+    @Override
+    public Stream<String> findAccountIds() {
+        return heads.keySet().stream();
+    }
+
+    @Override
+    public List<Operation> findOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                                     Integer beforeId, int limit) {
+        final Head head = heads.get(accountId);
+
+        if (head == null) {
+            return Collections.emptyList();
+        }
+
+        final long fromNanos = EpochNanos.bound(from);
+        final long toNanos = to == null ? Long.MAX_VALUE : EpochNanos.bound(to);
+        final List<Operation> page = new ArrayList<>(Math.min(limit, head.count));
+        final ByteBuffer payload = ByteBuffer.allocate(journal.payloadSize());
+        long index = head.lastIndex;
+
+        while (index != NO_PREVIOUS && page.size() < limit) {
+            journal.read(index, payload);
+
+            final long date = payload.getLong(DATE_OFFSET);
+            if (from != null && date < fromNanos) {
+                break;
+            }
+
+            if ((beforeId == null || payload.getInt(ID_OFFSET) < beforeId) && date < toNanos) {
+                page.add(decode(payload));
+            }
+
+            index = payload.getLong(PREVIOUS_OFFSET);
+        }
+
+        return page;
+    }
+
+    @Override
+    public Stream<Operation> streamOperationsByAccountId(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        final Head head = heads.get(accountId);
+
+        if (head == null) {
+            return Stream.empty();
+        }
+
+        final long fromNanos = EpochNanos.bound(from);
+        final long toNanos = to == null ? Long.MAX_VALUE : EpochNanos.bound(to);
+        final long[] anchors = new long[head.count / OperationChunks.CHUNK_SIZE + 1];
+        final ByteBuffer payload = ByteBuffer.allocate(journal.payloadSize());
+        int matching = 0;
+        long index = head.lastIndex;
+
+        while (index != NO_PREVIOUS) {
+            journal.read(index, payload);
+
+            final long date = payload.getLong(DATE_OFFSET);
+            if (from != null && date < fromNanos) {
+                break;
+            }
+
+            if (date < toNanos) {
+                if (matching % OperationChunks.CHUNK_SIZE == 0) {
+                    anchors[matching / OperationChunks.CHUNK_SIZE] = index;
+                }
+                matching++;
+            }
+
+            index = payload.getLong(PREVIOUS_OFFSET);
+        }
+
+        final int count = matching;
+
+        return OperationChunks.stream(0, count, (chunkStart, chunkEnd) -> {
+            final Operation[] chunk = new Operation[chunkEnd - chunkStart];
+            final ByteBuffer chunkPayload = ByteBuffer.allocate(journal.payloadSize());
+            final int newest = count - chunkEnd;
+            long chunkIndex = anchors[newest / OperationChunks.CHUNK_SIZE];
+
+            for (int skipped = newest % OperationChunks.CHUNK_SIZE; skipped > 0; skipped--) {
+                chunkIndex = journal.read(chunkIndex, chunkPayload).getLong(PREVIOUS_OFFSET);
+            }
+
+            for (int i = chunk.length - 1; i >= 0; i--) {
+                chunk[i] = decode(journal.read(chunkIndex, chunkPayload));
+                chunkIndex = chunkPayload.getLong(PREVIOUS_OFFSET);
+            }
+
+            return Arrays.asList(chunk);
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        if (checkpointScheduler != null) {
+            checkpointScheduler.shutdownNow();
+        }
+        journal.close();
+    }
+
+    private void replay(long index, ByteBuffer payload) {
+        pendingGroup.add(new long[]{index, payload.getInt(ACCOUNT_OFFSET), payload.get(TYPE_OFFSET)});
+
+        if (payload.getInt(REMAINING_OFFSET) == 0) {
+            for (long[] record : pendingGroup) {
+                replayRecord(record[0], (int) record[1], record[2] == DELETED);
+            }
+            pendingGroup.clear();
+        }
+    }
+
+    private void replayRecord(long index, int ordinal, boolean deleted) {
+        if (deleted) {
+            heads.remove(reset(ordinal));
+            return;
+        }
+
+        final String accountId = accountRepository.accountAt(ordinal).getId();
+        final Head head = heads.get(accountId);
+
+        if (head == null || head.lastIndex < index) {
+            heads.put(accountId, new Head(ordinal, index, head == null ? 1 : head.count + 1, null));
+            dirty.add(accountId);
+        }
+    }
+
+    private String reset(int ordinal) {
+        final String accountId = accountRepository.accountAt(ordinal).getId();
+
+        tails.put(accountId, new Head(ordinal, NO_PREVIOUS, 0, null));
+        dirty.add(accountId);
+
+        return accountId;
+    }
+
+    private static void encode(Operation operation, int ordinal, long date, long previous, ByteBuffer payload) {
+
+        payload.putInt(ACCOUNT_OFFSET, ordinal);
+        payload.putInt(ID_OFFSET, operation.getId());
+        payload.put(TYPE_OFFSET, (byte) operation.getOperationType().ordinal());
+        payload.putLong(AMOUNT_OFFSET, operation.getAmountMinorUnits());
+        payload.putLong(BALANCE_OFFSET, operation.getBalanceMinorUnits());
+        payload.putLong(DATE_OFFSET, date);
+        payload.putInt(ZONE_OFFSET, date == NO_DATE ? 0 : operation.getDate().getOffset().getTotalSeconds());
+        payload.putLong(PREVIOUS_OFFSET, previous);
+    }
+
+    private int ordinalOf(Account account) {
+        final Integer ordinal = accountRepository.ordinalOf(account.getId());
+
+        if (ordinal == null) {
+            throw new AccountNotFoundException();
+        }
+
+        return ordinal;
+    }
+
+    private Operation decode(ByteBuffer payload) {
+        final Account account = accountRepository.accountAt(payload.getInt(ACCOUNT_OFFSET));
+        final int counterparty = payload.getInt(COUNTERPARTY_OFFSET) - 1;
+        final long date = payload.getLong(DATE_OFFSET);
+
+        return Operation.builder()
+                .id(payload.getInt(ID_OFFSET))
+                .account(account)
+                .counterparty(counterparty == NO_COUNTERPARTY ? null : accountRepository.accountAt(counterparty))
+                .operationType(OPERATION_TYPES[payload.get(TYPE_OFFSET)])
+                .amountMinorUnits(payload.getLong(AMOUNT_OFFSET))
+                .balanceMinorUnits(payload.getLong(BALANCE_OFFSET))
+                .date(EpochNanos.toDate(date, ZoneOffset.ofTotalSeconds(payload.getInt(ZONE_OFFSET))))
+                .build();
+    }
+
+    private static final class Head {
+
+        private final int ordinal;
+
+        private final long lastIndex;
+
+        private final int count;
+
+        private volatile Optional<Operation> last;
+
+        Head(int ordinal, long lastIndex, int count, Optional<Operation> last) {
+            this.ordinal = ordinal;
+            this.lastIndex = lastIndex;
+            this.count = count;
+            this.last = last;
+        }
+
+        private static Head newest(Head current, Head appended) {
+            return appended.lastIndex > current.lastIndex ? appended : current;
+        }
+    }
+}
@@ -1,21 +1,70 @@
 package fr.bank.account.kata.service;
 
 import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.AccountCreationResult;
 import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.BalanceSnapshot;
 import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface AccountService {
     Account createAccount(String accountId);
 
+    /**
+     * Creates the accounts whose id is not taken yet, crediting each positive opening balance, and reports the
+     * ids that were taken.
+     */
+    AccountCreationResult createAccounts(Map<String, Long> openingBalancesMinorUnits);
+
     Balance deposit(String accountId, Double amount);
 
+    long depositMinorUnits(String accountId, long amountMinorUnits);
+
+    OperationOutcome tryDeposit(String accountId, long amountMinorUnits);
+
     Balance withdraw(String accountId, Double amount);
 
+    long withdrawMinorUnits(String accountId, long amountMinorUnits);
+
+    OperationOutcome tryWithdraw(String accountId, long amountMinorUnits);
+
     Balance withdrawAll(String accountId);
 
+    long withdrawAllMinorUnits(String accountId);
+
+    Balance transfer(String fromAccountId, String toAccountId, Double amount);
+
+    long transferMinorUnits(String fromAccountId, String toAccountId, long amountMinorUnits);
+
+    List<OperationResult> executeBatch(List<OperationRequest> requests);
+
     List<Operation> listOperations(String accountId);
 
+    OperationPage listOperations(String accountId, Integer cursor, int limit);
+
+    OperationPage listOperations(String accountId, OffsetDateTime from, OffsetDateTime to, Integer cursor, int limit);
+
+    Stream<Operation> streamOperations(String accountId, OffsetDateTime from, OffsetDateTime to);
+
     Balance getBalance(String accountId);
+
+    Balance getBalance(String accountId, OffsetDateTime at);
+
+    long getBalanceMinorUnits(String accountId);
+
+    BalanceSnapshot getBalances(Collection<String> accountIds);
+
+    List<StatementSummary> getStatementSummaries(String accountId, StatementPeriod period, LocalDate from, LocalDate to);
 }
@@ -0,0 +1,22 @@
+package fr.bank.account.kata.service;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.Operation;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncAccountService {
+    CompletableFuture<Account> createAccount(String accountId);
+
+    CompletableFuture<Balance> deposit(String accountId, Double amount);
+
+    CompletableFuture<Balance> withdraw(String accountId, Double amount);
+
+    CompletableFuture<Balance> withdrawAll(String accountId);
+
+    CompletableFuture<List<Operation>> listOperations(String accountId);
+
+    CompletableFuture<Balance> getBalance(String accountId);
+}
@@ -0,0 +1,71 @@
+package fr.bank.account.kata.service.impl;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of lock stripes shared by all accounts: operations on the same account are
+ * serialized while operations on accounts mapped to different stripes run in parallel.
+ */
+public class AccountLocks {
+
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private final Lock[] stripes;
+
+    private final int mask;
+
+    public AccountLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public AccountLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Lock stripes must be positive.");
+        }
+
+        final int size = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+
+        this.stripes = new Lock[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock lockFor(String accountId) {
+        return stripes[stripeOf(accountId)];
+    }
+
+    /**
+     * Stripes of both accounts in stripe order, a single one when they share it. Taking them in that order
+     * keeps two-account operations deadlock-free.
+     */
+    public Lock[] locksFor(String firstAccountId, String secondAccountId) {
+        final int first = stripeOf(firstAccountId);
+        final int second = stripeOf(secondAccountId);
+
+        if (first == second) {
+            return new Lock[]{stripes[first]};
+        }
+
+        return first < second
+                ? new Lock[]{stripes[first], stripes[second]}
+                : new Lock[]{stripes[second], stripes[first]};
+    }
+
+    int size() {
+        return stripes.length;
+    }
+
+    int stripeOf(String accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+
+        final int hash = accountId.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -2,48 +2,199 @@ package fr.bank.account.kata.service.impl;
 
 import fr.bank.account.kata.error.*;
 import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.AccountCreationResult;
 import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.BalanceSnapshot;
+import fr.bank.account.kata.model.Money;
 import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.OperationStatus;
 import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
 import fr.bank.account.kata.repository.AccountRepository;
 import fr.bank.account.kata.repository.OperationRepository;
 import fr.bank.account.kata.service.AccountService;
 
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class AccountServiceImpl implements AccountService {
 
+    private static final long NO_ACCOUNT = -1L;
+
     private AccountRepository accountRepository;
 
     private OperationRepository operationRepository;
 
+    private AccountLocks accountLocks;
+
+    private StatementAggregates statementAggregates;
+
+    private BalanceVersions balanceVersions;
+
     public AccountServiceImpl(AccountRepository accountRepository,
                               OperationRepository operationRepository) {
+        this(accountRepository, operationRepository, new AccountLocks());
+    }
+
+    public AccountServiceImpl(AccountRepository accountRepository,
+                              OperationRepository operationRepository,
+                              AccountLocks accountLocks) {
+        this(accountRepository, operationRepository, accountLocks, new StatementAggregates());
+    }
+
+    public AccountServiceImpl(AccountRepository accountRepository,
+                              OperationRepository operationRepository,
+                              AccountLocks accountLocks,
+                              StatementAggregates statementAggregates) {
         this.accountRepository = accountRepository;
         this.operationRepository = operationRepository;
+        this.accountLocks = accountLocks;
+        this.statementAggregates = statementAggregates;
+        this.balanceVersions = new BalanceVersions();
     }
 
+    /**
+     * Creates the account under its stripe lock with {@link AccountRepository#saveAllIfAbsent(List)}, like
+     * {@link #createAccounts(Map)}, so concurrent creations of the same id have a single winner.
+     */
     public Account createAccount(String accountId) {
-        if (accountRepository.existsAccountById(accountId)) {
-            throw new AccountAlreadyExistsException();
+        final Account account = Account.builder().id(accountId).build();
+        final Lock lock = accountLocks.lockFor(accountId);
+
+        lock.lock();
+        try {
+            if (!accountRepository.saveAllIfAbsent(Collections.singletonList(account)).isEmpty()) {
+                throw new AccountAlreadyExistsException();
+            }
+
+            statementAggregates.track(accountId);
+        } finally {
+            lock.unlock();
+        }
+
+        return account;
+    }
+
+    /**
+     * Creates the accounts stripe by stripe, in parallel. While a stripe is locked, its new accounts are saved
+     * with one {@link AccountRepository#saveAllIfAbsent(List)} call and their opening credits with one
+     * {@link OperationRepository#saveAll(List)} call, so no movement reaches a new account before its opening
+     * balance. Statement aggregates of the new accounts are left to be built from their history on first use.
+     */
+    public AccountCreationResult createAccounts(Map<String, Long> openingBalancesMinorUnits) {
+        for (Long openingBalance : openingBalancesMinorUnits.values()) {
+            if (openingBalance != null && openingBalance < 0L) {
+                throw new NegativeAmountException();
+            }
         }
 
-        return accountRepository.save(Account.builder().id(accountId).build());
+        final Set<String> existing = openingBalancesMinorUnits.keySet().stream()
+                .collect(Collectors.groupingBy(accountLocks::stripeOf))
+                .values().parallelStream()
+                .flatMap(accountIds -> createAccounts(accountIds, openingBalancesMinorUnits).stream())
+                .collect(Collectors.toSet());
+
+        return AccountCreationResult.builder()
+                .createdCount(openingBalancesMinorUnits.size() - existing.size())
+                .existingAccountIds(existing.isEmpty() ? Collections.emptyList()
+                        : openingBalancesMinorUnits.keySet().stream().filter(existing::contains).collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Deletes the accounts with their history, e.g. once they moved to another node. Each stripe is deleted under
+     * its lock, so no movement on these accounts is in flight meanwhile.
+     */
+    public void deleteAccounts(Collection<String> accountIds) {
+        for (List<String> stripe : accountIds.stream().collect(Collectors.groupingBy(accountLocks::stripeOf)).values()) {
+            final Lock lock = accountLocks.lockFor(stripe.get(0));
+
+            lock.lock();
+            try {
+                accountRepository.deleteAllById(stripe);
+                operationRepository.deleteOperationsByAccountIds(stripe);
+
+                for (String accountId : stripe) {
+                    statementAggregates.forget(accountId);
+                    balanceVersions.forget(accountId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     public Balance deposit(String accountId, Double amount) {
-        return executeOperation(accountId, amount, OperationType.CREDIT);
+        return toBalance(orThrow(tryDeposit(accountId, toMinorUnits(amount))));
+    }
+
+    public long depositMinorUnits(String accountId, long amountMinorUnits) {
+        return orThrow(tryDeposit(accountId, amountMinorUnits)).getBalanceMinorUnits();
+    }
+
+    public OperationOutcome tryDeposit(String accountId, long amountMinorUnits) {
+        return executeOperation(accountId, amountMinorUnits, OperationType.CREDIT);
     }
 
     public Balance withdraw(String accountId, Double amount) {
-        return executeOperation(accountId, amount, OperationType.DEBIT);
+        return toBalance(orThrow(tryWithdraw(accountId, toMinorUnits(amount))));
+    }
+
+    public long withdrawMinorUnits(String accountId, long amountMinorUnits) {
+        return orThrow(tryWithdraw(accountId, amountMinorUnits)).getBalanceMinorUnits();
+    }
+
+    public OperationOutcome tryWithdraw(String accountId, long amountMinorUnits) {
+        return executeOperation(accountId, amountMinorUnits, OperationType.DEBIT);
     }
 
     public Balance withdrawAll(String accountId) {
-        return executeOperation(accountId, getBalanceAmount(accountId), OperationType.DEBIT);
+        return toBalance(orThrow(executeWithdrawAll(accountId)));
+    }
+
+    public long withdrawAllMinorUnits(String accountId) {
+        return orThrow(executeWithdrawAll(accountId)).getBalanceMinorUnits();
+    }
+
+    public Balance transfer(String fromAccountId, String toAccountId, Double amount) {
+        return toBalance(executeTransfer(fromAccountId, toAccountId, toMinorUnits(amount)));
+    }
+
+    public long transferMinorUnits(String fromAccountId, String toAccountId, long amountMinorUnits) {
+        return executeTransfer(fromAccountId, toAccountId, amountMinorUnits).getBalanceMinorUnits();
+    }
+
+    public List<OperationResult> executeBatch(List<OperationRequest> requests) {
+        final OperationResult[] results = new OperationResult[requests.size()];
+        final Map<String, List<Integer>> requestsByAccount = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            requestsByAccount.computeIfAbsent(requests.get(i).getAccountId(), accountId -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<String, List<Integer>> accountRequests : requestsByAccount.entrySet()) {
+            executeAccountBatch(accountRequests.getKey(), accountRequests.getValue(), requests, results);
+        }
+
+        return Arrays.asList(results);
     }
 
     public List<Operation> listOperations(String accountId) {
@@ -51,8 +202,40 @@ public class AccountServiceImpl implements AccountService {
             throw new AccountNotFoundException();
         }
 
-        return operationRepository.finOperationsdByAccountId(accountId).stream()
-                .collect(Collectors.toList());
+        return operationRepository.finOperationsdByAccountId(accountId);
+    }
+
+    public OperationPage listOperations(String accountId, Integer cursor, int limit) {
+        return listOperations(accountId, null, null, cursor, limit);
+    }
+
+    public OperationPage listOperations(String accountId, OffsetDateTime from, OffsetDateTime to,
+                                        Integer cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+
+        if (!accountRepository.existsAccountById(accountId)) {
+            throw new AccountNotFoundException();
+        }
+
+        final List<Operation> operations = operationRepository.findOperationsByAccountId(accountId, from, to,
+                cursor, limit + 1);
+
+        if (operations.size() > limit) {
+            final List<Operation> page = operations.subList(0, limit);
+            return OperationPage.builder().operations(page).nextCursor(page.get(limit - 1).getId()).build();
+        }
+
+        return OperationPage.builder().operations(operations).build();
+    }
+
+    public Stream<Operation> streamOperations(String accountId, OffsetDateTime from, OffsetDateTime to) {
+        if (!accountRepository.existsAccountById(accountId)) {
+            throw new AccountNotFoundException();
+        }
+
+        return operationRepository.streamOperationsByAccountId(accountId, from, to);
     }
 
     public Balance getBalance(String accountId) {
@@ -65,40 +248,352 @@ public class AccountServiceImpl implements AccountService {
 
         if (lastOperation.isPresent()) {
             return Balance.builder()
-                    .amount(lastOperation.get().getBalance())
+                    .amountMinorUnits(lastOperation.get().getBalanceMinorUnits())
                     .date(lastOperation.get().getDate())
                     .build();
         } else {
             return Balance.builder()
-                    .amount(0d)
+                    .amountMinorUnits(0L)
                     .date(OffsetDateTime.now())
                     .build();
         }
     }
 
-    private Balance executeOperation(String accountId, Double amount, OperationType operationType) {
-        if (amount == null || amount == 0) {
+    public Balance getBalance(String accountId, OffsetDateTime at) {
+        if (!accountRepository.existsAccountById(accountId)) {
+            throw new AccountNotFoundException();
+        }
+
+        final Optional<Operation> lastOperation = operationRepository.findLastOperationByAccountIdAt(accountId, at);
+
+        return Balance.builder()
+                .amountMinorUnits(lastOperation.isPresent() ? lastOperation.get().getBalanceMinorUnits() : 0L)
+                .date(at)
+                .build();
+    }
+
+    public long getBalanceMinorUnits(String accountId) {
+        return getBalanceAmount(accountId);
+    }
+
+    /**
+     * Reads the balances from the versions published by the writers, without taking any account lock. An account
+     * not written since this service started has a single version, the stored one, read from the repository.
+     */
+    public BalanceSnapshot getBalances(Collection<String> accountIds) {
+        try (BalanceVersions.Snapshot snapshot = balanceVersions.open()) {
+            final Map<String, Long> balances = new LinkedHashMap<>();
+
+            for (String accountId : accountIds) {
+                long balance = snapshot.balanceOf(accountId);
+
+                if (balance == BalanceVersions.UNVERSIONED) {
+                    final long stored = findBalanceAmount(accountId);
+                    balance = snapshot.balanceOf(accountId);
+                    if (balance == BalanceVersions.UNVERSIONED) {
+                        balance = stored;
+                    }
+                }
+
+                if (balance != NO_ACCOUNT) {
+                    balances.put(accountId, balance);
+                }
+            }
+
+            return BalanceSnapshot.builder().sequence(snapshot.getSequence()).balancesMinorUnits(balances).build();
+        }
+    }
+
+    public List<StatementSummary> getStatementSummaries(String accountId, StatementPeriod period,
+                                                        LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Statement range must not be empty.");
+        }
+
+        if (!accountRepository.existsAccountById(accountId)) {
+            throw new AccountNotFoundException();
+        }
+
+        final Lock lock = accountLocks.lockFor(accountId);
+
+        lock.lock();
+        try {
+            if (!statementAggregates.tracks(accountId)) {
+                statementAggregates.rebuild(accountId,
+                        operationRepository.streamOperationsByAccountId(accountId, null, null));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return statementAggregates.summaries(accountId, period, from, to);
+    }
+
+    private OperationOutcome executeWithdrawAll(String accountId) {
+        final Lock lock = accountLocks.lockFor(accountId);
+
+        lock.lock();
+        try {
+            final long balance = findBalanceAmount(accountId);
+
+            if (balance == NO_ACCOUNT) {
+                return OperationOutcome.rejected(OperationStatus.ACCOUNT_NOT_FOUND);
+            }
+
+            return executeOperation(accountId, balance, OperationType.DEBIT);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a single movement and reports rejections as shared {@link OperationOutcome} constants instead of
+     * exceptions, so a rejected movement costs about as much as an accepted one.
+     */
+    private OperationOutcome executeOperation(String accountId, long amount, OperationType operationType) {
+        if (amount == 0L) {
+            return OperationOutcome.rejected(OperationStatus.NULL_OR_ZERO_AMOUNT);
+        }
+
+        if (amount < 0L) {
+            return OperationOutcome.rejected(OperationStatus.NEGATIVE_AMOUNT);
+        }
+
+        final Lock lock = accountLocks.lockFor(accountId);
+
+        lock.lock();
+        try {
+            final Optional<Account> account = accountRepository.getAccountById(accountId);
+
+            final long lastBalance = account.isPresent() ? findBalanceAmount(accountId) : NO_ACCOUNT;
+
+            if (lastBalance == NO_ACCOUNT) {
+                return OperationOutcome.rejected(OperationStatus.ACCOUNT_NOT_FOUND);
+            }
+
+            final long newBalance;
+
+            if (OperationType.CREDIT.equals(operationType)) {
+                if (amount > Long.MAX_VALUE - lastBalance) {
+                    return OperationOutcome.rejected(OperationStatus.AMOUNT_OUT_OF_RANGE);
+                }
+                newBalance = lastBalance + amount;
+            } else if (amount > lastBalance) {
+                return OperationOutcome.rejected(OperationStatus.INSUFFICIENT_BALANCE);
+            } else {
+                newBalance = lastBalance - amount;
+            }
+
+            final OffsetDateTime operationDateTime = OffsetDateTime.now();
+
+            final Operation operation = Operation.builder()
+                    .account(account.get())
+                    .operationType(operationType)
+                    .amountMinorUnits(amount)
+                    .balanceMinorUnits(newBalance)
+                    .date(operationDateTime).build();
+
+            balanceVersions.prepare(accountId, lastBalance);
+            operationRepository.save(operation);
+            aggregate(accountId, Collections.singletonList(operation));
+            balanceVersions.publish(accountId, newBalance);
+
+            return OperationOutcome.success(newBalance, operationDateTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Debits {@code fromAccountId} and credits {@code toAccountId} under both account locks, taken in stripe
+     * order, and saves the two linked operations with a single repository call. Returns the debit.
+     */
+    private Operation executeTransfer(String fromAccountId, String toAccountId, long amount) {
+        if (amount == 0L) {
             throw new NullOrZeroAmountException();
         }
 
-        if (amount < 0) {
+        if (amount < 0L) {
             throw new NegativeAmountException();
         }
 
-        final Account account = getAccount(accountId);
+        if (fromAccountId != null && fromAccountId.equals(toAccountId)) {
+            throw new SameAccountTransferException();
+        }
+
+        final Lock[] locks = accountLocks.locksFor(fromAccountId, toAccountId);
+
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        try {
+            final Account source = getAccount(fromAccountId);
+            final Account target = getAccount(toAccountId);
+
+            final long sourceBalance = calculateNewBalance(fromAccountId, amount, OperationType.DEBIT);
+            final long targetBalance = calculateNewBalance(toAccountId, amount, OperationType.CREDIT);
+
+            final OffsetDateTime operationDateTime = OffsetDateTime.now();
+
+            final Operation debit = Operation.builder()
+                    .account(source)
+                    .counterparty(target)
+                    .operationType(OperationType.DEBIT)
+                    .amountMinorUnits(amount)
+                    .balanceMinorUnits(sourceBalance)
+                    .date(operationDateTime).build();
+
+            final Operation credit = Operation.builder()
+                    .account(target)
+                    .counterparty(source)
+                    .operationType(OperationType.CREDIT)
+                    .amountMinorUnits(amount)
+                    .balanceMinorUnits(targetBalance)
+                    .date(operationDateTime).build();
+
+            balanceVersions.prepare(fromAccountId, sourceBalance + amount);
+            balanceVersions.prepare(toAccountId, targetBalance - amount);
+            operationRepository.saveAll(Arrays.asList(debit, credit));
+            aggregate(fromAccountId, Collections.singletonList(debit));
+            aggregate(toAccountId, Collections.singletonList(credit));
+            balanceVersions.publish(fromAccountId, sourceBalance, toAccountId, targetBalance);
+
+            return debit;
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    private List<String> createAccounts(List<String> accountIds, Map<String, Long> openingBalancesMinorUnits) {
+        final List<Account> accounts = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            accounts.add(Account.builder().id(accountId).build());
+        }
+
+        final Lock lock = accountLocks.lockFor(accountIds.get(0));
+
+        lock.lock();
+        try {
+            final List<String> existing = accountRepository.saveAllIfAbsent(accounts);
+            final Set<String> taken = existing.isEmpty() ? Collections.emptySet() : new HashSet<>(existing);
+            final OffsetDateTime operationDateTime = OffsetDateTime.now();
+            final List<Operation> openings = new ArrayList<>();
+
+            for (Account account : accounts) {
+                final Long openingBalance = openingBalancesMinorUnits.get(account.getId());
+                if (openingBalance != null && openingBalance > 0L && !taken.contains(account.getId())) {
+                    openings.add(Operation.builder()
+                            .account(account)
+                            .operationType(OperationType.CREDIT)
+                            .amountMinorUnits(openingBalance)
+                            .balanceMinorUnits(openingBalance)
+                            .date(operationDateTime).build());
+                }
+            }
+
+            if (!openings.isEmpty()) {
+                operationRepository.saveAll(openings);
+            }
+
+            return existing;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void executeAccountBatch(String accountId, List<Integer> indexes,
+                                     List<OperationRequest> requests, OperationResult[] results) {
+        final Lock lock = accountLocks.lockFor(accountId);
 
-        final Double newBalance = calculateNewBalance(accountId, amount, operationType);
+        lock.lock();
+        try {
+            final Optional<Account> account = accountRepository.getAccountById(accountId);
 
-        final OffsetDateTime operationDateTime = OffsetDateTime.now();
+            if (!account.isPresent()) {
+                for (Integer index : indexes) {
+                    results[index] = failure(requests.get(index), new AccountNotFoundException());
+                }
+                return;
+            }
 
-        operationRepository.save(Operation.builder()
-                .account(account)
-                .operationType(operationType)
-                .amount(amount)
-                .balance(newBalance)
-                .date(operationDateTime).build());
+            final Optional<Operation> lastOperation = getLastOperation(accountId);
+            final long openingBalance = lastOperation.isPresent() ? lastOperation.get().getBalanceMinorUnits() : 0L;
+            long balance = openingBalance;
+            final OffsetDateTime operationDateTime = OffsetDateTime.now();
+            final List<Operation> operations = new ArrayList<>(indexes.size());
+            final List<Integer> operationIndexes = new ArrayList<>(indexes.size());
+
+            for (Integer index : indexes) {
+                final OperationRequest request = requests.get(index);
+                final long amount = request.getAmountMinorUnits();
+
+                if (request.getOperationType() == null) {
+                    results[index] = failure(request, new MissingOperationTypeException());
+                } else if (amount == 0L) {
+                    results[index] = failure(request, new NullOrZeroAmountException());
+                } else if (amount < 0L) {
+                    results[index] = failure(request, new NegativeAmountException());
+                } else if (OperationType.DEBIT.equals(request.getOperationType()) && amount > balance) {
+                    results[index] = failure(request, new InsufficientBalanceException());
+                } else if (OperationType.CREDIT.equals(request.getOperationType()) && amount > Long.MAX_VALUE - balance) {
+                    results[index] = failure(request, new AmountOutOfRangeException());
+                } else {
+                    balance = OperationType.CREDIT.equals(request.getOperationType())
+                            ? balance + amount
+                            : balance - amount;
+
+                    operations.add(Operation.builder()
+                            .account(account.get())
+                            .operationType(request.getOperationType())
+                            .amountMinorUnits(amount)
+                            .balanceMinorUnits(balance)
+                            .date(operationDateTime).build());
+                    operationIndexes.add(index);
+                }
+            }
+
+            if (operations.isEmpty()) {
+                return;
+            }
+
+            try {
+                balanceVersions.prepare(accountId, openingBalance);
+                operationRepository.saveAll(operations);
+            } catch (RuntimeException e) {
+                for (Integer index : operationIndexes) {
+                    results[index] = failure(requests.get(index), e);
+                }
+                return;
+            }
 
-        return Balance.builder().date(operationDateTime).amount(newBalance).build();
+            aggregate(accountId, operations);
+            balanceVersions.publish(accountId, balance);
+
+            for (int i = 0; i < operations.size(); i++) {
+                final Integer index = operationIndexes.get(i);
+                results[index] = OperationResult.builder()
+                        .request(requests.get(index))
+                        .balance(toBalance(operations.get(i)))
+                        .build();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Folds operations just saved into the statement aggregates of their account. Accounts not tracked yet,
+     * e.g. after a restart, are skipped: their aggregates are rebuilt from the history on the first summary.
+     * Must be called under the account lock.
+     */
+    private void aggregate(String accountId, List<Operation> operations) {
+        if (statementAggregates.tracks(accountId)) {
+            for (Operation operation : operations) {
+                statementAggregates.record(operation);
+            }
+        }
     }
 
     private Account getAccount(String accountId) {
@@ -111,10 +606,13 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
-    private Double calculateNewBalance(String accountId, Double operationAmount, OperationType operationType) {
-        final Double lastBalance = getBalanceAmount(accountId);
+    private long calculateNewBalance(String accountId, long operationAmount, OperationType operationType) {
+        final long lastBalance = getBalanceAmount(accountId);
 
         if (OperationType.CREDIT.equals(operationType)) {
+            if (operationAmount > Long.MAX_VALUE - lastBalance) {
+                throw new AmountOutOfRangeException();
+            }
             return lastBalance + operationAmount;
         } else {
             if (operationAmount > lastBalance) {
@@ -124,21 +622,79 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
-    private Double getBalanceAmount(String accountId) {
-        if (!accountRepository.existsAccountById(accountId)) {
+    private long getBalanceAmount(String accountId) {
+        final long balance = findBalanceAmount(accountId);
+
+        if (balance == NO_ACCOUNT) {
             throw new AccountNotFoundException();
         }
 
+        return balance;
+    }
+
+    /**
+     * Balance of the account, or {@link #NO_ACCOUNT} when it does not exist.
+     */
+    private long findBalanceAmount(String accountId) {
+        if (!accountRepository.existsAccountById(accountId)) {
+            return NO_ACCOUNT;
+        }
+
         Optional<Operation> lastOperation = getLastOperation(accountId);
 
         if (lastOperation.isPresent()) {
-            return lastOperation.get().getBalance();
+            return lastOperation.get().getBalanceMinorUnits();
         } else {
-            return 0d;
+            return 0L;
         }
     }
 
     private Optional<Operation> getLastOperation(String accountId) {
         return operationRepository.findLastOperationByAccountId(accountId);
     }
+
+    private static long toMinorUnits(Double amount) {
+        if (amount == null) {
+            throw new NullOrZeroAmountException();
+        }
+
+        return Money.toMinorUnits(amount);
+    }
+
+    private static OperationOutcome orThrow(OperationOutcome outcome) {
+        switch (outcome.getStatus()) {
+            case SUCCESS:
+                return outcome;
+            case ACCOUNT_NOT_FOUND:
+                throw new AccountNotFoundException();
+            case NULL_OR_ZERO_AMOUNT:
+                throw new NullOrZeroAmountException();
+            case NEGATIVE_AMOUNT:
+                throw new NegativeAmountException();
+            case INSUFFICIENT_BALANCE:
+                throw new InsufficientBalanceException();
+            case AMOUNT_OUT_OF_RANGE:
+                throw new AmountOutOfRangeException();
+            default:
+                throw new IllegalStateException("Unknown operation status " + outcome.getStatus());
+        }
+    }
+
+    private static Balance toBalance(OperationOutcome outcome) {
+        return Balance.builder()
+                .date(outcome.getDate())
+                .amountMinorUnits(outcome.getBalanceMinorUnits())
+                .build();
+    }
+
+    private static OperationResult failure(OperationRequest request, RuntimeException error) {
+        return OperationResult.builder().request(request).error(error).build();
+    }
+
+    private static Balance toBalance(Operation operation) {
+        return Balance.builder()
+                .date(operation.getDate())
+                .amountMinorUnits(operation.getBalanceMinorUnits())
+                .build();
+    }
 }
@@ -0,0 +1,146 @@
+package fr.bank.account.kata.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-version balances for snapshot reads across accounts without locks.
+ * <p>
+ * Each write publishes a new version of the account balance stamped with a global commit sequence; a snapshot
+ * reads, for every account, the newest version stamped at or before its own sequence. A version is linked
+ * before its sequence is drawn, so a snapshot either sees it or gets a sequence older than it, and the versions
+ * of a transfer share one sequence. Older versions are unlinked as soon as no open snapshot can need them.
+ * <p>
+ * Writers of an account must be serialized by the caller, as {@link AccountServiceImpl} does with its account
+ * locks. Readers never wait for writers except for the few instructions between linking a version and
+ * stamping it.
+ */
+class BalanceVersions {
+
+    static final long UNVERSIONED = Long.MIN_VALUE;
+
+    private static final long PENDING = -1L;
+
+    private static final long BASE = 0L;
+
+    private final ConcurrentMap<String, Version> heads = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong(BASE);
+
+    private final ConcurrentSkipListMap<Long, Integer> openSnapshots = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records the balance of the account before its first versioned write. Must be called before the write is
+     * saved, so a reader that finds no version yet can safely fall back to the stored balance.
+     */
+    void prepare(String accountId, long balance) {
+        if (!heads.containsKey(accountId)) {
+            heads.putIfAbsent(accountId, new Version(BASE, balance, null));
+        }
+    }
+
+    void publish(String accountId, long balance) {
+        final Version version = link(accountId, balance);
+
+        version.sequence = sequence.incrementAndGet();
+    }
+
+    void publish(String firstAccountId, long firstBalance, String secondAccountId, long secondBalance) {
+        final Version first = link(firstAccountId, firstBalance);
+        final Version second = link(secondAccountId, secondBalance);
+        final long committed = sequence.incrementAndGet();
+
+        first.sequence = committed;
+        second.sequence = committed;
+    }
+
+    /**
+     * Drops the versions of a deleted account. Open snapshots then read it as unversioned.
+     */
+    void forget(String accountId) {
+        heads.remove(accountId);
+    }
+
+    Snapshot open() {
+        final long reserved = sequence.get();
+
+        openSnapshots.merge(reserved, 1, Integer::sum);
+
+        return new Snapshot(reserved, sequence.get());
+    }
+
+    private Version link(String accountId, long balance) {
+        final Version head = heads.get(accountId);
+        final Version version = new Version(PENDING, balance, head);
+
+        heads.put(accountId, version);
+
+        if (head != null) {
+            final Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+            if (oldest == null || head.sequence <= oldest.getKey()) {
+                head.previous = null;
+            }
+        }
+
+        return version;
+    }
+
+    final class Snapshot implements AutoCloseable {
+
+        private final long reserved;
+
+        private final long sequence;
+
+        private Snapshot(long reserved, long sequence) {
+            this.reserved = reserved;
+            this.sequence = sequence;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Balance of the account as of the snapshot, or {@link #UNVERSIONED} when it was never written through
+         * {@link #prepare(String, long)}.
+         */
+        long balanceOf(String accountId) {
+            for (Version version = heads.get(accountId); version != null; version = version.previous) {
+                long stamped = version.sequence;
+                while (stamped == PENDING) {
+                    Thread.yield();
+                    stamped = version.sequence;
+                }
+
+                if (stamped <= sequence) {
+                    return version.balance;
+                }
+            }
+
+            return UNVERSIONED;
+        }
+
+        @Override
+        public void close() {
+            openSnapshots.computeIfPresent(reserved, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private static final class Version {
+
+        private final long balance;
+
+        private volatile long sequence;
+
+        private volatile Version previous;
+
+        Version(long sequence, long balance, Version previous) {
+            this.sequence = sequence;
+            this.balance = balance;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package fr.bank.account.kata.service.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.model.Money;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.AsyncAccountService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous front-end hashing each account onto one of N single-writer shards. A shard thread drains its
+ * queue in batches and applies consecutive movements through {@link AccountService#executeBatch(List)}, so
+ * callers never block on account locks. Reads bypass the queues and are served by the delegate directly.
+ * Shard results are handed to a completion executor, so callbacks chained on the futures never run on, and
+ * never stall, a shard thread. Once {@link #close()} is called, new commands fail with a
+ * {@link RejectedExecutionException}.
+ */
+public class ShardedAccountService implements AsyncAccountService, AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1_024;
+
+    private final AccountService accountService;
+
+    private final Shard[] shards;
+
+    private final AccountLocks routing;
+
+    private final Executor completionExecutor;
+
+    private volatile boolean closed;
+
+    public ShardedAccountService(AccountService accountService, int shardCount) {
+        this(accountService, shardCount, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public ShardedAccountService(AccountService accountService, int shardCount, int queueCapacity, int maxBatchSize) {
+        this(accountService, shardCount, queueCapacity, maxBatchSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts one shard thread per shard; {@code shardCount} is rounded up to a power of two, see
+     * {@link #getShardCount()}. Futures are completed on {@code completionExecutor}, or on the shard thread if
+     * it rejects the completion.
+     */
+    public ShardedAccountService(AccountService accountService, int shardCount, int queueCapacity, int maxBatchSize,
+                                 Executor completionExecutor) {
+        if (shardCount <= 0 || queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Shard count, queue capacity and batch size must be positive.");
+        }
+
+        this.accountService = accountService;
+        this.completionExecutor = completionExecutor;
+        this.routing = new AccountLocks(shardCount);
+        this.shards = new Shard[routing.size()];
+
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, queueCapacity, maxBatchSize);
+            shards[i].start();
+        }
+    }
+
+    /**
+     * Number of shard threads: the requested count rounded up to a power of two, so accounts are routed with a mask.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public CompletableFuture<Account> createAccount(String accountId) {
+        return submit(accountId, () -> accountService.createAccount(accountId));
+    }
+
+    @Override
+    public CompletableFuture<Balance> deposit(String accountId, Double amount) {
+        return submit(accountId, OperationType.CREDIT, amount);
+    }
+
+    @Override
+    public CompletableFuture<Balance> withdraw(String accountId, Double amount) {
+        return submit(accountId, OperationType.DEBIT, amount);
+    }
+
+    @Override
+    public CompletableFuture<Balance> withdrawAll(String accountId) {
+        return submit(accountId, () -> accountService.withdrawAll(accountId));
+    }
+
+    @Override
+    public CompletableFuture<List<Operation>> listOperations(String accountId) {
+        return read(() -> accountService.listOperations(accountId));
+    }
+
+    @Override
+    public CompletableFuture<Balance> getBalance(String accountId) {
+        return read(() -> accountService.getBalance(accountId));
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+
+        for (Shard shard : shards) {
+            shard.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.join();
+        }
+    }
+
+    private CompletableFuture<Balance> submit(String accountId, OperationType operationType, Double amount) {
+        final CompletableFuture<Balance> future = new CompletableFuture<>();
+        final long amountMinorUnits;
+
+        try {
+            amountMinorUnits = amount == null ? 0L : Money.toMinorUnits(amount);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        final OperationRequest request = OperationRequest.builder()
+                .accountId(accountId)
+                .operationType(operationType)
+                .amountMinorUnits(amountMinorUnits)
+                .build();
+
+        enqueue(accountId, new Command(request, null, future));
+
+        return future;
+    }
+
+    private <T> CompletableFuture<T> submit(String accountId, Supplier<T> action) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        enqueue(accountId, new Command(null, action, future));
+
+        return future;
+    }
+
+    /**
+     * Offers the command to the shard of the account. A command offered while {@link #close()} runs may land
+     * after the shard drained its queue, so it is taken back and failed unless the shard got it first.
+     */
+    private void enqueue(String accountId, Command command) {
+        if (closed) {
+            command.future.completeExceptionally(new RejectedExecutionException("Service closed."));
+            return;
+        }
+
+        final BlockingQueue<Command> queue = shards[routing.stripeOf(accountId)].queue;
+
+        if (!queue.offer(command)) {
+            command.future.completeExceptionally(new RejectedExecutionException("Shard queue full."));
+        } else if (closed && queue.remove(command)) {
+            command.future.completeExceptionally(new RejectedExecutionException("Service closed."));
+        }
+    }
+
+    private void complete(Command command, Object value, Throwable error) {
+        final Runnable completion = error == null
+                ? () -> command.future.complete(value)
+                : () -> command.future.completeExceptionally(error);
+
+        try {
+            completionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private static <T> CompletableFuture<T> read(Supplier<T> read) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            future.complete(read.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    private static final class Command {
+
+        private final OperationRequest request;
+
+        private final Supplier<?> action;
+
+        private final CompletableFuture<Object> future;
+
+        @SuppressWarnings("unchecked")
+        Command(OperationRequest request, Supplier<?> action, CompletableFuture<?> future) {
+            this.request = request;
+            this.action = action;
+            this.future = (CompletableFuture<Object>) future;
+        }
+    }
+
+    private final class Shard extends Thread {
+
+        private final BlockingQueue<Command> queue;
+
+        private final int maxBatchSize;
+
+        private final List<Command> drained;
+
+        private final List<Command> pending;
+
+        private final List<OperationRequest> requests;
+
+        Shard(int index, int queueCapacity, int maxBatchSize) {
+            super("account-shard-" + index);
+            setDaemon(true);
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.maxBatchSize = maxBatchSize;
+            this.drained = new ArrayList<>(maxBatchSize);
+            this.pending = new ArrayList<>(maxBatchSize);
+            this.requests = new ArrayList<>(maxBatchSize);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    drained.add(queue.take());
+                    queue.drainTo(drained, maxBatchSize - 1);
+                    process();
+                }
+            } catch (InterruptedException e) {
+                interrupt();
+            } finally {
+                drained.clear();
+                queue.drainTo(drained);
+                for (Command command : drained) {
+                    complete(command, null, new RejectedExecutionException("Shard stopped."));
+                }
+            }
+        }
+
+        private void process() {
+            for (Command command : drained) {
+                if (command.request != null) {
+                    pending.add(command);
+                    requests.add(command.request);
+                } else {
+                    flush();
+                    try {
+                        complete(command, command.action.get(), null);
+                    } catch (RuntimeException e) {
+                        complete(command, null, e);
+                    }
+                }
+            }
+
+            flush();
+            drained.clear();
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                final List<OperationResult> results = accountService.executeBatch(requests);
+                for (int i = 0; i < results.size(); i++) {
+                    final OperationResult result = results.get(i);
+                    complete(pending.get(i), result.getBalance(), result.getError());
+                }
+            } catch (RuntimeException e) {
+                for (Command command : pending) {
+                    complete(command, null, e);
+                }
+            } finally {
+                pending.clear();
+                requests.clear();
+            }
+        }
+    }
+}
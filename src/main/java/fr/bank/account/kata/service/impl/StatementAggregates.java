@@ -0,0 +1,162 @@
+package fr.bank.account.kata.service.impl;
+
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Per account credit and debit totals, operation counts and opening/closing balances for every day and month
+ * holding operations. They are updated as operations are written, so a summary costs one lookup per period
+ * instead of a scan of the history. Periods are calendar days and months in the configured zone.
+ * <p>
+ * Writers of an account must be serialized by the caller, as {@link AccountServiceImpl} does with its account
+ * locks; readers may run concurrently.
+ */
+public class StatementAggregates {
+
+    private final ConcurrentMap<String, AccountAggregates> accounts = new ConcurrentHashMap<>();
+
+    private final ZoneId zoneId;
+
+    public StatementAggregates() {
+        this(ZoneId.systemDefault());
+    }
+
+    public StatementAggregates(ZoneId zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Whether the account aggregates are up to date, i.e. every operation of the account went through
+     * {@link #record(Operation)} or {@link #rebuild(String, Stream)}.
+     */
+    public boolean tracks(String accountId) {
+        return accounts.containsKey(accountId);
+    }
+
+    /**
+     * Starts tracking an account without history, such as a newly created one.
+     */
+    public void track(String accountId) {
+        accounts.putIfAbsent(accountId, new AccountAggregates());
+    }
+
+    public void forget(String accountId) {
+        accounts.remove(accountId);
+    }
+
+    public void record(Operation operation) {
+        accounts.computeIfAbsent(operation.getAccount().getId(), accountId -> new AccountAggregates())
+                .record(operation, zoneId);
+    }
+
+    /**
+     * Replaces the account aggregates with ones computed from its whole history, oldest first.
+     */
+    public void rebuild(String accountId, Stream<Operation> history) {
+        final AccountAggregates rebuilt = new AccountAggregates();
+
+        history.forEach(operation -> rebuilt.record(operation, zoneId));
+        accounts.put(accountId, rebuilt);
+    }
+
+    /**
+     * One summary per period starting in {@code [from, to)}, periods without operations included.
+     */
+    public List<StatementSummary> summaries(String accountId, StatementPeriod period, LocalDate from, LocalDate to) {
+        final AccountAggregates aggregates = accounts.get(accountId);
+
+        return aggregates == null
+                ? new AccountAggregates().summaries(period, from, to)
+                : aggregates.summaries(period, from, to);
+    }
+
+    private static final class AccountAggregates {
+
+        private final Map<StatementPeriod, TreeMap<LocalDate, Totals>> periods = new EnumMap<>(StatementPeriod.class);
+
+        AccountAggregates() {
+            for (StatementPeriod period : StatementPeriod.values()) {
+                periods.put(period, new TreeMap<>());
+            }
+        }
+
+        synchronized void record(Operation operation, ZoneId zoneId) {
+            final LocalDate day = operation.getDate().atZoneSameInstant(zoneId).toLocalDate();
+
+            for (Map.Entry<StatementPeriod, TreeMap<LocalDate, Totals>> entry : periods.entrySet()) {
+                entry.getValue().computeIfAbsent(entry.getKey().startOf(day), start -> new Totals(operation))
+                        .add(operation);
+            }
+        }
+
+        synchronized List<StatementSummary> summaries(StatementPeriod period, LocalDate from, LocalDate to) {
+            final TreeMap<LocalDate, Totals> totals = periods.get(period);
+            final List<StatementSummary> summaries = new ArrayList<>();
+            LocalDate start = period.startOf(from);
+            final Map.Entry<LocalDate, Totals> previous = totals.lowerEntry(start);
+            long balance = previous == null ? 0L : previous.getValue().closing;
+
+            while (start.isBefore(to)) {
+                final LocalDate end = period.next(start);
+                final Totals current = totals.get(start);
+
+                summaries.add(StatementSummary.builder()
+                        .periodStart(start)
+                        .periodEnd(end)
+                        .totalCreditsMinorUnits(current == null ? 0L : current.credits)
+                        .totalDebitsMinorUnits(current == null ? 0L : current.debits)
+                        .operationCount(current == null ? 0 : current.count)
+                        .openingBalanceMinorUnits(current == null ? balance : current.opening)
+                        .closingBalanceMinorUnits(current == null ? balance : current.closing)
+                        .build());
+
+                balance = current == null ? balance : current.closing;
+                start = end;
+            }
+
+            return summaries;
+        }
+    }
+
+    private static final class Totals {
+
+        private final long opening;
+
+        private long closing;
+
+        private long credits;
+
+        private long debits;
+
+        private int count;
+
+        Totals(Operation first) {
+            this.opening = OperationType.CREDIT.equals(first.getOperationType())
+                    ? first.getBalanceMinorUnits() - first.getAmountMinorUnits()
+                    : first.getBalanceMinorUnits() + first.getAmountMinorUnits();
+        }
+
+        void add(Operation operation) {
+            if (OperationType.CREDIT.equals(operation.getOperationType())) {
+                credits += operation.getAmountMinorUnits();
+            } else {
+                debits += operation.getAmountMinorUnits();
+            }
+            closing = operation.getBalanceMinorUnits();
+            count++;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package fr.bank.account.kata.cluster;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.error.CrossNodeTransferException;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.journal.JournalAccountRepository;
+import fr.bank.account.kata.repository.journal.JournalOperationRepository;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@RunWith(JUnitPlatform.class)
+public class RoutingAccountServiceTest {
+
+    private static final int ACCOUNTS = 600;
+
+    private final Map<String, OperationRepository> operationRepositories = new HashMap<>();
+
+    private RoutingAccountService routingAccountService;
+
+    @BeforeEach
+    public void init() {
+        routingAccountService = new RoutingAccountService(Arrays.asList(node("node-1"), node("node-2"), node("node-3")));
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            routingAccountService.createAccount("account-" + i);
+            routingAccountService.depositMinorUnits("account-" + i, 1_000L + i);
+            routingAccountService.withdrawMinorUnits("account-" + i, 100L);
+        }
+    }
+
+    @Test
+    public void should_spread_accounts_over_nodes() {
+        //Given
+        final Map<String, Integer> accountsByNode = new HashMap<>();
+
+        //When
+        for (Node node : routingAccountService.getNodes()) {
+            accountsByNode.put(node.getId(), (int) node.accountIds().count());
+        }
+
+        //Then
+        Assertions.assertEquals(ACCOUNTS, accountsByNode.values().stream().mapToInt(Integer::intValue).sum());
+        accountsByNode.values().forEach(count -> Assertions.assertTrue(count > ACCOUNTS / 6, accountsByNode.toString()));
+    }
+
+    @Test
+    public void should_move_accounts_with_their_history_when_adding_node() {
+        //Given
+        final Node added = node("node-4");
+
+        //When
+        routingAccountService.addNode(added);
+
+        //Then
+        final long movedAccounts = added.accountIds().count();
+        Assertions.assertTrue(movedAccounts > ACCOUNTS / 8 && movedAccounts < ACCOUNTS / 2, "moved " + movedAccounts);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            final String accountId = "account-" + i;
+            Assertions.assertEquals(900L + i, routingAccountService.getBalanceMinorUnits(accountId));
+            Assertions.assertEquals(2, routingAccountService.listOperations(accountId).size());
+        }
+        added.accountIds().forEach(accountId -> Assertions.assertSame(added, routingAccountService.nodeOf(accountId)));
+        Assertions.assertEquals(1_000L, routingAccountService.depositMinorUnits("account-0", 100L));
+    }
+
+    @Test
+    public void should_delete_moved_accounts_from_their_former_node() {
+        //Given
+        final List<Node> formerNodes = routingAccountService.getNodes();
+        final Node added = node("node-4");
+
+        //When
+        routingAccountService.addNode(added);
+
+        //Then
+        Assertions.assertEquals(ACCOUNTS, routingAccountService.getNodes().stream().mapToLong(node -> node.accountIds().count()).sum());
+        for (Node node : formerNodes) {
+            node.accountIds().forEach(accountId -> Assertions.assertSame(node, routingAccountService.nodeOf(accountId)));
+        }
+        final Set<String> movedAccountIds = added.accountIds().collect(Collectors.toSet());
+        Assertions.assertFalse(movedAccountIds.isEmpty());
+        for (Node node : formerNodes) {
+            Assertions.assertTrue(operationRepositories.get(node.getId()).findAccountIds().noneMatch(movedAccountIds::contains));
+            movedAccountIds.forEach(accountId -> Assertions.assertThrows(AccountNotFoundException.class,
+                    () -> node.getAccountService().getBalanceMinorUnits(accountId)));
+        }
+    }
+
+    @Test
+    public void should_keep_serving_operations_while_rebalancing() throws Exception {
+        //Given
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //When
+        final Future<?> deposits = executor.submit(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    routingAccountService.depositMinorUnits("account-" + i, 1L);
+                }
+            }
+        });
+        final Future<?> creations = executor.submit(() -> {
+            for (int i = ACCOUNTS; i < 2 * ACCOUNTS; i++) {
+                routingAccountService.createAccount("account-" + i);
+                routingAccountService.depositMinorUnits("account-" + i, 5L);
+            }
+        });
+        routingAccountService.addNode(node("node-4"));
+        deposits.get();
+        creations.get();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        //Then
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Assertions.assertEquals(920L + i, routingAccountService.getBalanceMinorUnits("account-" + i));
+        }
+        for (int i = ACCOUNTS; i < 2 * ACCOUNTS; i++) {
+            Assertions.assertEquals(5L, routingAccountService.getBalanceMinorUnits("account-" + i));
+        }
+    }
+
+    @Test
+    public void should_rebalance_journal_nodes() throws IOException {
+        //Given
+        final Path directory = Files.createTempDirectory("cluster");
+        try {
+            final RoutingAccountService journalService = new RoutingAccountService(
+                    Arrays.asList(journalNode(directory, "node-1"), journalNode(directory, "node-2")));
+            for (int i = 0; i < ACCOUNTS; i++) {
+                journalService.createAccount("account-" + i);
+                journalService.depositMinorUnits("account-" + i, 1_000L + i);
+            }
+
+            //When
+            journalService.addNode(journalNode(directory, "node-3"));
+
+            //Then
+            Assertions.assertEquals(ACCOUNTS, journalService.getNodes().stream().mapToLong(node -> node.accountIds().count()).sum());
+            for (int i = 0; i < ACCOUNTS; i++) {
+                Assertions.assertEquals(1_000L + i, journalService.getBalanceMinorUnits("account-" + i));
+            }
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Test
+    public void should_reject_null_account_id_as_unknown_account() {
+        //Given
+        routingAccountService.addNode(node("node-4"));
+
+        //Then
+        Assertions.assertSame(routingAccountService.getNodes().get(0), routingAccountService.nodeOf(null));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> routingAccountService.getBalanceMinorUnits(null));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> routingAccountService.depositMinorUnits(null, 100L));
+    }
+
+    @Test
+    public void should_refuse_transfer_between_nodes() {
+        //Given
+        String other = null;
+        for (int i = 1; other == null; i++) {
+            if (routingAccountService.nodeOf("account-" + i) != routingAccountService.nodeOf("account-0")) {
+                other = "account-" + i;
+            }
+        }
+        final String toAccountId = other;
+
+        //Then
+        Assertions.assertThrows(CrossNodeTransferException.class,
+                () -> routingAccountService.transferMinorUnits("account-0", toAccountId, 100L));
+        Assertions.assertEquals(900L, routingAccountService.getBalanceMinorUnits("account-0"));
+    }
+
+    private static Node journalNode(Path directory, String id) {
+        final JournalAccountRepository accountRepository = new JournalAccountRepository(directory.resolve(id), false);
+
+        return new LocalNode(id, accountRepository, new JournalOperationRepository(directory.resolve(id),
+                accountRepository, false, 1 << 10));
+    }
+
+    private Node node(String id) {
+        final OperationRepository operationRepository = new ColumnarOperationRepository();
+
+        operationRepositories.put(id, operationRepository);
+
+        return new LocalNode(id, new InMemoryAccountRepository(), operationRepository);
+    }
+}
@@ -0,0 +1,173 @@
+package fr.bank.account.kata.export;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(JUnitPlatform.class)
+public class OperationExportTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2021, 1, 1, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private Path file;
+
+    private AccountRepository accountRepository;
+
+    private OperationRepository operationRepository;
+
+    @BeforeEach
+    public void init() throws IOException {
+        file = Files.createTempFile("operations", ".bin");
+        accountRepository = new InMemoryAccountRepository();
+        operationRepository = new InMemoryOperationRepository();
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void should_import_exactly_what_was_exported() {
+        //Given
+        final int accounts = 3_000;
+        for (int i = 0; i < accounts; i++) {
+            final Account account = accountRepository.save(Account.builder().id("account-" + i).build());
+            long balance = 0L;
+            for (int day = 0; day < 10; day++) {
+                final long amount = 1L + (i * 31L + day) % 5_000;
+                final boolean credit = day % 3 != 2;
+                balance += credit ? amount : -Math.min(amount, balance);
+                operationRepository.save(Operation.builder().account(account)
+                        .operationType(credit ? OperationType.CREDIT : OperationType.DEBIT)
+                        .amountMinorUnits(credit ? amount : Math.min(amount, balance + amount))
+                        .balanceMinorUnits(balance)
+                        .date(START.plusDays(day).plusNanos(i).withOffsetSameInstant(ZoneOffset.ofHours(day % 2)))
+                        .build());
+            }
+        }
+        accountRepository.save(Account.builder().id("no-history").build());
+        operationRepository.save(Operation.builder().account(Account.builder().id("account-1").build())
+                .counterparty(Account.builder().id("account-2").build()).operationType(OperationType.CREDIT)
+                .amountMinorUnits(7L).balanceMinorUnits(123_456L).date(START.plusYears(1)).build());
+
+        //When
+        final long exported = new OperationExporter(accountRepository, operationRepository).exportTo(file);
+        final AccountRepository importedAccounts = new InMemoryAccountRepository();
+        final OperationRepository importedOperations = new ColumnarOperationRepository();
+        final long imported = new OperationImporter(importedAccounts, importedOperations, 4).importFrom(file);
+
+        //Then
+        Assertions.assertEquals(accounts * 10 + 1, exported);
+        Assertions.assertEquals(exported, imported);
+        Assertions.assertTrue(importedAccounts.existsAccountById("no-history"));
+        for (int i = 0; i < accounts; i++) {
+            Assertions.assertEquals(describe(operationRepository.finOperationsdByAccountId("account-" + i)),
+                    describe(importedOperations.finOperationsdByAccountId("account-" + i)));
+        }
+        Assertions.assertEquals("account-2", importedOperations.findLastOperationByAccountId("account-1").get()
+                .getCounterparty().getId());
+    }
+
+    @Test
+    public void should_encode_operations_in_a_few_bytes() throws IOException {
+        //Given
+        final Account account = accountRepository.save(Account.builder().id("compact").build());
+        for (int i = 0; i < 10_000; i++) {
+            operationRepository.save(Operation.builder().account(account).operationType(OperationType.CREDIT)
+                    .amountMinorUnits(1_000L).balanceMinorUnits(1_000L * (i + 1)).date(START.plusSeconds(i)).build());
+        }
+
+        //When
+        new OperationExporter(accountRepository, operationRepository).exportTo(file);
+
+        //Then
+        Assertions.assertTrue(Files.size(file) <= 10_000 * 11, "export size " + Files.size(file));
+    }
+
+    @Test
+    public void should_export_selected_accounts_referencing_the_others() {
+        //Given
+        final Account kept = accountRepository.save(Account.builder().id("kept").build());
+        final Account left = accountRepository.save(Account.builder().id("left").build());
+        operationRepository.save(Operation.builder().account(left).operationType(OperationType.CREDIT)
+                .amountMinorUnits(500L).balanceMinorUnits(500L).date(START).build());
+        operationRepository.save(Operation.builder().account(kept).counterparty(left).operationType(OperationType.CREDIT)
+                .amountMinorUnits(200L).balanceMinorUnits(200L).date(START.plusHours(1)).build());
+
+        //When
+        final ByteArrayOutputStream export = new ByteArrayOutputStream();
+        final long exported = new OperationExporter(accountRepository, operationRepository)
+                .exportTo(Channels.newChannel(export), "kept"::equals);
+        final AccountRepository importedAccounts = new InMemoryAccountRepository();
+        final OperationRepository importedOperations = new InMemoryOperationRepository();
+        new OperationImporter(importedAccounts, importedOperations)
+                .importFrom(Channels.newChannel(new ByteArrayInputStream(export.toByteArray())));
+
+        //Then
+        Assertions.assertEquals(1, exported);
+        Assertions.assertTrue(importedAccounts.existsAccountById("kept"));
+        Assertions.assertFalse(importedAccounts.existsAccountById("left"));
+        Assertions.assertEquals("left", importedOperations.findLastOperationByAccountId("kept").get()
+                .getCounterparty().getId());
+    }
+
+    @Test
+    public void should_export_listed_accounts_skipping_unknown_ids() {
+        //Given
+        final Account listed = accountRepository.save(Account.builder().id("listed").build());
+        final Account other = accountRepository.save(Account.builder().id("other").build());
+        operationRepository.save(Operation.builder().account(listed).operationType(OperationType.CREDIT)
+                .amountMinorUnits(300L).balanceMinorUnits(300L).date(START).build());
+        operationRepository.save(Operation.builder().account(other).operationType(OperationType.CREDIT)
+                .amountMinorUnits(100L).balanceMinorUnits(100L).date(START).build());
+
+        //When
+        final ByteArrayOutputStream export = new ByteArrayOutputStream();
+        final long exported = new OperationExporter(accountRepository, operationRepository)
+                .exportTo(Channels.newChannel(export), Arrays.asList("listed", "unknown"));
+        final AccountRepository importedAccounts = new InMemoryAccountRepository();
+        final OperationRepository importedOperations = new InMemoryOperationRepository();
+        new OperationImporter(importedAccounts, importedOperations)
+                .importFrom(Channels.newChannel(new ByteArrayInputStream(export.toByteArray())));
+
+        //Then
+        Assertions.assertEquals(1, exported);
+        Assertions.assertTrue(importedAccounts.existsAccountById("listed"));
+        Assertions.assertFalse(importedAccounts.existsAccountById("other"));
+        Assertions.assertFalse(importedAccounts.existsAccountById("unknown"));
+        Assertions.assertEquals(300L, importedOperations.findLastOperationByAccountId("listed").get()
+                .getBalanceMinorUnits());
+    }
+
+    private static List<String> describe(List<Operation> operations) {
+        return operations.stream()
+                .map(operation -> operation.getOperationType() + " " + operation.getAmountMinorUnits() + " "
+                        + operation.getBalanceMinorUnits() + " " + operation.getDate().toInstant() + " "
+                        + (operation.getCounterparty() == null ? null : operation.getCounterparty().getId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,217 @@
+package fr.bank.account.kata.feed;
+
+import fr.bank.account.kata.error.FeedOverrunException;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@RunWith(JUnitPlatform.class)
+public class OperationFeedTest {
+
+    @Test
+    public void should_deliver_committed_operations_in_batches_within_demand() {
+        //Given
+        final OperationFeed feed = new OperationFeed(64, 4, Runnable::run);
+        final AccountService accountService = accountService(feed);
+        accountService.createAccount("account");
+        final RecordingSubscriber subscriber = new RecordingSubscriber(6);
+        feed.subscribe(subscriber);
+
+        //When
+        for (int i = 1; i <= 10; i++) {
+            accountService.depositMinorUnits("account", 100L * i);
+        }
+        accountService.tryWithdraw("account", 100_000L);
+
+        //Then
+        Assertions.assertEquals(6, subscriber.entries.size());
+        Assertions.assertTrue(subscriber.batchSizes.stream().allMatch(size -> size > 0 && size <= 4));
+        Assertions.assertEquals(100L, subscriber.entries.get(0).getOperation().getAmountMinorUnits());
+        Assertions.assertEquals(600L, subscriber.entries.get(5).getOperation().getAmountMinorUnits());
+
+        //When
+        subscriber.subscription.request(10);
+
+        //Then
+        Assertions.assertEquals(10, subscriber.entries.size());
+        Assertions.assertEquals(sequences(0, 10), subscriber.sequences());
+        Assertions.assertEquals(10L, feed.getSequence());
+    }
+
+    @Test
+    public void should_resume_from_sequence_and_complete_when_closed() {
+        //Given
+        final OperationFeed feed = new OperationFeed(64, 16, Runnable::run);
+        final AccountService accountService = accountService(feed);
+        accountService.createAccount("from");
+        accountService.createAccount("to");
+        accountService.depositMinorUnits("from", 1_000L);
+        accountService.transferMinorUnits("from", "to", 400L);
+        accountService.depositMinorUnits("to", 1L);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        //When
+        feed.subscribe(subscriber, 1L);
+        feed.close();
+
+        //Then
+        Assertions.assertEquals(sequences(1, 4), subscriber.sequences());
+        Assertions.assertEquals("from", subscriber.entries.get(0).getOperation().getAccount().getId());
+        Assertions.assertEquals("to", subscriber.entries.get(1).getOperation().getAccount().getId());
+        Assertions.assertTrue(subscriber.completed);
+        Assertions.assertEquals(4L, subscriber.subscription.getSequence());
+    }
+
+    @Test
+    public void should_not_slow_producers_and_report_overrun_to_slow_subscriber() {
+        //Given
+        final OperationFeed feed = new OperationFeed(8, 8, Runnable::run);
+        final AccountService accountService = accountService(feed);
+        accountService.createAccount("account");
+        final RecordingSubscriber slow = new RecordingSubscriber(1);
+        feed.subscribe(slow);
+
+        //When
+        for (int i = 0; i < 20; i++) {
+            accountService.depositMinorUnits("account", 1L);
+        }
+        slow.subscription.request(5);
+
+        //Then
+        Assertions.assertEquals(20L, accountService.getBalanceMinorUnits("account"));
+        Assertions.assertEquals(sequences(0, 1), slow.sequences());
+        Assertions.assertTrue(slow.error instanceof FeedOverrunException);
+        Assertions.assertEquals(1L, ((FeedOverrunException) slow.error).getSequence());
+
+        //When
+        final RecordingSubscriber resumed = new RecordingSubscriber(Long.MAX_VALUE);
+        feed.subscribe(resumed, feed.getSequence() - 8);
+
+        //Then
+        Assertions.assertEquals(sequences(12, 20), resumed.sequences());
+    }
+
+    @Test
+    public void should_deliver_every_account_history_in_order_while_concurrent_deposits() throws Exception {
+        //Given
+        final ExecutorService deliveries = Executors.newSingleThreadExecutor();
+        final OperationFeed feed = new OperationFeed(1 << 16, 64, deliveries);
+        final AccountService accountService = accountService(feed);
+        final int accounts = 8;
+        final int deposits = 2_000;
+        for (int i = 0; i < accounts; i++) {
+            accountService.createAccount("account-" + i);
+        }
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        feed.subscribe(subscriber);
+        final ExecutorService executor = Executors.newFixedThreadPool(accounts);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        //When
+        for (int i = 0; i < accounts; i++) {
+            final String accountId = "account-" + i;
+            futures.add(executor.submit(() -> {
+                for (int d = 0; d < deposits; d++) {
+                    accountService.depositMinorUnits(accountId, 1L);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        feed.close();
+
+        //Then
+        Assertions.assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        deliveries.shutdown();
+        Assertions.assertEquals(sequences(0, accounts * deposits), subscriber.sequences());
+        final Map<String, Long> lastBalances = new HashMap<>();
+        for (FeedEntry entry : subscriber.entries) {
+            final Operation operation = entry.getOperation();
+            final long previous = lastBalances.getOrDefault(operation.getAccount().getId(), 0L);
+            Assertions.assertEquals(previous + 1L, operation.getBalanceMinorUnits());
+            lastBalances.put(operation.getAccount().getId(), operation.getBalanceMinorUnits());
+        }
+    }
+
+    private static AccountService accountService(OperationFeed feed) {
+        return new AccountServiceImpl(new InMemoryAccountRepository(),
+                new FeedOperationRepository(new InMemoryOperationRepository(), feed));
+    }
+
+    private static List<Long> sequences(long from, long to) {
+        final List<Long> sequences = new ArrayList<>();
+        for (long sequence = from; sequence < to; sequence++) {
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+
+    private static final class RecordingSubscriber implements FeedSubscriber {
+
+        private final long initialDemand;
+
+        private final List<FeedEntry> entries = new CopyOnWriteArrayList<>();
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile FeedSubscription subscription;
+
+        private volatile Throwable error;
+
+        private volatile boolean completed;
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(FeedSubscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(List<FeedEntry> entries) {
+            batchSizes.add(entries.size());
+            this.entries.addAll(entries);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        private List<Long> sequences() {
+            return entries.stream().map(FeedEntry::getSequence).collect(Collectors.toList());
+        }
+    }
+}
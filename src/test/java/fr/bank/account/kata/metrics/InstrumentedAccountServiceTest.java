@@ -0,0 +1,87 @@
+package fr.bank.account.kata.metrics;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.error.InsufficientBalanceException;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+@RunWith(JUnitPlatform.class)
+public class InstrumentedAccountServiceTest {
+
+    private MetricsRegistry registry;
+
+    private AccountService accountService;
+
+    @BeforeEach
+    public void init() {
+        registry = new MetricsRegistry();
+        accountService = new InstrumentedAccountService(new AccountServiceImpl(
+                new InstrumentedAccountRepository(new InMemoryAccountRepository(), registry),
+                new InstrumentedOperationRepository(new InMemoryOperationRepository(), registry)), registry, true);
+    }
+
+    @Test
+    public void should_record_latencies_and_exceptions_per_method() {
+        //Given
+        accountService.createAccount("account");
+
+        //When
+        for (int i = 0; i < 100; i++) {
+            accountService.deposit("account", 10d);
+        }
+        Assertions.assertThrows(InsufficientBalanceException.class, () -> accountService.withdraw("account", 5_000d));
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.getBalance("unknown"));
+        Assertions.assertFalse(accountService.tryWithdraw("account", 500_000L).isSuccess());
+        accountService.executeBatch(Arrays.asList(
+                OperationRequest.builder().accountId("unknown").operationType(OperationType.CREDIT).amount(1d).build(),
+                OperationRequest.builder().accountId("account").operationType(OperationType.DEBIT).amount(1d).build()));
+
+        //Then
+        final MetricsSnapshot snapshot = registry.snapshot();
+        final LatencySnapshot deposit = snapshot.latency("AccountService.deposit");
+
+        Assertions.assertEquals(100, deposit.getCount());
+        Assertions.assertTrue(deposit.getP50Nanos() > 0);
+        Assertions.assertTrue(deposit.getP50Nanos() <= deposit.getP99Nanos());
+        Assertions.assertTrue(deposit.getP99Nanos() <= deposit.getP999Nanos());
+        Assertions.assertTrue(deposit.getP999Nanos() <= deposit.getMaxNanos());
+        Assertions.assertEquals(1, snapshot.latency("AccountService.withdraw").getCount());
+        Assertions.assertEquals(1, snapshot.counter("AccountService.exceptions.InsufficientBalanceException"));
+        Assertions.assertEquals(2, snapshot.counter("AccountService.exceptions.AccountNotFoundException"));
+        Assertions.assertEquals(0, snapshot.counter("AccountService.exceptions.NullOrZeroAmountException"));
+        Assertions.assertEquals(1, snapshot.counter("AccountService.rejections.INSUFFICIENT_BALANCE"));
+        Assertions.assertEquals(1, snapshot.latency("AccountService.tryWithdraw").getCount());
+        Assertions.assertTrue(snapshot.latency("OperationRepository.save").getCount() >= 100);
+        Assertions.assertEquals(1, snapshot.latency("AccountRepository.saveAllIfAbsent").getCount());
+    }
+
+    @Test
+    public void should_compute_percentiles_within_bucket_precision() {
+        //Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        //When
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+            histogram.record(nanos * 1_000);
+        }
+
+        //Then
+        final LatencySnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(10_000, snapshot.getCount());
+        Assertions.assertEquals(5_000_000d, snapshot.getP50Nanos(), 5_000_000d * 0.07d);
+        Assertions.assertEquals(9_900_000d, snapshot.getP99Nanos(), 9_900_000d * 0.07d);
+        Assertions.assertEquals(9_990_000d, snapshot.getP999Nanos(), 9_990_000d * 0.07d);
+        Assertions.assertEquals(5_000_500d, snapshot.getMeanNanos(), 1d);
+    }
+}
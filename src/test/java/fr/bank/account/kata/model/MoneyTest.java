@@ -0,0 +1,45 @@
+package fr.bank.account.kata.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+
+@RunWith(JUnitPlatform.class)
+public class MoneyTest {
+
+    @Test
+    public void should_convert_decimal_amounts_to_exact_minor_units() {
+        Assertions.assertEquals(29L, Money.toMinorUnits(0.29d));
+        Assertions.assertEquals(1_000_010L, Money.toMinorUnits(10_000.10d));
+        Assertions.assertEquals(-150L, Money.toMinorUnits(-1.5d));
+        Assertions.assertEquals(1234L, Money.of(new BigDecimal("12.34")).getMinorUnits());
+    }
+
+    @Test
+    public void should_not_drift_after_long_chains_of_operations() {
+        //Given
+        Money balance = Money.ZERO;
+        double drifting = 0d;
+
+        //When
+        for (int i = 0; i < 100_000; i++) {
+            balance = balance.plus(Money.of(0.1d));
+            drifting += 0.1d;
+        }
+
+        //Then
+        Assertions.assertEquals("10000.00", balance.toString());
+        Assertions.assertEquals(10_000d, balance.toDouble());
+        Assertions.assertNotEquals(10_000d, drifting);
+    }
+
+    @Test
+    public void should_fail_when_amount_out_of_range() {
+        Assertions.assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(Double.NaN));
+        Assertions.assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(1e300));
+        Assertions.assertThrows(ArithmeticException.class, () -> Money.ofMinorUnits(Long.MAX_VALUE).plus(Money.ofMinorUnits(1L)));
+    }
+}
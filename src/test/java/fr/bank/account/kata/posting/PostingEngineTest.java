@@ -0,0 +1,181 @@
+package fr.bank.account.kata.posting;
+
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(JUnitPlatform.class)
+public class PostingEngineTest {
+
+    private static final int ACCOUNTS = 5_000;
+
+    private AccountRepository accountRepository;
+
+    private AccountService accountService;
+
+    private Path directory;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("posting");
+        accountRepository = new InMemoryAccountRepository();
+        accountService = new AccountServiceImpl(accountRepository, new ColumnarOperationRepository());
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount("account-" + i);
+            if (i % 5 != 0) {
+                accountService.depositMinorUnits("account-" + i, 1_000L * i);
+            }
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void should_post_interest_on_every_positive_balance_in_parallel() {
+        //Given
+        final PostingEngine engine = new PostingEngine(accountService, accountRepository,
+                new InMemoryPostingCheckpoints(), 16, 100, 4);
+
+        //When
+        final PostingReport report = engine.run("interest-2021-01-31", PostingRule.interest(new BigDecimal("0.0125")));
+
+        //Then
+        Assertions.assertTrue(report.isComplete());
+        Assertions.assertEquals(ACCOUNTS, report.getProcessedAccounts());
+        Assertions.assertEquals(ACCOUNTS - ACCOUNTS / 5, report.getPostedOperations());
+        Assertions.assertEquals(ACCOUNTS / 5, report.getSkippedAccounts());
+        Assertions.assertEquals(0L, report.getRejectedOperations());
+        Assertions.assertTrue(report.getThroughput() > 0d);
+        Assertions.assertEquals(report.getProcessedAccounts(), engine.getProgress().getProcessedAccounts());
+        Assertions.assertEquals(1_000L * 7 + 88L, accountService.getBalanceMinorUnits("account-7"));
+        Assertions.assertEquals(0L, accountService.getBalanceMinorUnits("account-5"));
+        Assertions.assertEquals(2, accountService.listOperations("account-4999").size());
+    }
+
+    @Test
+    public void should_apply_insufficient_funds_policy_of_fee() {
+        //Given
+        final PostingEngine engine = new PostingEngine(accountService, accountRepository,
+                new InMemoryPostingCheckpoints(), 8, 64, 2);
+
+        //When
+        final PostingReport skipped = engine.run("skip", PostingRule.flatFee(2_500L, InsufficientFundsPolicy.SKIP));
+
+        //Then
+        Assertions.assertEquals(ACCOUNTS - ACCOUNTS / 5 - 2, skipped.getPostedOperations());
+        Assertions.assertEquals(ACCOUNTS / 5 + 2, skipped.getSkippedAccounts());
+        Assertions.assertEquals(1_000L, accountService.getBalanceMinorUnits("account-1"));
+        Assertions.assertEquals(500L, accountService.getBalanceMinorUnits("account-3"));
+
+        //When
+        final PostingReport rejected = engine.run("reject", PostingRule.flatFee(1L, InsufficientFundsPolicy.REJECT));
+        final PostingReport partial = engine.run("partial", PostingRule.flatFee(10_000L, InsufficientFundsPolicy.PARTIAL));
+
+        //Then
+        Assertions.assertEquals(ACCOUNTS / 5, rejected.getRejectedOperations());
+        Assertions.assertEquals(ACCOUNTS - ACCOUNTS / 5, partial.getPostedOperations());
+        Assertions.assertEquals(0L, accountService.getBalanceMinorUnits("account-3"));
+        Assertions.assertEquals(OperationType.DEBIT,
+                accountService.listOperations("account-3").get(3).getOperationType());
+        Assertions.assertEquals(499L, accountService.listOperations("account-3").get(3).getAmountMinorUnits());
+    }
+
+    @Test
+    public void should_resume_from_checkpoints_without_posting_twice() {
+        //Given
+        final AtomicBoolean crash = new AtomicBoolean(true);
+        final PostingRule fee = PostingRule.flatFee(1L, InsufficientFundsPolicy.SKIP);
+        final PostingRule crashing = (accountId, balance) -> {
+            if (crash.get() && accountId.endsWith("77")) {
+                throw new IllegalStateException("Crash on " + accountId);
+            }
+            return fee.apply(accountId, balance);
+        };
+
+        //When
+        Assertions.assertThrows(IllegalStateException.class, () -> new PostingEngine(accountService,
+                accountRepository, new FilePostingCheckpoints(directory), 16, 10, 4).run("fees", crashing));
+        crash.set(false);
+        final PostingEngine restarted = new PostingEngine(accountService, accountRepository,
+                new FilePostingCheckpoints(directory), 16, 10, 4);
+        final PostingReport report = restarted.run("fees", crashing);
+
+        //Then
+        Assertions.assertTrue(report.isComplete());
+        Assertions.assertTrue(report.getResumedAccounts() > 0L);
+        Assertions.assertEquals(ACCOUNTS, report.getProcessedAccounts());
+        for (int i = 1; i < ACCOUNTS; i++) {
+            if (i % 5 != 0) {
+                Assertions.assertEquals(1_000L * i - 1L, accountService.getBalanceMinorUnits("account-" + i));
+                Assertions.assertEquals(2, accountService.listOperations("account-" + i).size());
+            }
+        }
+        Assertions.assertEquals(0L, restarted.run("fees", crashing).getPostedOperations());
+    }
+
+    @Test
+    public void should_not_post_twice_chunk_posted_before_its_checkpoint() {
+        //Given
+        final AtomicBoolean crash = new AtomicBoolean(true);
+        final PostingCheckpoints checkpoints = new FilePostingCheckpoints(directory) {
+            @Override
+            public void save(String runId, int partition, String lastAccountId) {
+                if (crash.get() && pendingIntent(runId, partition) != null && lastAccountId.endsWith("7")) {
+                    throw new IllegalStateException("Crash before checkpoint of " + lastAccountId);
+                }
+                super.save(runId, partition, lastAccountId);
+            }
+        };
+        final PostingRule fee = PostingRule.flatFee(1L, InsufficientFundsPolicy.SKIP);
+
+        //When
+        Assertions.assertThrows(IllegalStateException.class, () -> new PostingEngine(accountService,
+                accountRepository, checkpoints, 16, 10, 4).run("fees", fee));
+        crash.set(false);
+        final PostingReport report = new PostingEngine(accountService, accountRepository,
+                new FilePostingCheckpoints(directory), 16, 10, 4).run("fees", fee);
+
+        //Then
+        Assertions.assertTrue(report.isComplete());
+        Assertions.assertEquals(ACCOUNTS, report.getProcessedAccounts());
+        for (int i = 1; i < ACCOUNTS; i++) {
+            if (i % 5 != 0) {
+                Assertions.assertEquals(1_000L * i - 1L, accountService.getBalanceMinorUnits("account-" + i));
+                Assertions.assertEquals(2, accountService.listOperations("account-" + i).size());
+            }
+        }
+    }
+
+    @Test
+    public void should_refuse_to_resume_run_with_another_partition_count() {
+        //Given
+        final PostingCheckpoints checkpoints = new FilePostingCheckpoints(directory);
+        final PostingRule fee = PostingRule.flatFee(1L, InsufficientFundsPolicy.SKIP);
+        new PostingEngine(accountService, accountRepository, checkpoints, 16, 10, 4).run("fees", fee);
+
+        //Then
+        final IllegalStateException failure = Assertions.assertThrows(IllegalStateException.class,
+                () -> new PostingEngine(accountService, accountRepository, checkpoints, 8, 10, 4).run("fees", fee));
+        Assertions.assertEquals("Run fees was started with 16 partitions, not 8.", failure.getMessage());
+    }
+}
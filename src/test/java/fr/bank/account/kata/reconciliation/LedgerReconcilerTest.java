@@ -0,0 +1,130 @@
+package fr.bank.account.kata.reconciliation;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.ColumnarOperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RunWith(JUnitPlatform.class)
+public class LedgerReconcilerTest {
+
+    private static final int ACCOUNTS = 2_000;
+
+    private AccountRepository accountRepository;
+
+    private OperationRepository operationRepository;
+
+    @BeforeEach
+    public void init() {
+        accountRepository = new InMemoryAccountRepository();
+        operationRepository = new ColumnarOperationRepository();
+        final AccountService accountService = new AccountServiceImpl(accountRepository, operationRepository);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.createAccount("account-" + i);
+            accountService.depositMinorUnits("account-" + i, 10_000L + i);
+            accountService.withdrawMinorUnits("account-" + i, 1_000L);
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountService.transferMinorUnits("account-" + i, "account-" + (i + 1) % ACCOUNTS, 500L);
+        }
+    }
+
+    @Test
+    public void should_find_consistent_ledger() {
+        //When
+        final ReconciliationReport report = new LedgerReconciler(accountRepository, operationRepository, 4, 10, 16)
+                .reconcile();
+
+        //Then
+        Assertions.assertTrue(report.isConsistent(), report.toString());
+        Assertions.assertEquals(ACCOUNTS, report.getAccounts());
+        Assertions.assertEquals(4L * ACCOUNTS, report.getOperations());
+        Assertions.assertTrue(report.getIssues().isEmpty());
+    }
+
+    @Test
+    public void should_fail_clearly_when_operation_repository_cannot_list_its_accounts() {
+        //Given
+        final OperationRepository unlisted = Mockito.mock(OperationRepository.class, Mockito.CALLS_REAL_METHODS);
+
+        //When
+        final IllegalStateException failure = Assertions.assertThrows(IllegalStateException.class,
+                () -> new LedgerReconciler(accountRepository, unlisted, 4, 10, 16).reconcile());
+
+        //Then
+        Assertions.assertTrue(failure.getMessage().startsWith("Cannot reconcile"), failure.getMessage());
+        Assertions.assertTrue(failure.getCause() instanceof UnsupportedOperationException);
+    }
+
+    @Test
+    public void should_report_broken_chains_negative_balances_and_orphans() {
+        //Given
+        final Account account = accountRepository.getAccountById("account-7").get();
+        final long balance = operationRepository.findLastOperationByAccountId("account-7").get().getBalanceMinorUnits();
+        operationRepository.save(operation(account, null, OperationType.CREDIT, 100L, balance + 101L));
+        operationRepository.save(operation(account, null, OperationType.DEBIT, balance + 200L, -99L));
+        operationRepository.save(operation(account, Account.builder().id("closed").build(), OperationType.CREDIT,
+                99L, 0L));
+        operationRepository.save(operation(Account.builder().id("ghost").build(), null, OperationType.CREDIT,
+                5L, 5L));
+
+        //When
+        final ReconciliationReport report = new LedgerReconciler(accountRepository, operationRepository, 4, 10, 16)
+                .reconcile();
+
+        //Then
+        Assertions.assertFalse(report.isConsistent());
+        Assertions.assertEquals(ACCOUNTS + 1, report.getAccounts());
+        Assertions.assertEquals(1L, report.getBrokenChains());
+        Assertions.assertEquals(1L, report.getNegativeBalances());
+        Assertions.assertEquals(2L, report.getOrphanOperations());
+        final Set<LedgerIssueType> types = report.getIssues().stream().map(LedgerIssue::getType)
+                .collect(Collectors.toSet());
+        Assertions.assertEquals(EnumSet.allOf(LedgerIssueType.class), types);
+        final LedgerIssue broken = report.getIssues().stream()
+                .filter(issue -> issue.getType() == LedgerIssueType.BROKEN_CHAIN).findFirst().get();
+        Assertions.assertEquals("account-7", broken.getAccountId());
+        Assertions.assertEquals(balance + 100L, broken.getExpectedBalanceMinorUnits());
+        Assertions.assertEquals(balance + 101L, broken.getActualBalanceMinorUnits());
+    }
+
+    @Test
+    public void should_count_every_issue_but_keep_a_bounded_number() {
+        //Given
+        for (int i = 0; i < ACCOUNTS; i++) {
+            operationRepository.save(operation(accountRepository.getAccountById("account-" + i).get(), null,
+                    OperationType.CREDIT, 1L, 0L));
+        }
+
+        //When
+        final ReconciliationReport report = new LedgerReconciler(accountRepository, operationRepository, 4, 10, 16)
+                .reconcile();
+
+        //Then
+        Assertions.assertEquals(ACCOUNTS, report.getBrokenChains());
+        Assertions.assertEquals(10, report.getIssues().size());
+    }
+
+    private static Operation operation(Account account, Account counterparty, OperationType operationType,
+                                       long amount, long balance) {
+        return Operation.builder().account(account).counterparty(counterparty).operationType(operationType)
+                .amountMinorUnits(amount).balanceMinorUnits(balance).date(OffsetDateTime.now()).build();
+    }
+}
@@ -0,0 +1,116 @@
+package fr.bank.account.kata.repository.cache;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.AccountService;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+@RunWith(JUnitPlatform.class)
+public class CachingRepositoryTest {
+
+    private AccountRepository backingAccounts;
+
+    private OperationRepository backingOperations;
+
+    private CachingAccountRepository accountRepository;
+
+    private CachingOperationRepository operationRepository;
+
+    private AccountService accountService;
+
+    @BeforeEach
+    public void init() {
+        backingAccounts = Mockito.spy(new InMemoryAccountRepository());
+        backingOperations = Mockito.spy(new InMemoryOperationRepository());
+        backingAccounts.save(Account.builder().id("existing").build());
+        accountRepository = new CachingAccountRepository(backingAccounts, 2, 1_000);
+        operationRepository = new CachingOperationRepository(backingOperations, 2);
+        accountService = new AccountServiceImpl(accountRepository, operationRepository);
+    }
+
+    @Test
+    public void should_serve_withdraw_from_cache_after_first_access() {
+        //Given
+        accountService.deposit("existing", 100d);
+        Mockito.clearInvocations(backingAccounts, backingOperations);
+
+        //When
+        accountService.withdraw("existing", 40d);
+        accountService.withdrawAll("existing");
+
+        //Then
+        Mockito.verify(backingAccounts, Mockito.never()).getAccountById(anyString());
+        Mockito.verify(backingAccounts, Mockito.never()).existsAccountById(anyString());
+        Mockito.verify(backingOperations, Mockito.never()).findLastOperationByAccountId(anyString());
+        Assertions.assertEquals(0d, accountService.getBalance("existing").getAmount());
+    }
+
+    @Test
+    public void should_reject_unknown_accounts_without_touching_backing_store() {
+        //Given
+        Mockito.clearInvocations(backingAccounts);
+
+        //When
+        Assertions.assertThrows(AccountNotFoundException.class, () -> accountService.deposit("unknown", 10d));
+        accountService.createAccount("created");
+
+        //Then
+        Mockito.verify(backingAccounts, Mockito.never()).getAccountById(anyString());
+        Mockito.verify(backingAccounts, Mockito.never()).existsAccountById(anyString());
+        Assertions.assertTrue(accountRepository.getStatistics().getFilteredLookups() >= 1);
+        Assertions.assertTrue(accountRepository.existsAccountById("created"));
+    }
+
+    @Test
+    public void should_evict_least_recently_used_balances_and_reload_them() {
+        //Given
+        for (String accountId : new String[]{"a", "b", "c"}) {
+            accountService.createAccount(accountId);
+            accountService.deposit(accountId, 10d);
+        }
+
+        //When
+        final double balance = accountService.getBalance("a").getAmount();
+        final double cachedBalance = accountService.getBalance("a").getAmount();
+
+        //Then
+        Assertions.assertEquals(10d, balance);
+        Assertions.assertEquals(10d, cachedBalance);
+        Assertions.assertTrue(operationRepository.getStatistics().getEvictions() > 0);
+        Assertions.assertTrue(operationRepository.getStatistics().getSize() <= 2);
+        Assertions.assertTrue(operationRepository.getStatistics().getHits() > 0);
+    }
+
+    @Test
+    public void should_never_report_false_negatives() {
+        //Given
+        final BloomFilter filter = new BloomFilter(10_000, 0.01d);
+
+        //When
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("account-" + i);
+        }
+
+        //Then
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(filter.mightContain("account-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 300);
+    }
+}
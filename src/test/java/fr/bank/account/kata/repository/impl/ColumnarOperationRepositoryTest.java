@@ -0,0 +1,70 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.OperationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RunWith(JUnitPlatform.class)
+public class ColumnarOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    @Override
+    protected OperationRepository createRepository() {
+        return new ColumnarOperationRepository();
+    }
+
+    @Test
+    public void should_rebuild_saved_operations_in_order() {
+        //Given
+        Account account = Account.builder().id("columnar").build();
+        OffsetDateTime date = OffsetDateTime.now();
+
+        //When
+        for (int i = 1; i <= 20; i++) {
+            operationRepository.save(Operation.builder()
+                    .account(account)
+                    .operationType(i % 3 == 0 ? OperationType.DEBIT : OperationType.CREDIT)
+                    .amount(i + 0.25d)
+                    .balance(i * 10d)
+                    .date(date.plusSeconds(i))
+                    .build());
+        }
+
+        //Then
+        List<Operation> operations = operationRepository.finOperationsdByAccountId("columnar");
+        Assertions.assertEquals(20, operations.size());
+        for (int i = 1; i <= 20; i++) {
+            Operation operation = operations.get(i - 1);
+            Assertions.assertEquals(i + 0.25d, operation.getAmount());
+            Assertions.assertEquals(i * 10d, operation.getBalance());
+            Assertions.assertEquals(i % 3 == 0 ? OperationType.DEBIT : OperationType.CREDIT, operation.getOperationType());
+            Assertions.assertEquals(date.plusSeconds(i).toInstant(), operation.getDate().toInstant());
+            Assertions.assertEquals(account, operation.getAccount());
+        }
+    }
+
+    @Test
+    public void should_return_last_operation_without_rebuilding_history() {
+        //Given
+        Account account = Account.builder().id("columnar").build();
+        Operation last = Operation.builder().account(account).operationType(OperationType.CREDIT)
+                .amount(5d).balance(5d).date(OffsetDateTime.now()).build();
+
+        //When
+        operationRepository.save(last);
+
+        //Then
+        Optional<Operation> found = operationRepository.findLastOperationByAccountId("columnar");
+        Assertions.assertSame(last, found.get());
+        Assertions.assertSame(found, operationRepository.findLastOperationByAccountId("columnar"));
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountId("unknown").isPresent());
+    }
+}
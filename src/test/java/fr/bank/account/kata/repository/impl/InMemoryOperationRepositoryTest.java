@@ -0,0 +1,19 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.repository.OperationRepository;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class InMemoryOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    @Override
+    protected OperationRepository createRepository() {
+        return new InMemoryOperationRepository();
+    }
+
+    @Override
+    protected boolean packsDates() {
+        return false;
+    }
+}
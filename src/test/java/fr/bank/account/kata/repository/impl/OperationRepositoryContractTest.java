@@ -0,0 +1,211 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.OperationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public abstract class OperationRepositoryContractTest {
+
+    protected static final OffsetDateTime START = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    protected static final Account ACCOUNT = Account.builder().id("contract").build();
+
+    protected OperationRepository operationRepository;
+
+    protected abstract OperationRepository createRepository();
+
+    /**
+     * Whether the repository packs dates as epoch nanoseconds, and so refuses dates outside 1677-2262.
+     */
+    protected boolean packsDates() {
+        return true;
+    }
+
+    @BeforeEach
+    public void initRepository() {
+        operationRepository = createRepository();
+    }
+
+    protected List<Operation> saveDailyCredits(int count) {
+        final List<Operation> saved = new ArrayList<>();
+        for (int day = 0; day < count; day++) {
+            saved.add(operationRepository.save(Operation.builder()
+                    .account(ACCOUNT)
+                    .operationType(OperationType.CREDIT)
+                    .amountMinorUnits(100L)
+                    .balanceMinorUnits(100L * (day + 1))
+                    .date(START.plusDays(day))
+                    .build()));
+        }
+        return saved;
+    }
+
+    @Test
+    public void should_return_last_saved_operation() {
+        //Given
+        saveDailyCredits(3);
+
+        //Then
+        Assertions.assertEquals(300L, operationRepository.findLastOperationByAccountId("contract").get().getBalanceMinorUnits());
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountId("unknown").isPresent());
+    }
+
+    @Test
+    public void should_list_accounts_with_operations() {
+        //Given
+        saveDailyCredits(2);
+
+        //Then
+        Assertions.assertEquals(Collections.singletonList("contract"),
+                operationRepository.findAccountIds().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_delete_whole_history_and_start_a_new_one() {
+        //Given
+        saveDailyCredits(5);
+
+        //When
+        operationRepository.deleteOperationsByAccountIds(Arrays.asList("contract", "unknown"));
+
+        //Then
+        Assertions.assertEquals(0L, operationRepository.findAccountIds().count());
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountId("contract").isPresent());
+        Assertions.assertTrue(operationRepository.finOperationsdByAccountId("contract").isEmpty());
+        final List<Operation> saved = saveDailyCredits(2);
+        Assertions.assertEquals(saved, operationRepository.finOperationsdByAccountId("contract"));
+    }
+
+    @Test
+    public void should_page_history_newest_first_with_keyset_cursor() {
+        //Given
+        final List<Operation> saved = saveDailyCredits(10);
+
+        //When
+        final List<Operation> firstPage = operationRepository.findOperationsByAccountId("contract", null, null, null, 4);
+        final List<Operation> secondPage = operationRepository.findOperationsByAccountId("contract", null, null,
+                firstPage.get(3).getId(), 4);
+
+        //Then
+        Assertions.assertEquals(balances(saved.subList(6, 10), true), balances(firstPage, false));
+        Assertions.assertEquals(balances(saved.subList(2, 6), true), balances(secondPage, false));
+    }
+
+    @Test
+    public void should_find_operations_dated_in_half_open_range() {
+        //Given
+        saveDailyCredits(10);
+
+        //When
+        final List<Operation> page = operationRepository.findOperationsByAccountId("contract",
+                START.plusDays(2), START.plusDays(5), null, 100);
+        final List<Operation> streamed = operationRepository.streamOperationsByAccountId("contract",
+                START.plusDays(2), START.plusDays(5)).collect(Collectors.toList());
+
+        //Then
+        Assertions.assertEquals(3, page.size());
+        Assertions.assertEquals(500L, page.get(0).getBalanceMinorUnits());
+        Assertions.assertEquals(300L, page.get(2).getBalanceMinorUnits());
+        Assertions.assertEquals(3, streamed.size());
+        Assertions.assertEquals(300L, streamed.get(0).getBalanceMinorUnits());
+    }
+
+    @Test
+    public void should_find_last_operation_at_date() {
+        //Given
+        saveDailyCredits(100);
+
+        //Then
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountIdAt("contract", START.minusNanos(1)).isPresent());
+        Assertions.assertEquals(100L, operationRepository.findLastOperationByAccountIdAt("contract", START).get().getBalanceMinorUnits());
+        Assertions.assertEquals(4_200L, operationRepository.findLastOperationByAccountIdAt("contract",
+                START.plusDays(41).plusHours(12)).get().getBalanceMinorUnits());
+        Assertions.assertEquals(10_000L, operationRepository.findLastOperationByAccountIdAt("contract",
+                START.plusYears(1)).get().getBalanceMinorUnits());
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountIdAt("unknown", START).isPresent());
+    }
+
+    @Test
+    public void should_stream_whole_history_oldest_first() {
+        //Given
+        final List<Operation> saved = saveDailyCredits(1_000);
+
+        //When
+        final List<Operation> streamed = operationRepository.streamOperationsByAccountId("contract", null, null)
+                .collect(Collectors.toList());
+
+        //Then
+        Assertions.assertEquals(balances(saved, false), balances(streamed, false));
+        Assertions.assertEquals(0L, operationRepository.streamOperationsByAccountId("unknown", null, null).count());
+    }
+
+    @Test
+    public void should_keep_the_offset_of_each_operation() {
+        //Given
+        final OffsetDateTime paris = START.withOffsetSameInstant(ZoneOffset.ofHours(1));
+        final OffsetDateTime newYork = START.plusHours(1).withOffsetSameInstant(ZoneOffset.ofHours(-5));
+        operationRepository.save(Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT)
+                .amountMinorUnits(100L).balanceMinorUnits(100L).date(paris).build());
+        operationRepository.save(Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT)
+                .amountMinorUnits(100L).balanceMinorUnits(200L).date(newYork).build());
+
+        //When
+        final List<Operation> history = operationRepository.finOperationsdByAccountId("contract");
+
+        //Then
+        Assertions.assertEquals(Arrays.asList(paris, newYork),
+                history.stream().map(Operation::getDate).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_accept_bounds_far_beyond_stored_dates() {
+        //Given
+        saveDailyCredits(3);
+
+        //Then
+        Assertions.assertEquals(3, operationRepository.findOperationsByAccountId("contract",
+                START.withYear(1), START.withYear(9999), null, 10).size());
+        Assertions.assertEquals(3L, operationRepository.streamOperationsByAccountId("contract",
+                START.withYear(1), START.withYear(9999)).count());
+        Assertions.assertEquals(300L, operationRepository.findLastOperationByAccountIdAt("contract",
+                START.withYear(9999)).get().getBalanceMinorUnits());
+        Assertions.assertFalse(operationRepository.findLastOperationByAccountIdAt("contract",
+                START.withYear(1)).isPresent());
+    }
+
+    @Test
+    public void should_reject_dates_out_of_packed_range() {
+        Assumptions.assumeTrue(packsDates());
+
+        //Given
+        final Operation operation = Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT)
+                .amountMinorUnits(100L).balanceMinorUnits(100L).date(START.withYear(2263)).build();
+
+        //Then
+        Assertions.assertThrows(IllegalArgumentException.class, () -> operationRepository.save(operation));
+        Assertions.assertTrue(operationRepository.finOperationsdByAccountId("contract").isEmpty());
+        Assertions.assertEquals(100L, saveDailyCredits(1).get(0).getBalanceMinorUnits());
+        Assertions.assertEquals(1, operationRepository.finOperationsdByAccountId("contract").size());
+    }
+
+    private static List<Long> balances(List<Operation> operations, boolean reversed) {
+        final List<Long> balances = operations.stream().map(Operation::getBalanceMinorUnits).collect(Collectors.toList());
+        if (reversed) {
+            Collections.reverse(balances);
+        }
+        return balances;
+    }
+}
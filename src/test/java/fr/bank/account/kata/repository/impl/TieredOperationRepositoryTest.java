@@ -0,0 +1,72 @@
+package fr.bank.account.kata.repository.impl;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.OperationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnitPlatform.class)
+public class TieredOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    @Override
+    protected OperationRepository createRepository() {
+        return new TieredOperationRepository(16, 4);
+    }
+
+    @Test
+    public void should_rebuild_sealed_operations_as_saved() {
+        //Given
+        final Account other = Account.builder().id("other").build();
+        final List<Operation> saved = new ArrayList<>();
+        long balance = 0L;
+        for (int i = 0; i < 100; i++) {
+            final boolean credit = i % 4 != 3;
+            balance += credit ? 10L * i : -5L;
+            saved.add(operationRepository.save(Operation.builder()
+                    .account(ACCOUNT)
+                    .counterparty(i % 7 == 0 ? other : null)
+                    .operationType(credit ? OperationType.CREDIT : OperationType.DEBIT)
+                    .amountMinorUnits(credit ? 10L * i : 5L)
+                    .balanceMinorUnits(i == 50 ? 123L : balance)
+                    .date(i == 60 ? null : START.plusMinutes(i).withOffsetSameInstant(ZoneOffset.ofHours(i / 30)))
+                    .build()));
+        }
+
+        //When
+        final List<Operation> operations = operationRepository.finOperationsdByAccountId(ACCOUNT.getId());
+
+        //Then
+        Assertions.assertTrue(((TieredOperationRepository) operationRepository).getSealedBytes() > 0);
+        Assertions.assertEquals(saved, operations);
+        for (int i = 0; i < saved.size(); i++) {
+            Assertions.assertEquals(saved.get(i).getDate(), operations.get(i).getDate());
+        }
+        Assertions.assertSame(saved.get(99), operationRepository.findLastOperationByAccountId(ACCOUNT.getId()).get());
+    }
+
+    @Test
+    public void should_seal_long_histories_in_a_few_bytes_per_operation() {
+        //Given
+        final int count = 100_000;
+
+        //When
+        for (int minute = 0; minute < count; minute++) {
+            operationRepository.save(Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT)
+                    .amountMinorUnits(100L).balanceMinorUnits(100L * (minute + 1)).date(START.plusMinutes(minute))
+                    .build());
+        }
+
+        //Then
+        final long sealedBytes = ((TieredOperationRepository) operationRepository).getSealedBytes();
+        Assertions.assertTrue(sealedBytes <= (long) count * 12, "sealed " + sealedBytes + " bytes");
+        Assertions.assertEquals(count, operationRepository.streamOperationsByAccountId(ACCOUNT.getId(), null, null).count());
+    }
+}
@@ -0,0 +1,336 @@
+package fr.bank.account.kata.repository.journal;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.OperationRepositoryContractTest;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+@RunWith(JUnitPlatform.class)
+public class JournalOperationRepositoryTest extends OperationRepositoryContractTest {
+
+    private static final int RECORDS_PER_SEGMENT = 64;
+
+    private Path directory;
+
+    private JournalAccountRepository accountRepository;
+
+    @Override
+    protected OperationRepository createRepository() {
+        try {
+            directory = Files.createTempDirectory("journal");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        accountRepository = new JournalAccountRepository(directory, false);
+        accountRepository.save(ACCOUNT);
+        return new JournalOperationRepository(directory, accountRepository, false, RECORDS_PER_SEGMENT);
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void should_recover_accounts_and_history_after_restart() {
+        //Given
+        final List<Operation> saved = saveDailyCredits(150);
+        accountRepository.save(Account.builder().id("other").build());
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertTrue(reopenedAccounts.existsAccountById("other"));
+        Assertions.assertEquals(saved, reopened.finOperationsdByAccountId(ACCOUNT.getId()));
+        Assertions.assertEquals(saved.get(149).getDate(), reopened.findLastOperationByAccountId(ACCOUNT.getId()).get().getDate());
+    }
+
+    @Test
+    public void should_stream_ranges_spanning_several_chunks() {
+        //Given
+        final List<Operation> saved = saveDailyCredits(700);
+
+        //When
+        final List<Operation> whole = operationRepository.streamOperationsByAccountId(ACCOUNT.getId(), null, null)
+                .collect(Collectors.toList());
+        final List<Operation> range = operationRepository.streamOperationsByAccountId(ACCOUNT.getId(),
+                saved.get(3).getDate(), saved.get(650).getDate()).collect(Collectors.toList());
+
+        //Then
+        Assertions.assertEquals(saved, whole);
+        Assertions.assertEquals(saved.subList(3, 650), range);
+    }
+
+    @Test
+    public void should_save_absent_accounts_in_bulk_and_recover_them() {
+        //Given
+        final List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            accounts.add(Account.builder().id("bulk-" + i).build());
+        }
+        accounts.add(ACCOUNT);
+        accounts.add(Account.builder().id("bulk-7").build());
+
+        //When
+        final List<String> existing = accountRepository.saveAllIfAbsent(accounts);
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+
+        //Then
+        Assertions.assertEquals(Arrays.asList(ACCOUNT.getId(), "bulk-7"), existing);
+        Assertions.assertEquals(3_001L, reopenedAccounts.findAll().count());
+        Assertions.assertTrue(reopenedAccounts.existsAccountById("bulk-2999"));
+        Assertions.assertEquals(Arrays.asList("bulk-0"),
+                reopenedAccounts.saveAllIfAbsent(Arrays.asList(Account.builder().id("bulk-0").build())));
+    }
+
+    @Test
+    public void should_cut_torn_tail_when_recovering() throws IOException {
+        //Given
+        saveDailyCredits(10);
+        try (RandomAccessFile segment = new RandomAccessFile(directory.resolve("operations-000000.seg").toFile(), "rw")) {
+            segment.seek(8L * JournalOperationRepository.RECORD_SIZE + 20);
+            segment.write(0x7F);
+        }
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+        reopened.save(Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT).amountMinorUnits(1L)
+                .balanceMinorUnits(801L).date(START).build());
+
+        //Then
+        final List<Operation> operations = reopened.finOperationsdByAccountId(ACCOUNT.getId());
+        Assertions.assertEquals(9, operations.size());
+        Assertions.assertEquals(800L, operations.get(7).getBalanceMinorUnits());
+        Assertions.assertEquals(801L, operations.get(8).getBalanceMinorUnits());
+    }
+
+    @Test
+    public void should_discard_transfer_cut_short_when_recovering() throws IOException {
+        //Given
+        final Account other = Account.builder().id("other").build();
+        accountRepository.save(other);
+        saveDailyCredits(3);
+        final List<Operation> transfer = Arrays.asList(
+                Operation.builder().account(ACCOUNT).counterparty(other).operationType(OperationType.DEBIT)
+                        .amountMinorUnits(50L).balanceMinorUnits(250L).date(START).build(),
+                Operation.builder().account(other).counterparty(ACCOUNT).operationType(OperationType.CREDIT)
+                        .amountMinorUnits(50L).balanceMinorUnits(50L).date(START).build());
+        operationRepository.saveAll(transfer);
+        operationRepository.saveAll(transfer.stream().map(leg -> Operation.builder().account(leg.getAccount())
+                .counterparty(leg.getCounterparty()).operationType(leg.getOperationType()).amountMinorUnits(10L)
+                .balanceMinorUnits(leg.getBalanceMinorUnits() + (leg.getAccount() == other ? 10L : -10L))
+                .date(START).build()).collect(Collectors.toList()));
+        try (RandomAccessFile segment = new RandomAccessFile(directory.resolve("operations-000000.seg").toFile(), "rw")) {
+            segment.seek(6L * JournalOperationRepository.RECORD_SIZE + 20);
+            segment.write(0x7F);
+        }
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertEquals(transfer.get(0), reopened.findLastOperationByAccountId(ACCOUNT.getId()).get());
+        Assertions.assertEquals(transfer.get(1), reopened.findLastOperationByAccountId(other.getId()).get());
+        Assertions.assertEquals(4, reopened.finOperationsdByAccountId(ACCOUNT.getId()).size());
+        Assertions.assertEquals(1, reopened.finOperationsdByAccountId(other.getId()).size());
+    }
+
+    @Test
+    public void should_replay_only_journal_suffix_after_checkpoints() {
+        //Given
+        final Account other = Account.builder().id("other").build();
+        accountRepository.save(other);
+        final JournalOperationRepository journalRepository = (JournalOperationRepository) operationRepository;
+        saveDailyCredits(100);
+        journalRepository.checkpoint();
+        operationRepository.save(Operation.builder().account(other).operationType(OperationType.CREDIT)
+                .amountMinorUnits(7L).balanceMinorUnits(7L).date(START).build());
+        journalRepository.checkpoint();
+        final List<Operation> saved = saveDailyCredits(5);
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertEquals(101L, reopened.getReplayedFrom());
+        Assertions.assertEquals(105, reopened.finOperationsdByAccountId(ACCOUNT.getId()).size());
+        Assertions.assertEquals(saved.get(4), reopened.findLastOperationByAccountId(ACCOUNT.getId()).get());
+        Assertions.assertEquals(7L, reopened.findLastOperationByAccountId("other").get().getBalanceMinorUnits());
+    }
+
+    @Test
+    public void should_keep_replayed_heads_in_next_delta_checkpoint() {
+        //Given
+        final Account other = Account.builder().id("other").build();
+        accountRepository.save(other);
+        final JournalOperationRepository journalRepository = (JournalOperationRepository) operationRepository;
+        saveDailyCredits(10);
+        journalRepository.checkpoint();
+        journalRepository.checkpoint();
+        operationRepository.save(Operation.builder().account(other).operationType(OperationType.CREDIT)
+                .amountMinorUnits(500L).balanceMinorUnits(500L).date(START).build());
+
+        //When
+        final JournalOperationRepository restarted = new JournalOperationRepository(directory,
+                new JournalAccountRepository(directory, false), false, RECORDS_PER_SEGMENT);
+        restarted.checkpoint();
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory,
+                new JournalAccountRepository(directory, false), false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertEquals(11L, reopened.getReplayedFrom());
+        Assertions.assertEquals(500L, reopened.findLastOperationByAccountId("other").get().getBalanceMinorUnits());
+        Assertions.assertEquals(1, reopened.finOperationsdByAccountId("other").size());
+        Assertions.assertEquals(10, reopened.finOperationsdByAccountId(ACCOUNT.getId()).size());
+    }
+
+    @Test
+    public void should_restore_heads_from_checkpoint_without_replaying_journal() {
+        //Given
+        final List<Operation> saved = saveDailyCredits(20);
+        ((JournalOperationRepository) operationRepository).checkpoint();
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+        reopened.save(Operation.builder().account(ACCOUNT).operationType(OperationType.DEBIT)
+                .amountMinorUnits(50L).balanceMinorUnits(1_950L).date(START.plusDays(30)).build());
+
+        //Then
+        Assertions.assertEquals(20L, reopened.getReplayedFrom());
+        Assertions.assertEquals(saved.get(19), reopened.findOperationsByAccountId(ACCOUNT.getId(), null, null, null, 2).get(1));
+        Assertions.assertEquals(1_950L, reopened.findLastOperationByAccountId(ACCOUNT.getId()).get().getBalanceMinorUnits());
+        Assertions.assertEquals(21, reopened.finOperationsdByAccountId(ACCOUNT.getId()).size());
+    }
+
+    @Test
+    public void should_keep_deleted_accounts_deleted_after_restart() {
+        //Given
+        final Account other = Account.builder().id("other").build();
+        accountRepository.save(other);
+        operationRepository.save(Operation.builder().account(other).operationType(OperationType.CREDIT)
+                .amountMinorUnits(7L).balanceMinorUnits(7L).date(START).build());
+        saveDailyCredits(10);
+        ((JournalOperationRepository) operationRepository).checkpoint();
+
+        //When
+        accountRepository.deleteAllById(Arrays.asList(ACCOUNT.getId(), "unknown"));
+        operationRepository.deleteOperationsByAccountIds(Arrays.asList(ACCOUNT.getId(), "unknown"));
+        ((JournalOperationRepository) operationRepository).checkpoint();
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertFalse(reopenedAccounts.existsAccountById(ACCOUNT.getId()));
+        Assertions.assertEquals(Arrays.asList("other"), reopenedAccounts.findAll().map(Account::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(Arrays.asList("other"), reopened.findAccountIds().collect(Collectors.toList()));
+        Assertions.assertTrue(reopened.finOperationsdByAccountId(ACCOUNT.getId()).isEmpty());
+    }
+
+    @Test
+    public void should_replay_deletion_then_new_history_of_recreated_account() {
+        //Given
+        saveDailyCredits(10);
+        accountRepository.deleteAllById(Arrays.asList(ACCOUNT.getId()));
+        operationRepository.deleteOperationsByAccountIds(Arrays.asList(ACCOUNT.getId()));
+        accountRepository.save(ACCOUNT);
+        final List<Operation> saved = saveDailyCredits(2);
+
+        //When
+        final JournalAccountRepository reopenedAccounts = new JournalAccountRepository(directory, false);
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+        reopened.checkpoint();
+        final JournalOperationRepository restored = new JournalOperationRepository(directory, reopenedAccounts,
+                false, RECORDS_PER_SEGMENT);
+
+        //Then
+        Assertions.assertEquals(1L, reopenedAccounts.findAll().count());
+        Assertions.assertEquals(saved, reopened.finOperationsdByAccountId(ACCOUNT.getId()));
+        Assertions.assertEquals(saved, restored.finOperationsdByAccountId(ACCOUNT.getId()));
+    }
+
+    @Test
+    public void should_reopen_many_accounts_without_checkpoint_in_linear_time() {
+        //Given
+        final int accounts = 20_000;
+        for (int i = 0; i < accounts; i++) {
+            final Account account = Account.builder().id("account-" + i).build();
+            accountRepository.save(account);
+            operationRepository.save(Operation.builder().account(account).operationType(OperationType.CREDIT)
+                    .amountMinorUnits(i + 1L).balanceMinorUnits(i + 1L).date(START).build());
+        }
+
+        //When
+        final long start = System.nanoTime();
+        final JournalOperationRepository reopened = new JournalOperationRepository(directory,
+                new JournalAccountRepository(directory, false), false, RECORDS_PER_SEGMENT);
+        final long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+
+        //Then
+        Assertions.assertEquals(0L, reopened.getReplayedFrom());
+        Assertions.assertEquals(accounts, reopened.findAccountIds().count());
+        Assertions.assertEquals(20_000L, reopened.findLastOperationByAccountId("account-19999").get().getBalanceMinorUnits());
+        Assertions.assertTrue(elapsedMillis < 3_000L, "reopened in " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void should_read_history_while_it_is_appended() throws Exception {
+        //Given
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final Thread writer = new Thread(() -> {
+            for (int batch = 0; batch < 2_000; batch++) {
+                final List<Operation> operations = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    operations.add(Operation.builder().account(ACCOUNT).operationType(OperationType.CREDIT)
+                            .amountMinorUnits(1L).balanceMinorUnits(batch * 16L + i + 1)
+                            .date(START.plusSeconds(batch * 16L + i)).build());
+                }
+                operationRepository.saveAll(operations);
+            }
+            writing.set(false);
+        });
+
+        //When
+        writer.start();
+        long pages = 0;
+        while (writing.get()) {
+            operationRepository.findOperationsByAccountId(ACCOUNT.getId(), null, null, null, 4);
+            pages++;
+        }
+        writer.join();
+
+        //Then
+        Assertions.assertTrue(pages > 0);
+        Assertions.assertEquals(32_000L, operationRepository.findLastOperationByAccountId(ACCOUNT.getId()).get()
+                .getBalanceMinorUnits());
+    }
+}
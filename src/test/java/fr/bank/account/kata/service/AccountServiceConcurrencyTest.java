@@ -0,0 +1,329 @@
+package fr.bank.account.kata.service;
+
+import fr.bank.account.kata.error.AccountAlreadyExistsException;
+import fr.bank.account.kata.error.InsufficientBalanceException;
+import fr.bank.account.kata.model.AccountCreationResult;
+import fr.bank.account.kata.model.BalanceSnapshot;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnitPlatform.class)
+public class AccountServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private AccountService accountService;
+
+    @BeforeEach
+    public void init() {
+        accountService = new AccountServiceImpl(new InMemoryAccountRepository(), new InMemoryOperationRepository());
+    }
+
+    @Test
+    public void should_not_lose_any_balance_when_concurrent_deposits_and_withdrawals() throws Exception {
+        //Given
+        final int accounts = 8;
+        final int iterations = 2_000;
+        for (int i = 0; i < accounts; i++) {
+            accountService.createAccount("account-" + i);
+            accountService.deposit("account-" + i, 1_000d);
+        }
+
+        //When
+        runConcurrently(thread -> {
+            for (int i = 0; i < iterations; i++) {
+                final String accountId = "account-" + ((thread + i) % accounts);
+                accountService.deposit(accountId, 3d);
+                accountService.withdraw(accountId, 2d);
+            }
+        });
+
+        //Then
+        final double expectedPerAccount = 1_000d + (double) THREADS * iterations / accounts;
+        for (int i = 0; i < accounts; i++) {
+            final String accountId = "account-" + i;
+            Assertions.assertEquals(expectedPerAccount, accountService.getBalance(accountId).getAmount());
+            Assertions.assertEquals(1 + 2 * THREADS * iterations / accounts, accountService.listOperations(accountId).size());
+        }
+    }
+
+    @Test
+    public void should_never_overdraw_when_concurrent_withdrawals() throws Exception {
+        //Given
+        final String accountId = "shared";
+        accountService.createAccount(accountId);
+        accountService.deposit(accountId, 100d);
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        //When
+        runConcurrently(thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    accountService.withdraw(accountId, 1d);
+                    accepted.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        //Then
+        Assertions.assertEquals(100, accepted.get());
+        Assertions.assertEquals(THREADS * 50 - 100, rejected.get());
+        Assertions.assertEquals(0d, accountService.getBalance(accountId).getAmount());
+        for (Operation operation : accountService.listOperations(accountId)) {
+            Assertions.assertTrue(operation.getBalance() >= 0);
+        }
+    }
+
+    @Test
+    public void should_keep_history_consistent_when_concurrent_withdraw_all() throws Exception {
+        //Given
+        final String accountId = "drained";
+        accountService.createAccount(accountId);
+
+        //When
+        runConcurrently(thread -> {
+            for (int i = 0; i < 200; i++) {
+                if (thread % 2 == 0) {
+                    accountService.deposit(accountId, 5d);
+                } else {
+                    try {
+                        accountService.withdrawAll(accountId);
+                    } catch (RuntimeException ignored) {
+                        // nothing to withdraw yet
+                    }
+                }
+            }
+        });
+
+        //Then
+        double balance = 0d;
+        for (Operation operation : accountService.listOperations(accountId)) {
+            balance = OperationType.CREDIT.equals(operation.getOperationType())
+                    ? balance + operation.getAmount()
+                    : balance - operation.getAmount();
+            Assertions.assertEquals(balance, operation.getBalance());
+        }
+        Assertions.assertEquals(balance, accountService.getBalance(accountId).getAmount());
+    }
+
+    @Test
+    public void should_conserve_total_money_when_concurrent_transfers() throws Exception {
+        //Given
+        final int accounts = 16;
+        for (int i = 0; i < accounts; i++) {
+            accountService.createAccount("account-" + i);
+            accountService.deposit("account-" + i, 100d);
+        }
+        final AtomicInteger accepted = new AtomicInteger();
+
+        //When
+        runConcurrently(thread -> {
+            final Random random = new Random(thread);
+            for (int i = 0; i < 2_000; i++) {
+                final int from = random.nextInt(accounts);
+                final int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                try {
+                    accountService.transfer("account-" + from, "account-" + to, 1d + random.nextInt(30));
+                    accepted.incrementAndGet();
+                } catch (InsufficientBalanceException ignored) {
+                    // the source was drained by other transfers
+                }
+            }
+        });
+
+        //Then
+        double total = 0d;
+        int transferLegs = 0;
+        for (int i = 0; i < accounts; i++) {
+            final String accountId = "account-" + i;
+            final double balance = accountService.getBalance(accountId).getAmount();
+            Assertions.assertTrue(balance >= 0);
+            total += balance;
+            transferLegs += accountService.listOperations(accountId).size() - 1;
+        }
+        Assertions.assertEquals(100d * accounts, total, 0.001d);
+        Assertions.assertEquals(2 * accepted.get(), transferLegs);
+    }
+
+    @Test
+    public void should_read_consistent_snapshots_while_concurrent_transfers() throws Exception {
+        //Given
+        final int accounts = 16;
+        final List<String> accountIds = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            accountService.createAccount("account-" + i);
+            accountService.depositMinorUnits("account-" + i, 10_000L);
+            accountIds.add("account-" + i);
+        }
+        accountIds.add("missing");
+        final AtomicInteger snapshots = new AtomicInteger();
+
+        //When
+        runConcurrently(thread -> {
+            final Random random = new Random(thread);
+            if (thread % 2 == 0) {
+                for (int i = 0; i < 2_000; i++) {
+                    final int from = random.nextInt(accounts);
+                    final int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                    try {
+                        accountService.transferMinorUnits("account-" + from, "account-" + to, 1L + random.nextInt(3_000));
+                    } catch (InsufficientBalanceException ignored) {
+                        // the source was drained by other transfers
+                    }
+                }
+            } else {
+                long lastSequence = 0L;
+                for (int i = 0; i < 2_000; i++) {
+                    final BalanceSnapshot snapshot = accountService.getBalances(accountIds);
+                    Assertions.assertEquals(accounts, snapshot.getBalancesMinorUnits().size());
+                    Assertions.assertFalse(snapshot.contains("missing"));
+                    Assertions.assertEquals(10_000L * accounts, snapshot.getBalancesMinorUnits().values().stream()
+                            .mapToLong(Long::longValue).sum(), snapshot.toString());
+                    Assertions.assertTrue(snapshot.getSequence() >= lastSequence);
+                    lastSequence = snapshot.getSequence();
+                    snapshots.incrementAndGet();
+                }
+            }
+        });
+
+        //Then
+        Assertions.assertEquals(THREADS / 2 * 2_000, snapshots.get());
+        final BalanceSnapshot snapshot = accountService.getBalances(accountIds);
+        for (int i = 0; i < accounts; i++) {
+            Assertions.assertEquals(accountService.getBalanceMinorUnits("account-" + i),
+                    snapshot.getBalancesMinorUnits().get("account-" + i).longValue());
+        }
+    }
+
+    @Test
+    public void should_create_each_account_once_when_concurrent_bulk_creations() throws Exception {
+        //Given
+        final int accounts = 20_000;
+        final List<Map<String, Long>> batches = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            final Map<String, Long> batch = new LinkedHashMap<>();
+            for (int k = 0; k < accounts / 2; k++) {
+                final int i = 2 * ((k + thread * 997) % (accounts / 2));
+                batch.put("account-" + i, 1_000L + i);
+            }
+            batches.add(batch);
+        }
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger existing = new AtomicInteger();
+        final AtomicInteger deposits = new AtomicInteger();
+
+        //When
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < accounts; i += 2) {
+                    if (accountService.tryDeposit("account-" + i, 1L).isSuccess()) {
+                        deposits.incrementAndGet();
+                    }
+                }
+            } else {
+                final AccountCreationResult result = accountService.createAccounts(batches.get(thread));
+                created.addAndGet(result.getCreatedCount());
+                existing.addAndGet(result.getExistingAccountIds().size());
+            }
+        });
+
+        //Then
+        Assertions.assertEquals(accounts / 2, created.get());
+        Assertions.assertEquals(batches.stream().skip(1).mapToInt(Map::size).sum() - accounts / 2, existing.get());
+        long depositsFound = 0L;
+        for (int i = 0; i < accounts; i += 2) {
+            final List<Operation> operations = accountService.listOperations("account-" + i);
+            Assertions.assertEquals(1_000L + i, operations.get(0).getBalanceMinorUnits());
+            Assertions.assertEquals(1_000L + i + operations.size() - 1, accountService.getBalanceMinorUnits("account-" + i));
+            depositsFound += operations.size() - 1;
+        }
+        Assertions.assertEquals(deposits.get(), depositsFound);
+    }
+
+    @Test
+    public void should_have_single_winner_when_concurrent_single_and_bulk_creations() throws Exception {
+        //Given
+        final int accounts = 5_000;
+        final Map<String, Long> batch = new LinkedHashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            batch.put("account-" + i, 100L);
+        }
+        final AtomicInteger created = new AtomicInteger();
+
+        //When
+        runConcurrently(thread -> {
+            if (thread % 2 == 0) {
+                for (int i = 0; i < accounts; i++) {
+                    try {
+                        accountService.createAccount("account-" + (i + thread * 311) % accounts);
+                        created.incrementAndGet();
+                    } catch (AccountAlreadyExistsException e) {
+                        // created by another thread
+                    }
+                }
+            } else {
+                created.addAndGet(accountService.createAccounts(batch).getCreatedCount());
+            }
+        });
+
+        //Then
+        Assertions.assertEquals(accounts, created.get());
+        for (int i = 0; i < accounts; i++) {
+            final List<Operation> operations = accountService.listOperations("account-" + i);
+            Assertions.assertTrue(operations.size() <= 1);
+            Assertions.assertEquals(operations.isEmpty() ? 0L : 100L, accountService.getBalanceMinorUnits("account-" + i));
+        }
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
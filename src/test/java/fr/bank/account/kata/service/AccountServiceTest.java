@@ -4,6 +4,11 @@ import fr.bank.account.kata.error.*;
 import fr.bank.account.kata.model.Account;
 import fr.bank.account.kata.model.Balance;
 import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationOutcome;
+import fr.bank.account.kata.model.OperationPage;
+import fr.bank.account.kata.model.OperationRequest;
+import fr.bank.account.kata.model.OperationResult;
+import fr.bank.account.kata.model.OperationStatus;
 import fr.bank.account.kata.model.OperationType;
 import fr.bank.account.kata.repository.AccountRepository;
 import fr.bank.account.kata.repository.OperationRepository;
@@ -19,7 +24,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.OffsetDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -48,13 +55,14 @@ public class AccountServiceTest {
     public void should_success_when_create_non_existent_account() {
         //Given
         String accountId = UUID.randomUUID().toString();
-        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(false);
+        Mockito.when(accountRepository.saveAllIfAbsent(eq(Collections.singletonList(Account.builder().id(accountId).build()))))
+                .thenReturn(Collections.emptyList());
 
         //When
         accountService.createAccount(accountId);
 
         //Then
-        Mockito.verify(accountRepository).save(Account.builder().id(accountId).build());
+        Mockito.verify(accountRepository).saveAllIfAbsent(Collections.singletonList(Account.builder().id(accountId).build()));
     }
 
 
@@ -62,7 +70,8 @@ public class AccountServiceTest {
     public void should_fail_when_create_existent_account() {
         //Given
         String accountId = UUID.randomUUID().toString();
-        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        Mockito.when(accountRepository.saveAllIfAbsent(eq(Collections.singletonList(Account.builder().id(accountId).build()))))
+                .thenReturn(Collections.singletonList(accountId));
 
         Assertions.assertThrows(
                 //Then
@@ -188,6 +197,29 @@ public class AccountServiceTest {
     }
 
 
+    @Test
+    public void should_success_when_execute_deposit_operation_in_minor_units() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        Mockito.when(accountRepository.getAccountById(eq(accountId))).thenReturn(Optional.of(Account.builder()
+                .id(accountId).build()));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(accountId)))
+                .thenReturn(Optional.of(Operation.builder().balanceMinorUnits(100_010L).build()));
+
+        //When
+        final long balance = accountService.depositMinorUnits(accountId, 20L);
+
+        //Then
+        Assertions.assertEquals(100_030L, balance);
+        Mockito.verify(operationRepository).save(argThat(new OperationMatcher(Operation.builder()
+                .operationType(OperationType.CREDIT)
+                .account(Account.builder().id(accountId).build())
+                .amountMinorUnits(20L)
+                .balanceMinorUnits(100_030L)
+                .build())));
+    }
+
     @Test
     public void should_fail_when_execute_withdraw_operation_on_insufficient_balance() {
         //Given
@@ -206,6 +238,40 @@ public class AccountServiceTest {
         );
     }
 
+    @Test
+    public void should_return_shared_rejection_when_try_withdraw_on_insufficient_balance() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        Mockito.when(accountRepository.getAccountById(eq(accountId))).thenReturn(Optional.of(Account.builder()
+                .id(accountId).build()));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(accountId)))
+                .thenReturn(Optional.of(Operation.builder().balance(10d).build()));
+
+        //When
+        final OperationOutcome rejected = accountService.tryWithdraw(accountId, 1_001L);
+        final OperationOutcome accepted = accountService.tryWithdraw(accountId, 1_000L);
+
+        //Then
+        Assertions.assertSame(OperationOutcome.rejected(OperationStatus.INSUFFICIENT_BALANCE), rejected);
+        Assertions.assertFalse(rejected.isSuccess());
+        Assertions.assertTrue(accepted.isSuccess());
+        Assertions.assertEquals(0L, accepted.getBalanceMinorUnits());
+        Mockito.verify(operationRepository).save(Mockito.any());
+    }
+
+    @Test
+    public void should_return_rejection_when_try_deposit_on_nonexistent_account_or_invalid_amount() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+
+        //Then
+        Assertions.assertEquals(OperationStatus.ACCOUNT_NOT_FOUND, accountService.tryDeposit(accountId, 100L).getStatus());
+        Assertions.assertEquals(OperationStatus.NULL_OR_ZERO_AMOUNT, accountService.tryDeposit(accountId, 0L).getStatus());
+        Assertions.assertEquals(OperationStatus.NEGATIVE_AMOUNT, accountService.tryDeposit(accountId, -1L).getStatus());
+        Mockito.verifyZeroInteractions(operationRepository);
+    }
+
     @Test
     public void should_success_when_withdraw_all() {
         //Given
@@ -229,6 +295,145 @@ public class AccountServiceTest {
     }
 
 
+    @Test
+    public void should_save_both_legs_of_transfer_in_one_call() {
+        //Given
+        String fromAccountId = UUID.randomUUID().toString();
+        String toAccountId = UUID.randomUUID().toString();
+        Account from = Account.builder().id(fromAccountId).build();
+        Account to = Account.builder().id(toAccountId).build();
+        Mockito.when(accountRepository.existsAccountById(Mockito.anyString())).thenReturn(true);
+        Mockito.when(accountRepository.getAccountById(eq(fromAccountId))).thenReturn(Optional.of(from));
+        Mockito.doReturn(Optional.of(to)).when(accountRepository).getAccountById(eq(toAccountId));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(fromAccountId)))
+                .thenReturn(Optional.of(Operation.builder().balance(1000d).build()));
+        Mockito.doReturn(Optional.of(Operation.builder().balance(5d).build()))
+                .when(operationRepository).findLastOperationByAccountId(eq(toAccountId));
+
+        //When
+        final Balance balance = accountService.transfer(fromAccountId, toAccountId, 250d);
+
+        //Then
+        Assertions.assertEquals(750d, balance.getAmount());
+        Mockito.verify(operationRepository).saveAll(Arrays.asList(
+                Operation.builder().account(from).counterparty(to).operationType(OperationType.DEBIT)
+                        .amount(250d).balance(750d).build(),
+                Operation.builder().account(to).counterparty(from).operationType(OperationType.CREDIT)
+                        .amount(250d).balance(255d).build()));
+        Mockito.verify(operationRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void should_fail_when_transfer_on_insufficient_balance() {
+        //Given
+        String fromAccountId = UUID.randomUUID().toString();
+        String toAccountId = UUID.randomUUID().toString();
+        Mockito.when(accountRepository.existsAccountById(eq(fromAccountId))).thenReturn(true);
+        Mockito.when(accountRepository.getAccountById(eq(fromAccountId))).thenReturn(Optional.of(Account.builder()
+                .id(fromAccountId).build()));
+        Mockito.doReturn(Optional.of(Account.builder().id(toAccountId).build()))
+                .when(accountRepository).getAccountById(eq(toAccountId));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(fromAccountId)))
+                .thenReturn(Optional.of(Operation.builder().balance(100d).build()));
+
+        Assertions.assertThrows(
+                //Then
+                InsufficientBalanceException.class,
+                //When
+                () -> accountService.transfer(fromAccountId, toAccountId, 100.01d)
+        );
+        Mockito.verify(operationRepository, Mockito.never()).saveAll(Mockito.any());
+    }
+
+    @Test
+    public void should_fail_when_transfer_to_the_same_account() {
+        Assertions.assertThrows(
+                //Then
+                SameAccountTransferException.class,
+                //When
+                () -> accountService.transfer("account", "account", 10d)
+        );
+    }
+
+    @Test
+    public void should_apply_batch_with_one_lookup_per_account() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        String otherAccountId = UUID.randomUUID().toString();
+        Account account = Account.builder().id(accountId).build();
+        Mockito.when(accountRepository.getAccountById(eq(accountId))).thenReturn(Optional.of(account));
+        Mockito.doReturn(Optional.empty()).when(accountRepository).getAccountById(eq(otherAccountId));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(accountId)))
+                .thenReturn(Optional.of(Operation.builder().balance(100d).build()));
+
+        //When
+        final List<OperationResult> results = accountService.executeBatch(Arrays.asList(
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.CREDIT).amount(50d).build(),
+                OperationRequest.builder().accountId(otherAccountId).operationType(OperationType.CREDIT).amount(10d).build(),
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.DEBIT).amount(500d).build(),
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.DEBIT).amount(120d).build()));
+
+        //Then
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(150d, results.get(0).getBalance().getAmount());
+        Assertions.assertTrue(results.get(1).getError() instanceof AccountNotFoundException);
+        Assertions.assertTrue(results.get(2).getError() instanceof InsufficientBalanceException);
+        Assertions.assertEquals(30d, results.get(3).getBalance().getAmount());
+
+        Mockito.verify(accountRepository).getAccountById(accountId);
+        Mockito.verify(operationRepository).findLastOperationByAccountId(accountId);
+        Mockito.verify(operationRepository).saveAll(Arrays.asList(
+                Operation.builder().account(account).operationType(OperationType.CREDIT).amount(50d).balance(150d).build(),
+                Operation.builder().account(account).operationType(OperationType.DEBIT).amount(120d).balance(30d).build()));
+        Mockito.verifyNoMoreInteractions(operationRepository);
+    }
+
+    @Test
+    public void should_reject_batch_request_without_operation_type() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        Account account = Account.builder().id(accountId).build();
+        Mockito.when(accountRepository.getAccountById(eq(accountId))).thenReturn(Optional.of(account));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(accountId)))
+                .thenReturn(Optional.of(Operation.builder().balance(100d).build()));
+
+        //When
+        final List<OperationResult> results = accountService.executeBatch(Arrays.asList(
+                OperationRequest.builder().accountId(accountId).amount(500d).build(),
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.DEBIT).amount(20d).build()));
+
+        //Then
+        Assertions.assertTrue(results.get(0).getError() instanceof MissingOperationTypeException);
+        Assertions.assertEquals(80d, results.get(1).getBalance().getAmount());
+        Mockito.verify(operationRepository).saveAll(Collections.singletonList(
+                Operation.builder().account(account).operationType(OperationType.DEBIT).amount(20d).balance(80d).build()));
+    }
+
+    @Test
+    public void should_reject_deposits_beyond_largest_balance() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        Account account = Account.builder().id(accountId).build();
+        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        Mockito.when(accountRepository.getAccountById(eq(accountId))).thenReturn(Optional.of(account));
+        Mockito.when(operationRepository.findLastOperationByAccountId(eq(accountId)))
+                .thenReturn(Optional.of(Operation.builder().balanceMinorUnits(Long.MAX_VALUE - 10L).build()));
+
+        //When
+        final OperationOutcome outcome = accountService.tryDeposit(accountId, 11L);
+        final List<OperationResult> results = accountService.executeBatch(Arrays.asList(
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.CREDIT).amountMinorUnits(11L).build(),
+                OperationRequest.builder().accountId(accountId).operationType(OperationType.CREDIT).amountMinorUnits(10L).build()));
+
+        //Then
+        Assertions.assertSame(OperationOutcome.rejected(OperationStatus.AMOUNT_OUT_OF_RANGE), outcome);
+        Assertions.assertTrue(results.get(0).getError() instanceof AmountOutOfRangeException);
+        Assertions.assertEquals(Long.MAX_VALUE, results.get(1).getBalance().getAmountMinorUnits());
+        Mockito.verify(operationRepository).saveAll(Collections.singletonList(Operation.builder().account(account)
+                .operationType(OperationType.CREDIT).amountMinorUnits(10L).balanceMinorUnits(Long.MAX_VALUE).build()));
+        Mockito.verify(operationRepository, Mockito.never()).save(Mockito.any());
+    }
+
     @Test
     public void should_success_when_list_operations_history() {
         //Given
@@ -262,6 +467,26 @@ public class AccountServiceTest {
         Assertions.assertEquals(operations, returnedOperations);
     }
 
+    @Test
+    public void should_return_next_cursor_when_more_operations_than_page_limit() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        List<Operation> newestFirst = Arrays.asList(
+                Operation.builder().id(9).balance(30d).build(),
+                Operation.builder().id(7).balance(20d).build(),
+                Operation.builder().id(4).balance(10d).build());
+        Mockito.when(operationRepository.findOperationsByAccountId(accountId, null, null, 12, 3))
+                .thenReturn(newestFirst);
+
+        //When
+        final OperationPage page = accountService.listOperations(accountId, 12, 2);
+
+        //Then
+        Assertions.assertEquals(newestFirst.subList(0, 2), page.getOperations());
+        Assertions.assertEquals(Integer.valueOf(7), page.getNextCursor());
+    }
+
     @Test
     public void should_fail_when_list_operations_history_of_an_nonexistent_account() {
         //Given
@@ -294,6 +519,24 @@ public class AccountServiceTest {
         Assertions.assertEquals(1150d, balance.getAmount());
     }
 
+    @Test
+    public void should_success_when_get_account_balance_at_date() {
+        //Given
+        String accountId = UUID.randomUUID().toString();
+        OffsetDateTime at = OffsetDateTime.now().minusDays(7);
+        Mockito.when(accountRepository.existsAccountById(eq(accountId))).thenReturn(true);
+        Mockito.when(operationRepository.findLastOperationByAccountIdAt(eq(accountId), eq(at))).thenReturn(Optional.of(
+                Operation.builder().operationType(OperationType.CREDIT).amount(50d).balance(420d).build()));
+
+        //When
+        final Balance balance = accountService.getBalance(accountId, at);
+
+        //Then
+        Assertions.assertEquals(420d, balance.getAmount());
+        Assertions.assertEquals(at, balance.getDate());
+        Mockito.verify(operationRepository, Mockito.never()).finOperationsdByAccountId(Mockito.any());
+    }
+
     @Test
     public void should_success_and_return_zero_balance_when_no_operations_on_account() {
         //Given
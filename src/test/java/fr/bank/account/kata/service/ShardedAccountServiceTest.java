@@ -0,0 +1,140 @@
+package fr.bank.account.kata.service;
+
+import fr.bank.account.kata.error.AccountNotFoundException;
+import fr.bank.account.kata.error.InsufficientBalanceException;
+import fr.bank.account.kata.model.Balance;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import fr.bank.account.kata.service.impl.ShardedAccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnitPlatform.class)
+public class ShardedAccountServiceTest {
+
+    private AccountService accountService;
+
+    private ShardedAccountService shardedAccountService;
+
+    @BeforeEach
+    public void init() {
+        accountService = new AccountServiceImpl(new InMemoryAccountRepository(), new InMemoryOperationRepository());
+        shardedAccountService = new ShardedAccountService(accountService, 4);
+    }
+
+    @AfterEach
+    public void close() throws InterruptedException {
+        shardedAccountService.close();
+    }
+
+    @Test
+    public void should_apply_all_submitted_operations_in_order() throws Exception {
+        //Given
+        for (int i = 0; i < 10; i++) {
+            shardedAccountService.createAccount("account-" + i).get(5, TimeUnit.SECONDS);
+        }
+
+        //When
+        final List<CompletableFuture<Balance>> futures = new ArrayList<>();
+        for (int round = 0; round < 1_000; round++) {
+            for (int i = 0; i < 10; i++) {
+                futures.add(shardedAccountService.deposit("account-" + i, 2d));
+                futures.add(shardedAccountService.withdraw("account-" + i, 1d));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        //Then
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(1_000d, shardedAccountService.getBalance("account-" + i).get().getAmount());
+            Assertions.assertEquals(2_000, accountService.listOperations("account-" + i).size());
+        }
+        Assertions.assertEquals(1_000d, futures.get(futures.size() - 1).get().getAmount());
+    }
+
+    @Test
+    public void should_complete_futures_on_completion_executor_and_round_shard_count() throws Exception {
+        //Given
+        final ExecutorService completions = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "completions"));
+        final ShardedAccountService service = new ShardedAccountService(accountService, 3,
+                ShardedAccountService.DEFAULT_QUEUE_CAPACITY, ShardedAccountService.DEFAULT_MAX_BATCH_SIZE, completions);
+
+        try {
+            //When
+            final CompletableFuture<Void> creationGate = new CompletableFuture<>();
+            completions.execute(creationGate::join);
+            final CompletableFuture<String> creationThread = service.createAccount("account")
+                    .thenApply(account -> Thread.currentThread().getName());
+            creationGate.complete(null);
+            creationThread.get(5, TimeUnit.SECONDS);
+            final CompletableFuture<Void> depositGate = new CompletableFuture<>();
+            completions.execute(depositGate::join);
+            final CompletableFuture<String> depositThread = service.deposit("account", 10d)
+                    .thenApply(balance -> Thread.currentThread().getName());
+            depositGate.complete(null);
+
+            //Then
+            Assertions.assertEquals(4, service.getShardCount());
+            Assertions.assertEquals("completions", creationThread.get());
+            Assertions.assertEquals("completions", depositThread.get(5, TimeUnit.SECONDS));
+        } finally {
+            service.close();
+            completions.shutdown();
+        }
+    }
+
+    @Test
+    public void should_fail_future_without_aborting_other_operations() throws Exception {
+        //Given
+        shardedAccountService.createAccount("account").get(5, TimeUnit.SECONDS);
+
+        //When
+        final CompletableFuture<Balance> rejected = shardedAccountService.withdraw("account", 10d);
+        final CompletableFuture<Balance> accepted = shardedAccountService.deposit("account", 10d);
+        final CompletableFuture<Balance> drained = shardedAccountService.withdrawAll("account");
+        final CompletableFuture<Balance> unknown = shardedAccountService.deposit("unknown", 10d);
+
+        //Then
+        assertFailsWith(InsufficientBalanceException.class, rejected);
+        Assertions.assertEquals(10d, accepted.get(5, TimeUnit.SECONDS).getAmount());
+        Assertions.assertEquals(0d, drained.get(5, TimeUnit.SECONDS).getAmount());
+        assertFailsWith(AccountNotFoundException.class, unknown);
+        assertFailsWith(AccountNotFoundException.class, shardedAccountService.getBalance("unknown"));
+    }
+
+    @Test
+    public void should_fail_futures_submitted_after_close_or_with_invalid_amount() throws Exception {
+        //Given
+        shardedAccountService.createAccount("account").get(5, TimeUnit.SECONDS);
+
+        //When
+        final CompletableFuture<Balance> invalid = shardedAccountService.deposit("account", Double.NaN);
+        shardedAccountService.close();
+        final CompletableFuture<Balance> afterClose = shardedAccountService.deposit("account", 10d);
+
+        //Then
+        assertFailsWith(ArithmeticException.class, invalid);
+        assertFailsWith(RejectedExecutionException.class, afterClose);
+        assertFailsWith(RejectedExecutionException.class, shardedAccountService.withdrawAll("account"));
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> expected, CompletableFuture<?> future) {
+        final ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(expected.isInstance(failure.getCause()));
+    }
+}
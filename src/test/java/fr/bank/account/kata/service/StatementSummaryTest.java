@@ -0,0 +1,113 @@
+package fr.bank.account.kata.service;
+
+import fr.bank.account.kata.model.Account;
+import fr.bank.account.kata.model.Operation;
+import fr.bank.account.kata.model.OperationType;
+import fr.bank.account.kata.model.StatementPeriod;
+import fr.bank.account.kata.model.StatementSummary;
+import fr.bank.account.kata.repository.AccountRepository;
+import fr.bank.account.kata.repository.OperationRepository;
+import fr.bank.account.kata.repository.impl.InMemoryAccountRepository;
+import fr.bank.account.kata.repository.impl.InMemoryOperationRepository;
+import fr.bank.account.kata.service.impl.AccountServiceImpl;
+import fr.bank.account.kata.service.impl.StatementAggregates;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RunWith(JUnitPlatform.class)
+public class StatementSummaryTest {
+
+    private static final Account ACCOUNT = Account.builder().id("statement").build();
+
+    @Test
+    public void should_summarize_months_including_empty_ones() {
+        //Given
+        final StatementAggregates aggregates = new StatementAggregates(ZoneOffset.UTC);
+        aggregates.track(ACCOUNT.getId());
+        aggregates.record(operation(OperationType.CREDIT, 1_000L, 1_000L, "2021-01-05T10:00:00Z"));
+        aggregates.record(operation(OperationType.DEBIT, 200L, 800L, "2021-01-31T23:59:59Z"));
+        aggregates.record(operation(OperationType.CREDIT, 50L, 850L, "2021-03-01T00:00:00Z"));
+
+        //When
+        final List<StatementSummary> summaries = aggregates.summaries(ACCOUNT.getId(), StatementPeriod.MONTH,
+                LocalDate.of(2021, 1, 1), LocalDate.of(2021, 4, 1));
+
+        //Then
+        Assertions.assertEquals(3, summaries.size());
+        Assertions.assertEquals(StatementSummary.builder().periodStart(LocalDate.of(2021, 1, 1))
+                .periodEnd(LocalDate.of(2021, 2, 1)).totalCreditsMinorUnits(1_000L).totalDebitsMinorUnits(200L)
+                .operationCount(2).openingBalanceMinorUnits(0L).closingBalanceMinorUnits(800L).build(), summaries.get(0));
+        Assertions.assertEquals(0, summaries.get(1).getOperationCount());
+        Assertions.assertEquals(800L, summaries.get(1).getOpeningBalanceMinorUnits());
+        Assertions.assertEquals(800L, summaries.get(1).getClosingBalanceMinorUnits());
+        Assertions.assertEquals(800L, summaries.get(2).getOpeningBalanceMinorUnits());
+        Assertions.assertEquals(850L, summaries.get(2).getClosingBalanceMinorUnits());
+        Assertions.assertEquals(0.5d, summaries.get(2).getTotalCredits());
+    }
+
+    @Test
+    public void should_rebuild_same_summaries_from_history() {
+        //Given
+        final StatementAggregates incremental = new StatementAggregates(ZoneOffset.UTC);
+        final StatementAggregates rebuilt = new StatementAggregates(ZoneOffset.UTC);
+        incremental.track(ACCOUNT.getId());
+        final Operation[] history = {
+                operation(OperationType.CREDIT, 300L, 300L, "2021-06-01T08:00:00Z"),
+                operation(OperationType.DEBIT, 100L, 200L, "2021-06-01T09:00:00Z"),
+                operation(OperationType.CREDIT, 10L, 210L, "2021-06-03T09:00:00Z")};
+
+        //When
+        for (Operation operation : history) {
+            incremental.record(operation);
+        }
+        rebuilt.rebuild(ACCOUNT.getId(), Stream.of(history));
+
+        //Then
+        Assertions.assertEquals(
+                incremental.summaries(ACCOUNT.getId(), StatementPeriod.DAY, LocalDate.of(2021, 5, 31), LocalDate.of(2021, 6, 5)),
+                rebuilt.summaries(ACCOUNT.getId(), StatementPeriod.DAY, LocalDate.of(2021, 5, 31), LocalDate.of(2021, 6, 5)));
+    }
+
+    @Test
+    public void should_keep_summaries_up_to_date_and_rebuild_after_restart() {
+        //Given
+        final AccountRepository accountRepository = new InMemoryAccountRepository();
+        final OperationRepository operationRepository = new InMemoryOperationRepository();
+        final AccountService accountService = new AccountServiceImpl(accountRepository, operationRepository);
+        final LocalDate today = OffsetDateTime.now().toLocalDate();
+        accountService.createAccount("account");
+        accountService.deposit("account", 100d);
+        accountService.withdraw("account", 30d);
+
+        //When
+        final List<StatementSummary> summaries = accountService.getStatementSummaries("account",
+                StatementPeriod.DAY, today.minusDays(1), today.plusDays(2));
+        final AccountService restarted = new AccountServiceImpl(accountRepository, operationRepository);
+        restarted.deposit("account", 5d);
+        final List<StatementSummary> restartedSummaries = restarted.getStatementSummaries("account",
+                StatementPeriod.MONTH, today, today.plusDays(1));
+
+        //Then
+        Assertions.assertEquals(3, summaries.size());
+        Assertions.assertEquals(0, summaries.get(0).getOperationCount());
+        Assertions.assertEquals(2, summaries.get(1).getOperationCount() + summaries.get(2).getOperationCount());
+        Assertions.assertEquals(70d, summaries.get(2).getClosingBalance());
+        Assertions.assertEquals(1, restartedSummaries.size());
+        Assertions.assertEquals(3, restartedSummaries.get(0).getOperationCount());
+        Assertions.assertEquals(105d, restartedSummaries.get(0).getTotalCredits());
+        Assertions.assertEquals(75d, restartedSummaries.get(0).getClosingBalance());
+    }
+
+    private static Operation operation(OperationType type, long amount, long balance, String date) {
+        return Operation.builder().account(ACCOUNT).operationType(type).amountMinorUnits(amount)
+                .balanceMinorUnits(balance).date(OffsetDateTime.parse(date)).build();
+    }
+}